@@ -0,0 +1,38 @@
+package de.amr.easy.game.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes the results in JSON format. The benchmark classes fork their JVMs in
+ * headless mode.
+ * <p>
+ * Accepts the usual JMH command-line options, for example a regular expression selecting the
+ * benchmarks, {@code -p pairs=100} to fix a parameter or {@code -rff results.json} to change the
+ * result file (default: {@code jmh-result.json}). Example:
+ * 
+ * <pre>
+ * java -jar easy-game-benchmarks/target/benchmarks.jar CollisionHandler -rff collisions.json
+ * </pre>
+ * 
+ * @author Armin Reichert
+ */
+public class BenchmarkMain {
+
+	public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cmdLine = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cmdLine);
+		if (!cmdLine.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!cmdLine.getResult().hasValue()) {
+			options.result(DEFAULT_RESULT_FILE);
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,105 @@
+package de.amr.easy.game.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.amr.easy.game.entity.Entity;
+import de.amr.easy.game.entity.collision.Collision;
+import de.amr.easy.game.entity.collision.CollisionHandler;
+
+/**
+ * Measures {@link CollisionHandler#update()} for registered collider pairs and for layer rules. In
+ * each update, every second entity moves back or forth such that collisions start and end.
+ * 
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class CollisionHandlerBenchmark {
+
+	private static final int WORLD_SIZE = 2048;
+	private static final int ENTITY_SIZE = 16;
+
+	@Param({ "10", "100", "1000" })
+	public int pairs;
+
+	/** Broad phase cell size, 0 disables the broad phase. */
+	@Param({ "0", "64" })
+	public float cellSize;
+
+	private Entity[] entities;
+	private CollisionHandler pairHandler;
+	private CollisionHandler layerHandler;
+	private float step = ENTITY_SIZE;
+
+	@Setup
+	public void setup() {
+		SplittableRandom rnd = new SplittableRandom(42);
+		entities = new Entity[2 * pairs];
+		pairHandler = new CollisionHandler(cellSize);
+		layerHandler = new CollisionHandler(cellSize);
+		for (int i = 0; i < pairs; ++i) {
+			Entity either = entity(rnd.nextInt(WORLD_SIZE), rnd.nextInt(WORLD_SIZE), 0);
+			Entity other = entity(either.tf.x + ENTITY_SIZE / 2, either.tf.y, 1);
+			entities[2 * i] = either;
+			entities[2 * i + 1] = other;
+			pairHandler.registerStart(either, other, "start");
+			pairHandler.registerEnd(either, other, "end");
+			layerHandler.add(either);
+			layerHandler.add(other);
+		}
+		layerHandler.registerLayerStart(0, 1, "start");
+		layerHandler.registerLayerEnd(0, 1, "end");
+	}
+
+	private Entity entity(float x, float y, int layer) {
+		Entity entity = new Entity();
+		entity.tf.setPosition(x, y);
+		entity.tf.width = ENTITY_SIZE;
+		entity.tf.height = ENTITY_SIZE;
+		entity.collisionLayer = layer;
+		return entity;
+	}
+
+	private void move() {
+		for (int i = 1; i < entities.length; i += 2) {
+			entities[i].tf.x += step;
+		}
+		step = -step;
+	}
+
+	@Benchmark
+	public void registeredPairs(Blackhole bh) {
+		move();
+		pairHandler.update();
+		for (Collision collision : pairHandler.collisions()) {
+			bh.consume(collision.isCollisionStart());
+		}
+	}
+
+	@Benchmark
+	public void layerRules(Blackhole bh) {
+		move();
+		layerHandler.update();
+		for (Collision collision : layerHandler.collisions()) {
+			bh.consume(collision.isCollisionStart());
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package de.amr.easy.game.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.amr.easy.game.controller.Lifecycle;
+import de.amr.easy.game.entity.Entity;
+import de.amr.easy.game.entity.EntityMap;
+import de.amr.easy.game.entity.GameObject;
+
+/**
+ * Measures the queries of {@link EntityMap} by class and by implemented type, as streams and using
+ * the {@code forEach} methods, and storing/removing an entity.
+ * 
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class EntityMapBenchmark {
+
+	public static class Ghost extends GameObject {
+
+		public int updates;
+
+		@Override
+		public void update() {
+			++updates;
+		}
+	}
+
+	public static class Bonus extends Entity {
+	}
+
+	@Param({ "100", "10000" })
+	public int size;
+
+	private EntityMap entities;
+	private Bonus extra;
+
+	@Setup
+	public void setup() {
+		entities = new EntityMap();
+		for (int i = 0; i < size; ++i) {
+			if (i % 4 == 0) {
+				entities.store("bonus-" + i, new Bonus());
+			} else {
+				entities.store("ghost-" + i, new Ghost());
+			}
+		}
+		extra = new Bonus();
+		// create the indices
+		entities.ofClass(Ghost.class).count();
+		entities.implementing(Lifecycle.class).count();
+	}
+
+	@Benchmark
+	public long ofClassStream() {
+		return entities.ofClass(Bonus.class).filter(bonus -> bonus.visible).count();
+	}
+
+	@Benchmark
+	public long implementingStream() {
+		return entities.implementing(Lifecycle.class).count();
+	}
+
+	@Benchmark
+	public void forEachOfClass(Blackhole bh) {
+		entities.forEachOfClass(Bonus.class, bh::consume);
+	}
+
+	@Benchmark
+	public void forEachImplementing() {
+		entities.forEachImplementing(Lifecycle.class, Lifecycle::update);
+	}
+
+	@Benchmark
+	public boolean namedLookup() {
+		return entities.named("ghost-1") != null;
+	}
+
+	@Benchmark
+	public int storeAndRemove() {
+		entities.store("extra", extra);
+		entities.remove("extra");
+		return entities.size();
+	}
+}
@@ -0,0 +1,61 @@
+package de.amr.easy.game.benchmarks;
+
+import java.awt.Canvas;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.amr.easy.game.input.Keyboard;
+
+/**
+ * Measures {@link Keyboard#poll()} with a number of keys held down. The key events are delivered
+ * directly to the keyboard's listener, no window is needed.
+ * 
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class KeyboardBenchmark {
+
+	private static final int[] KEYS = { KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_UP, KeyEvent.VK_DOWN,
+			KeyEvent.VK_SPACE, KeyEvent.VK_A, KeyEvent.VK_S, KeyEvent.VK_D };
+
+	@Param({ "0", "1", "8" })
+	public int keysDown;
+
+	@Setup
+	public void setup() {
+		Canvas canvas = new Canvas();
+		Keyboard.listenTo(canvas);
+		KeyListener listener = canvas.getKeyListeners()[0];
+		for (int key : KEYS) {
+			listener.keyReleased(new KeyEvent(canvas, KeyEvent.KEY_RELEASED, 0, 0, key, KeyEvent.CHAR_UNDEFINED));
+		}
+		for (int i = 0; i < keysDown; ++i) {
+			listener.keyPressed(new KeyEvent(canvas, KeyEvent.KEY_PRESSED, 0, 0, KEYS[i], KeyEvent.CHAR_UNDEFINED));
+		}
+		Keyboard.poll();
+	}
+
+	@Benchmark
+	public boolean poll() {
+		Keyboard.poll();
+		return Keyboard.keyDown(KeyEvent.VK_LEFT);
+	}
+}
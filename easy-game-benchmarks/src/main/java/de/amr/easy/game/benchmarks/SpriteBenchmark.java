@@ -0,0 +1,88 @@
+package de.amr.easy.game.benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.amr.easy.game.ui.sprites.AnimationType;
+import de.amr.easy.game.ui.sprites.Sprite;
+import de.amr.easy.game.ui.sprites.SpriteBatch;
+
+/**
+ * Measures drawing sprites into an offscreen image, one by one using {@link Sprite#draw(Graphics2D)}
+ * and through a {@link SpriteBatch}.
+ * 
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class SpriteBenchmark {
+
+	private static final int SPRITE_COUNT = 200;
+
+	@Param({ "16", "64" })
+	public int spriteSize;
+
+	private BufferedImage target;
+	private Graphics2D g;
+	private Sprite[] sprites;
+	private final SpriteBatch batch = new SpriteBatch();
+
+	@Setup
+	public void setup() {
+		target = new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB);
+		g = target.createGraphics();
+		BufferedImage[] frames = new BufferedImage[4];
+		for (int i = 0; i < frames.length; ++i) {
+			frames[i] = new BufferedImage(spriteSize, spriteSize, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D fg = frames[i].createGraphics();
+			fg.setColor(Color.getHSBColor(i / 4f, 1, 1));
+			fg.fillOval(0, 0, spriteSize, spriteSize);
+			fg.dispose();
+		}
+		sprites = new Sprite[SPRITE_COUNT];
+		for (int i = 0; i < SPRITE_COUNT; ++i) {
+			sprites[i] = Sprite.of(frames).animate(AnimationType.CYCLIC, 100);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		g.dispose();
+	}
+
+	@Benchmark
+	public BufferedImage draw() {
+		for (int i = 0; i < SPRITE_COUNT; ++i) {
+			sprites[i].draw(g, i % 20 * 40, i / 20 * 40);
+		}
+		return target;
+	}
+
+	@Benchmark
+	public BufferedImage drawBatched() {
+		for (int i = 0; i < SPRITE_COUNT; ++i) {
+			batch.draw(sprites[i], i % 20 * 40, i / 20 * 40);
+		}
+		batch.flush(g);
+		return target;
+	}
+}
@@ -0,0 +1,72 @@
+package de.amr.easy.game.benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.amr.easy.game.ui.sprites.Spritesheet;
+
+/**
+ * Measures {@link Spritesheet#exchangeColor(BufferedImage, int, int)} for a single tile and for the
+ * complete sheet.
+ * 
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class SpritesheetBenchmark {
+
+	private static final int TILE_SIZE = 16;
+
+	@Param({ "256", "1024" })
+	public int sheetSize;
+
+	private Spritesheet sheet;
+	private BufferedImage image;
+	private BufferedImage tile;
+	private final int oldColor = Color.RED.getRGB(), newColor = Color.BLUE.getRGB();
+
+	@Setup
+	public void setup() {
+		image = new BufferedImage(sheetSize, sheetSize, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		for (int x = 0; x < sheetSize; x += TILE_SIZE) {
+			for (int y = 0; y < sheetSize; y += TILE_SIZE) {
+				g.setColor(Color.YELLOW);
+				g.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+				g.setColor(Color.RED);
+				g.fillOval(x + 2, y + 2, TILE_SIZE - 4, TILE_SIZE - 4);
+			}
+		}
+		g.dispose();
+		sheet = new Spritesheet(image, TILE_SIZE);
+		tile = sheet.tile(1, 1);
+	}
+
+	@Benchmark
+	public BufferedImage exchangeColorTile() {
+		return sheet.exchangeColor(tile, oldColor, newColor);
+	}
+
+	@Benchmark
+	public BufferedImage exchangeColorSheet() {
+		return sheet.exchangeColor(image, oldColor, newColor);
+	}
+}
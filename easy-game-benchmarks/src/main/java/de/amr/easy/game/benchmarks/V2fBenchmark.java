@@ -0,0 +1,97 @@
+package de.amr.easy.game.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.amr.easy.game.entity.Transform;
+import de.amr.easy.game.math.MutableV2f;
+import de.amr.easy.game.math.V2f;
+
+/**
+ * Measures a typical steering computation (move towards a target with limited speed) over a number
+ * of transforms, using the immutable {@link V2f}, the mutable {@link MutableV2f} and the primitive
+ * operations.
+ * 
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class V2fBenchmark {
+
+	private static final int COUNT = 1000;
+	private static final float MAX_SPEED = 2;
+
+	private final Transform[] transforms = new Transform[COUNT];
+	private final V2f target = V2f.v(500, 300);
+	private final MutableV2f direction = new MutableV2f();
+
+	@Setup
+	public void setup() {
+		for (int i = 0; i < COUNT; ++i) {
+			transforms[i] = new Transform();
+			transforms[i].setPosition(i % 40 * 25, i / 40 * 25);
+			transforms[i].width = transforms[i].height = 16;
+		}
+	}
+
+	@Benchmark
+	public float immutable() {
+		float sum = 0;
+		for (Transform tf : transforms) {
+			V2f toTarget = target.subtract(tf.getCenter());
+			if (toTarget.length() > MAX_SPEED) {
+				toTarget = toTarget.normalized().times(MAX_SPEED);
+			}
+			tf.setVelocity(toTarget);
+			sum += V2f.diff(tf.getCenter(), target).lengthSq();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public float mutable() {
+		float sum = 0;
+		for (Transform tf : transforms) {
+			tf.centerInto(direction).invert().add(target);
+			if (direction.lengthSq() > MAX_SPEED * MAX_SPEED) {
+				direction.normalize().times(MAX_SPEED);
+			}
+			tf.setVelocity(direction.x, direction.y);
+			tf.centerInto(direction);
+			sum += V2f.distSq(direction.x, direction.y, target.x(), target.y());
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public float primitive() {
+		float sum = 0;
+		float tx = target.x(), ty = target.y();
+		for (Transform tf : transforms) {
+			float dx = tx - tf.getCenterX(), dy = ty - tf.getCenterY();
+			float lengthSq = V2f.lengthSq(dx, dy);
+			if (lengthSq > MAX_SPEED * MAX_SPEED) {
+				float f = MAX_SPEED / (float) Math.sqrt(lengthSq);
+				dx *= f;
+				dy *= f;
+			}
+			tf.setVelocity(dx, dy);
+			sum += V2f.distSq(tf.getCenterX(), tf.getCenterY(), tx, ty);
+		}
+		return sum;
+	}
+}
@@ -17,6 +17,9 @@ import javax.swing.plaf.nimbus.NimbusLookAndFeel;
 
 import com.beust.jcommander.JCommander;
 
+import de.amr.easy.game.assets.AssetCache;
+import de.amr.easy.game.assets.Assets;
+import de.amr.easy.game.assets.ImageDiskCache;
 import de.amr.easy.game.assets.SoundManager;
 import de.amr.easy.game.config.AppSettings;
 import de.amr.easy.game.controller.Lifecycle;
@@ -25,9 +28,13 @@ import de.amr.easy.game.input.Keyboard;
 import de.amr.easy.game.input.Mouse;
 import de.amr.easy.game.logging.ApplicationLog;
 import de.amr.easy.game.timing.Clock;
+import de.amr.easy.game.timing.FrameMetrics;
+import de.amr.easy.game.timing.FramePhase;
 import de.amr.easy.game.ui.AppInfoView;
 import de.amr.easy.game.ui.AppShell;
+import de.amr.easy.game.ui.RenderPipeline;
 import de.amr.easy.game.ui.f2dialog.F2Dialog;
+import de.amr.easy.game.view.SnapshotView;
 import de.amr.easy.game.view.View;
 import de.amr.easy.game.view.VisualController;
 
@@ -139,9 +146,11 @@ public abstract class Application {
 	private AppSettings settings;
 	private ApplicationLog logger;
 	private Clock clock;
+	private FrameMetrics metrics;
 	private Lifecycle controller;
 	private CollisionHandler collisionHandler;
 	private AppShell appShell;
+	private RenderPipeline renderPipeline;
 	private Image icon;
 	private SoundManager soundManager;
 
@@ -150,9 +159,38 @@ public abstract class Application {
 		logger = new ApplicationLog();
 		soundManager = new SoundManager();
 		clock = new Clock(settings.fps);
+		metrics = new FrameMetrics();
 		clock.setThreadName("Clock-" + getClass().getSimpleName());
 		lifecycle = new ApplicationLifecycle(this, cmdLine);
 		clock.onTick = lifecycle::update;
+		clock.onRender = () -> {
+			if (isRunning() || isPaused()) {
+				renderCurrentView();
+			}
+		};
+	}
+
+	void configureClock() {
+		clock.setTargetFrameRate(settings.fps);
+		clock.setTargetRenderRate(settings.renderRate);
+		clock.setPacing(settings.pacing);
+		clock.setFixedTimestep(settings.fixedTimestep);
+	}
+
+	void configureAssetCaches() {
+		Assets.imageCache().setMaxBytes(cacheLimit(settings.imageCacheSize));
+		Assets.soundCache().setMaxBytes(cacheLimit(settings.soundCacheSize));
+		if (settings.imageDiskCache) {
+			Assets.setImageDiskCache(new ImageDiskCache(ImageDiskCache.defaultDirectory()));
+		}
+	}
+
+	void configureSound() {
+		soundManager.setVoiceCount(settings.soundVoices);
+	}
+
+	private static long cacheLimit(int megaBytes) {
+		return megaBytes > 0 ? megaBytes * 1024L * 1024 : AssetCache.UNLIMITED;
 	}
 
 	void processCommandLine(String[] commandLine) {
@@ -166,13 +204,40 @@ public abstract class Application {
 	}
 
 	void readInput() {
+		long startTime = System.nanoTime();
 		Keyboard.poll();
 		Mouse.handler.poll();
-		collisionHandler().ifPresent(CollisionHandler::update);
+		long inputTime = System.nanoTime();
+		metrics.record(FramePhase.INPUT, inputTime - startTime);
+		if (collisionHandler != null) {
+			collisionHandler.update();
+			metrics.record(FramePhase.COLLISION, System.nanoTime() - inputTime);
+		}
+	}
+
+	void updateController() {
+		long startTime = System.nanoTime();
+		controller.update();
+		metrics.record(FramePhase.UPDATE, System.nanoTime() - startTime);
+		metrics.countTick();
 	}
 
 	void renderCurrentView() {
-		currentView().ifPresent(appShell::render);
+		if (renderPipeline == null) {
+			currentView().ifPresent(appShell::render);
+			metrics.endFrame();
+			return;
+		}
+		currentView().ifPresent(view -> {
+			if (view instanceof SnapshotView snapshotView) {
+				long startTime = System.nanoTime();
+				View snapshot = snapshotView.snapshot();
+				metrics.record(FramePhase.UPDATE, System.nanoTime() - startTime);
+				renderPipeline.submit(snapshot, clock.getInterpolation());
+			} else {
+				renderPipeline.renderNow(view, clock.getInterpolation());
+			}
+		});
 	}
 
 	void createUserInterface() {
@@ -195,6 +260,10 @@ public abstract class Application {
 			appShell = new AppShell(this, settings.width, settings.height);
 		}
 		configureF2Dialog(appShell.getF2Dialog());
+		if (settings.pipelinedRendering) {
+			renderPipeline = new RenderPipeline(appShell, metrics, "Render-" + getClass().getSimpleName());
+			renderPipeline.start();
+		}
 		if (settings.fullScreen) {
 			appShell.showFullScreenWindow();
 		} else {
@@ -203,6 +272,16 @@ public abstract class Application {
 		loginfo("User interface for application '%s' has been created", getName());
 	}
 
+	/**
+	 * Stops the render thread, if any, such that no frame is rendered into the shell while it is
+	 * disposed.
+	 */
+	void stopRendering() {
+		if (renderPipeline != null) {
+			renderPipeline.stop();
+		}
+	}
+
 	/**
 	 * Hook method where the application settings can be configured. The command-line arguments are parsed and merged into
 	 * the settings object immediately <em>after</em> this method has been called such that command-line arguments can
@@ -316,6 +395,13 @@ public abstract class Application {
 		return clock;
 	}
 
+	/**
+	 * @return the frame metrics measuring the time spent in the phases of each frame
+	 */
+	public FrameMetrics metrics() {
+		return metrics;
+	}
+
 	/**
 	 * @return the optional collision handler
 	 */
@@ -49,6 +49,9 @@ class ApplicationLifecycle extends StateMachine<ApplicationState, ApplicationEve
 						app.configure(app.settings());
 						app.processCommandLine(cmdLine);
 						app.printSettings();
+						app.configureClock();
+						app.configureAssetCaches();
+						app.configureSound();
 						app.init();
 						if (app.settings().muted) {
 							app.soundManager().muteAll();
@@ -68,18 +71,25 @@ class ApplicationLifecycle extends StateMachine<ApplicationState, ApplicationEve
 				.state(RUNNING)
 					.onTick(() -> {
 						app.readInput();
-						app.getController().update();
-						app.renderCurrentView();
+						app.updateController();
+						if (!app.clock().isFixedTimestep()) {
+							app.renderCurrentView();
+						}
 					})
 				
 				.state(PAUSED)
-					.onTick(app::renderCurrentView)
+					.onTick(() -> {
+						if (!app.clock().isFixedTimestep()) {
+							app.renderCurrentView();
+						}
+					})
 				
 				.state(CLOSING)
 					.onEntry(() -> {
 						loginfo("Closing application '%s'", app.getName());
 					})
 					.onTick(() -> {
+						app.stopRendering();
 						app.shell().get().dispose();
 						// cannot exit in onEntry because CLOSING listeners would not get executed!
 						System.exit(0);
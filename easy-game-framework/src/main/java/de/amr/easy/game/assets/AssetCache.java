@@ -0,0 +1,371 @@
+package de.amr.easy.game.assets;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe asset cache with a size limit in bytes and least-recently-used eviction.
+ * <p>
+ * The size of each value is computed by a weigher function, for example the decoded size of an
+ * image. When adding a value exceeds the size limit, the least recently used entries are evicted
+ * until the cache fits again. Pinned entries and entries rejected by the eviction filter (for
+ * example running sound clips) are never evicted, so the cache can temporarily exceed its limit.
+ * The entry just added is not evicted either. Evicted values are passed to the eviction listener,
+ * for example to release system resources.
+ * <p>
+ * {@link #getOrLoad(String, Function)} loads each missing value once: concurrent requests for a
+ * value which is currently loading wait for the loading thread, requests for other values are not
+ * blocked.
+ * 
+ * @author Armin Reichert
+ *
+ * @param <V> value type
+ */
+public class AssetCache<V> {
+
+	/** Size limit of an unbounded cache. */
+	public static final long UNLIMITED = Long.MAX_VALUE;
+
+	private record Entry<V>(V value, long bytes) {
+	}
+
+	private final String name;
+	private final ToLongFunction<? super V> weigher;
+	private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final Set<String> pinned = new HashSet<>();
+	private final Map<String, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+	private Consumer<? super V> evictionListener = value -> {
+	};
+	private Predicate<? super V> evictionFilter = value -> true;
+	private long maxBytes;
+	private long bytes;
+
+	// statistics
+	private long hits;
+	private long misses;
+	private long loads;
+	private long evictions;
+	private long evictedBytes;
+
+	/**
+	 * Creates a cache.
+	 * 
+	 * @param name     cache name used in statistics
+	 * @param weigher  computes the size in bytes of a value
+	 * @param maxBytes size limit in bytes or {@link #UNLIMITED}
+	 */
+	public AssetCache(String name, ToLongFunction<? super V> weigher, long maxBytes) {
+		this.name = name;
+		this.weigher = weigher;
+		setMaxBytes(maxBytes);
+	}
+
+	/**
+	 * @param listener called with each evicted value, outside of the cache lock
+	 */
+	public void setEvictionListener(Consumer<? super V> listener) {
+		this.evictionListener = listener;
+	}
+
+	/**
+	 * @param filter tells if a value may currently be evicted
+	 */
+	public void setEvictionFilter(Predicate<? super V> filter) {
+		this.evictionFilter = filter;
+	}
+
+	/**
+	 * Sets the size limit and evicts entries if the cache exceeds the new limit.
+	 * 
+	 * @param maxBytes size limit in bytes or {@link #UNLIMITED}
+	 */
+	public void setMaxBytes(long maxBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("Cache size limit must not be negative, is " + maxBytes);
+		}
+		List<V> evicted;
+		synchronized (this) {
+			this.maxBytes = maxBytes;
+			evicted = evict(null);
+		}
+		notifyEvicted(evicted);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * @return sum of the sizes of the cached values in bytes
+	 */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized boolean contains(String key) {
+		return entries.containsKey(key);
+	}
+
+	/**
+	 * @param key key
+	 * @return the cached value or {@code null}
+	 */
+	public V get(String key) {
+		return lookup(key, true);
+	}
+
+	private synchronized V lookup(String key, boolean count) {
+		Entry<V> entry = entries.get(key);
+		if (count) {
+			if (entry != null) {
+				++hits;
+			} else {
+				++misses;
+			}
+		}
+		return entry != null ? entry.value : null;
+	}
+
+	/**
+	 * Returns the cached value or loads and caches it.
+	 * 
+	 * @param key    key
+	 * @param loader loads the value for a key, must not return {@code null}
+	 * @return the value
+	 */
+	public V getOrLoad(String key, Function<String, ? extends V> loader) {
+		V value = lookup(key, true);
+		if (value != null) {
+			return value;
+		}
+		CompletableFuture<V> future = new CompletableFuture<>();
+		CompletableFuture<V> running = loading.putIfAbsent(key, future);
+		if (running != null) {
+			return await(running);
+		}
+		try {
+			value = lookup(key, false); // may have been loaded after the first lookup
+			if (value == null) {
+				value = loader.apply(key);
+				synchronized (this) {
+					++loads;
+				}
+				put(key, value);
+			}
+			future.complete(value);
+			return value;
+		} catch (RuntimeException | Error x) {
+			future.completeExceptionally(x);
+			throw x;
+		} finally {
+			loading.remove(key, future);
+		}
+	}
+
+	private static <V> V await(CompletableFuture<V> future) {
+		try {
+			return future.join();
+		} catch (CompletionException x) {
+			if (x.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			if (x.getCause() instanceof Error cause) {
+				throw cause;
+			}
+			throw x;
+		}
+	}
+
+	/**
+	 * Stores a value, replacing and returning the previous value for that key. The replaced value is
+	 * not passed to the eviction listener.
+	 * 
+	 * @param key   key
+	 * @param value value
+	 * @return the previous value or {@code null}
+	 */
+	public V put(String key, V value) {
+		long weight = weigher.applyAsLong(value);
+		Entry<V> previous;
+		List<V> evicted;
+		synchronized (this) {
+			previous = entries.put(key, new Entry<>(value, weight));
+			if (previous != null) {
+				bytes -= previous.bytes;
+			}
+			bytes += weight;
+			evicted = evict(key);
+		}
+		notifyEvicted(evicted);
+		return previous != null ? previous.value : null;
+	}
+
+	/**
+	 * Removes the value for the given key. The removed value is not passed to the eviction listener.
+	 * 
+	 * @param key key
+	 * @return the removed value or {@code null}
+	 */
+	public synchronized V remove(String key) {
+		Entry<V> entry = entries.remove(key);
+		if (entry == null) {
+			return null;
+		}
+		bytes -= entry.bytes;
+		return entry.value;
+	}
+
+	/**
+	 * Pins a key such that its value is never evicted. The key needs not be cached yet.
+	 * 
+	 * @param key key
+	 */
+	public synchronized void pin(String key) {
+		pinned.add(key);
+	}
+
+	/**
+	 * Unpins a key. Its value may be evicted by the next eviction.
+	 * 
+	 * @param key key
+	 */
+	public synchronized void unpin(String key) {
+		pinned.remove(key);
+	}
+
+	public synchronized boolean isPinned(String key) {
+		return pinned.contains(key);
+	}
+
+	/**
+	 * Removes all values. Removed values are passed to the eviction listener, pins are kept.
+	 */
+	public void clear() {
+		List<V> removed;
+		synchronized (this) {
+			removed = new ArrayList<>(entries.size());
+			entries.values().forEach(entry -> removed.add(entry.value));
+			entries.clear();
+			bytes = 0;
+		}
+		notifyEvicted(removed);
+	}
+
+	/**
+	 * @return snapshot of the cached keys in least-recently-used order
+	 */
+	public synchronized List<String> keys() {
+		return new ArrayList<>(entries.keySet());
+	}
+
+	/**
+	 * @return snapshot of the cached values in least-recently-used order
+	 */
+	public synchronized List<V> values() {
+		List<V> values = new ArrayList<>(entries.size());
+		entries.values().forEach(entry -> values.add(entry.value));
+		return values;
+	}
+
+	/**
+	 * Performs the given action for a snapshot of the cached entries without changing their usage
+	 * order.
+	 * 
+	 * @param action action
+	 */
+	public void forEach(BiConsumer<String, ? super V> action) {
+		List<Map.Entry<String, V>> snapshot;
+		synchronized (this) {
+			snapshot = new ArrayList<>(entries.size());
+			entries.forEach((key, entry) -> snapshot.add(Map.entry(key, entry.value)));
+		}
+		snapshot.forEach(entry -> action.accept(entry.getKey(), entry.getValue()));
+	}
+
+	/*
+	 * Evicts least recently used entries until the cache fits. Called with the lock held.
+	 */
+	private List<V> evict(String keep) {
+		if (bytes <= maxBytes) {
+			return List.of();
+		}
+		List<V> evicted = new ArrayList<>();
+		for (Iterator<Map.Entry<String, Entry<V>>> it = entries.entrySet().iterator(); it.hasNext()
+				&& bytes > maxBytes;) {
+			Map.Entry<String, Entry<V>> e = it.next();
+			Entry<V> entry = e.getValue();
+			if (e.getKey().equals(keep) || pinned.contains(e.getKey()) || !evictionFilter.test(entry.value)) {
+				continue;
+			}
+			it.remove();
+			bytes -= entry.bytes;
+			++evictions;
+			evictedBytes += entry.bytes;
+			evicted.add(entry.value);
+		}
+		return evicted;
+	}
+
+	private void notifyEvicted(List<V> evicted) {
+		evicted.forEach(evictionListener);
+	}
+
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * @return number of values loaded by {@link #getOrLoad(String, Function)}
+	 */
+	public synchronized long getLoadCount() {
+		return loads;
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+
+	public synchronized long getEvictedBytes() {
+		return evictedBytes;
+	}
+
+	/**
+	 * @return ratio of hits to all lookups, 0 if there were no lookups
+	 */
+	public synchronized double getHitRate() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("AssetCache[%s: %d entries, %d/%s KB, pinned=%d, hits=%d, misses=%d (%.1f%%), loads=%d, evictions=%d (%d KB)]",
+				name, entries.size(), bytes / 1024, maxBytes == UNLIMITED ? "unlimited" : String.valueOf(maxBytes / 1024),
+				pinned.size(), hits, misses, 100 * getHitRate(), loads, evictions, evictedBytes / 1024);
+	}
+}
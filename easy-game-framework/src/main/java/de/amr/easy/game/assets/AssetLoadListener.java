@@ -0,0 +1,29 @@
+package de.amr.easy.game.assets;
+
+/**
+ * Receives the progress of an {@link AssetPreloader}. The methods are called on the loader threads,
+ * implementations must hand over to the UI thread themselves if needed.
+ * 
+ * @author Armin Reichert
+ */
+@FunctionalInterface
+public interface AssetLoadListener {
+
+	/**
+	 * Called after an asset has been loaded or has failed to load.
+	 * 
+	 * @param entry     the manifest entry
+	 * @param completed number of completed entries, including failed ones
+	 * @param total     total number of entries
+	 */
+	void assetCompleted(AssetManifest.Entry entry, int completed, int total);
+
+	/**
+	 * Called if an asset could not be loaded, before {@link #assetCompleted}.
+	 * 
+	 * @param entry the manifest entry
+	 * @param error the cause
+	 */
+	default void assetFailed(AssetManifest.Entry entry, Throwable error) {
+	}
+}
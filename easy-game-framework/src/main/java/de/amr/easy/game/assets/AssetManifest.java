@@ -0,0 +1,98 @@
+package de.amr.easy.game.assets;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * List of the assets (images, sounds, texts and fonts) an application wants to load in advance,
+ * see {@link AssetPreloader}.
+ * 
+ * <pre>
+ * AssetManifest manifest = new AssetManifest().images("sprites.png", "title.png").sound("sfx/eat.mp3")
+ * 		.font("score", "fonts/arcade.ttf", Font.PLAIN, 8);
+ * </pre>
+ * 
+ * @author Armin Reichert
+ */
+public class AssetManifest {
+
+	public enum Kind {
+		IMAGE, SOUND, TEXT, FONT
+	}
+
+	/**
+	 * An asset to load. Fonts are stored under their key, all other assets under their path.
+	 */
+	public record Entry(Kind kind, String path, String key, int fontStyle, float fontSize) {
+
+		/**
+		 * Loads the asset into the asset caches.
+		 */
+		void load() {
+			switch (kind) {
+			case IMAGE -> Assets.image(path);
+			case SOUND -> Assets.sound(path);
+			case TEXT -> Assets.text(path);
+			case FONT -> Assets.storeTrueTypeFont(key, path, fontStyle, fontSize);
+			}
+		}
+	}
+
+	private final List<Entry> entries = new ArrayList<>();
+
+	public AssetManifest image(String path) {
+		return add(new Entry(Kind.IMAGE, path, path, 0, 0));
+	}
+
+	public AssetManifest images(String... paths) {
+		for (String path : paths) {
+			image(path);
+		}
+		return this;
+	}
+
+	public AssetManifest sound(String path) {
+		return add(new Entry(Kind.SOUND, path, path, 0, 0));
+	}
+
+	public AssetManifest sounds(String... paths) {
+		for (String path : paths) {
+			sound(path);
+		}
+		return this;
+	}
+
+	public AssetManifest text(String path) {
+		return add(new Entry(Kind.TEXT, path, path, 0, 0));
+	}
+
+	/**
+	 * Adds a true-type font, see {@link Assets#storeTrueTypeFont(String, String, int, float)}.
+	 * 
+	 * @param key   key under which the font is stored
+	 * @param path  path of the font file
+	 * @param style font style
+	 * @param size  font size
+	 * @return this manifest
+	 */
+	public AssetManifest font(String key, String path, int style, float size) {
+		return add(new Entry(Kind.FONT, path, key, style, size));
+	}
+
+	private AssetManifest add(Entry entry) {
+		entries.add(entry);
+		return this;
+	}
+
+	/**
+	 * @return the entries of this manifest in the order they were added
+	 */
+	public List<Entry> entries() {
+		return Collections.unmodifiableList(entries);
+	}
+
+	public int size() {
+		return entries.size();
+	}
+}
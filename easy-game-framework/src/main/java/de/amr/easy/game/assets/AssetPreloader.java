@@ -0,0 +1,145 @@
+package de.amr.easy.game.assets;
+
+import static de.amr.easy.game.Application.loginfo;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the assets of a manifest in parallel into the asset caches, such that later calls of
+ * {@link Assets#image(String)}, {@link Assets#sound(String)} etc. do not load on the calling thread.
+ * Sounds are decoded completely while preloading.
+ * <p>
+ * The loader threads are daemon threads of a fixed-size pool. The progress can be observed by a
+ * {@link AssetLoadListener listener} or polled using {@link #getProgress()}, for example by a
+ * loading screen:
+ * 
+ * <pre>
+ * preloader = new AssetPreloader();
+ * preloader.preload(manifest, (entry, completed, total) -&gt; loginfo("Loaded %s", entry.path()));
+ * ...
+ * // in update():
+ * if (preloader.isDone()) {
+ * 	preloader.close();
+ * 	startGame();
+ * }
+ * // in draw():
+ * drawProgressBar(g, preloader.getProgress());
+ * </pre>
+ * 
+ * Assets that cannot be loaded do not stop the preloading. They are reported to the listener and
+ * collected in {@link #getFailures()}, a later access through {@link Assets} fails as before.
+ * 
+ * @author Armin Reichert
+ */
+public class AssetPreloader implements AutoCloseable {
+
+	/** Default number of loader threads. */
+	public static final int DEFAULT_PARALLELISM = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	private static final AssetLoadListener NO_LISTENER = (entry, completed, total) -> {
+	};
+
+	private final ExecutorService executor;
+	private final AtomicInteger total = new AtomicInteger();
+	private final AtomicInteger completed = new AtomicInteger();
+	private final Map<AssetManifest.Entry, Throwable> failures = new ConcurrentHashMap<>();
+
+	public AssetPreloader() {
+		this(DEFAULT_PARALLELISM);
+	}
+
+	/**
+	 * @param parallelism number of loader threads
+	 */
+	public AssetPreloader(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be positive, is " + parallelism);
+		}
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadFactory threadFactory = runnable -> {
+			Thread thread = new Thread(runnable, "AssetPreloader-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		executor = Executors.newFixedThreadPool(parallelism, threadFactory);
+	}
+
+	/**
+	 * Starts loading the assets of the given manifest. Can be called multiple times, the progress then
+	 * covers all manifests.
+	 * 
+	 * @param manifest assets to load
+	 * @param listener progress listener or {@code null}
+	 * @return future completing when all assets of the manifest have been loaded or have failed
+	 */
+	public CompletableFuture<Void> preload(AssetManifest manifest, AssetLoadListener listener) {
+		AssetLoadListener observer = listener != null ? listener : NO_LISTENER;
+		long start = System.nanoTime();
+		total.addAndGet(manifest.size());
+		CompletableFuture<?>[] tasks = manifest.entries().stream()
+				.map(entry -> CompletableFuture.runAsync(() -> load(entry, observer), executor))
+				.toArray(CompletableFuture[]::new);
+		return CompletableFuture.allOf(tasks).thenRun(() -> loginfo("Assets: %d assets preloaded in %d ms, %d failed",
+				manifest.size(), (System.nanoTime() - start) / 1_000_000, failures.size()));
+	}
+
+	public CompletableFuture<Void> preload(AssetManifest manifest) {
+		return preload(manifest, null);
+	}
+
+	private void load(AssetManifest.Entry entry, AssetLoadListener listener) {
+		try {
+			entry.load();
+		} catch (Exception x) {
+			failures.put(entry, x);
+			listener.assetFailed(entry, x);
+		} finally {
+			listener.assetCompleted(entry, completed.incrementAndGet(), total.get());
+		}
+	}
+
+	/**
+	 * @return the fraction (0..1) of completed assets, 1 if nothing is to be loaded
+	 */
+	public float getProgress() {
+		int n = total.get();
+		return n == 0 ? 1 : (float) completed.get() / n;
+	}
+
+	/**
+	 * @return if all assets have been loaded or have failed
+	 */
+	public boolean isDone() {
+		return completed.get() == total.get();
+	}
+
+	public int getCompletedCount() {
+		return completed.get();
+	}
+
+	public int getTotalCount() {
+		return total.get();
+	}
+
+	/**
+	 * @return the entries that could not be loaded and the cause
+	 */
+	public Map<AssetManifest.Entry, Throwable> getFailures() {
+		return Collections.unmodifiableMap(failures);
+	}
+
+	/**
+	 * Stops the loader threads after the already requested assets have been loaded.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+}
@@ -12,11 +12,9 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 import java.util.stream.Stream;
 
 import javax.imageio.ImageIO;
@@ -29,16 +27,80 @@ import de.amr.easy.game.Application;
  * This class provides access to assets like images, sounds, fonts, texts etc. When an asset is
  * accessed for the first time, it is stored inside a cache and the cached value is returned
  * afterwards.
+ * <p>
+ * The caches are thread-safe. Each asset is loaded at most once, concurrent requests for an asset
+ * which is currently loading wait for it. Use an {@link AssetPreloader} to load assets in advance
+ * instead of on first access.
+ * <p>
+ * The image, sound and text caches account the decoded size of their assets and can be limited in
+ * size (see {@link AssetCache#setMaxBytes(long)}). By default, they are unlimited. When a limit is
+ * exceeded, the least recently used assets are evicted and loaded again on their next access.
+ * Running sound clips are not evicted. The cache only drops its reference to an evicted clip, so
+ * clips kept by the application stay playable; the line of an evicted clip is closed when the clip
+ * is no longer referenced. Assets which cannot be loaded again (stored images and fonts) are
+ * pinned, other assets can be pinned using {@link AssetCache#pin(String)}.
  * 
  * @author Armin Reichert
  */
 public class Assets {
 
 	// caches
-	private static final Map<String, Font> fontCache = new HashMap<>();
-	private static final Map<String, BufferedImage> imageCache = new HashMap<>();
-	private static final Map<String, SoundClip> soundCache = new HashMap<>();
-	private static final Map<String, String> textCache = new HashMap<>();
+	private static final AssetCache<Font> fontCache = new AssetCache<>("fonts", font -> 0, AssetCache.UNLIMITED);
+	private static final AssetCache<BufferedImage> imageCache = new AssetCache<>("images",
+			image -> 4L * image.getWidth() * image.getHeight(), AssetCache.UNLIMITED);
+	private static final AssetCache<SoundClip> soundCache = new AssetCache<>("sounds", SoundClip::getByteSize,
+			AssetCache.UNLIMITED);
+	private static final AssetCache<SoundSample> sampleCache = new AssetCache<>("samples", SoundSample::getByteSize,
+			AssetCache.UNLIMITED);
+	private static final AssetCache<String> textCache = new AssetCache<>("texts", text -> 2L * text.length(),
+			AssetCache.UNLIMITED);
+
+	private static volatile ImageDiskCache imageDiskCache;
+
+	static {
+		soundCache.setEvictionFilter(clip -> !clip.isRunning());
+		soundCache.setEvictionListener(SoundClip::closeWhenUnreachable);
+	}
+
+	/**
+	 * Sets the on-disk cache used by {@link #readImage(String)}.
+	 * 
+	 * @param cache image disk cache or {@code null} to decode images on every start
+	 */
+	public static void setImageDiskCache(ImageDiskCache cache) {
+		imageDiskCache = cache;
+	}
+
+	public static ImageDiskCache imageDiskCache() {
+		return imageDiskCache;
+	}
+
+	public static AssetCache<Font> fontCache() {
+		return fontCache;
+	}
+
+	public static AssetCache<BufferedImage> imageCache() {
+		return imageCache;
+	}
+
+	public static AssetCache<SoundClip> soundCache() {
+		return soundCache;
+	}
+
+	public static AssetCache<SoundSample> sampleCache() {
+		return sampleCache;
+	}
+
+	public static AssetCache<String> textCache() {
+		return textCache;
+	}
+
+	/**
+	 * Writes the statistics of the asset caches to the application log.
+	 */
+	public static void logCacheStatistics() {
+		Stream.of(fontCache, imageCache, soundCache, sampleCache, textCache).forEach(cache -> Application.loginfo("%s", cache));
+	}
 
 	/**
 	 * Returns a stream to the asset at the given path.
@@ -90,12 +152,17 @@ public class Assets {
 	}
 
 	/**
-	 * Reads an image from the given assets path.
+	 * Reads an image from the given assets path. If an {@link ImageDiskCache} is set, the image is
+	 * read through that cache and has the screen-compatible layout.
 	 * 
 	 * @param path relative path inside "assets" folder
 	 * @return the image
 	 */
 	public static BufferedImage readImage(String path) {
+		ImageDiskCache diskCache = imageDiskCache;
+		if (diskCache != null) {
+			return diskCache.readImage(path);
+		}
 		try (InputStream is = stream(path)) {
 			BufferedImage image = ImageIO.read(is);
 			if (image == null) {
@@ -125,7 +192,9 @@ public class Assets {
 	}
 
 	/**
-	 * Creates a buffered image of the given dimensions and transparency.
+	 * Creates a buffered image of the given dimensions and transparency, compatible with the default
+	 * screen. In headless mode, an image of type {@code TYPE_INT_ARGB} or {@code TYPE_INT_RGB} is
+	 * created.
 	 * 
 	 * @param width        image width in pixels
 	 * @param height       image height in pixels
@@ -133,6 +202,10 @@ public class Assets {
 	 * @return a buffered image
 	 */
 	public static BufferedImage createBufferedImage(int width, int height, int transparency) {
+		if (GraphicsEnvironment.isHeadless()) {
+			return new BufferedImage(width, height,
+					transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+		}
 		GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
 				.getDefaultConfiguration();
 		return gc.createCompatibleImage(width, height, transparency);
@@ -144,7 +217,7 @@ public class Assets {
 	 * @return the image names
 	 */
 	public static Iterable<String> imageNames() {
-		return imageCache.keySet();
+		return imageCache.keys();
 	}
 
 	/**
@@ -162,7 +235,7 @@ public class Assets {
 	 * @return the sound names
 	 */
 	public static Iterable<String> soundNames() {
-		return new HashSet<>(soundCache.keySet());
+		return soundCache.keys();
 	}
 
 	/**
@@ -175,12 +248,13 @@ public class Assets {
 	}
 
 	/**
-	 * Stores the given image under the given path name.
+	 * Stores the given image under the given path name. The image is pinned in the cache.
 	 * 
 	 * @param path  path names
 	 * @param image image
 	 */
 	public static void storeImage(String path, BufferedImage image) {
+		imageCache.pin(path);
 		if (imageCache.put(path, image) != null) {
 			Application.loginfo("Assets: Image '%s' has been replaced.", path);
 		}
@@ -196,11 +270,8 @@ public class Assets {
 	 * @return font as specified
 	 */
 	public static Font storeTrueTypeFont(String key, String fontName, int style, float size) {
-		if (!fontCache.containsKey(key)) {
-			Font font = readTrueTypeFont(fontName).deriveFont(style, size);
-			fontCache.put(key, font);
-		}
-		return fontCache.get(key);
+		fontCache.pin(key);
+		return fontCache.getOrLoad(key, k -> readTrueTypeFont(fontName).deriveFont(style, size));
 	}
 
 	/**
@@ -213,11 +284,8 @@ public class Assets {
 	 * @return derived font
 	 */
 	public static Font storeFont(String key, Font baseFont, int style, float size) {
-		if (!fontCache.containsKey(key)) {
-			Font font = baseFont.deriveFont(style, size);
-			fontCache.put(key, font);
-		}
-		return fontCache.get(key);
+		fontCache.pin(key);
+		return fontCache.getOrLoad(key, k -> baseFont.deriveFont(style, size));
 	}
 
 	/**
@@ -227,8 +295,9 @@ public class Assets {
 	 * @return font as requested
 	 */
 	public static Font font(String key) {
-		if (fontCache.containsKey(key)) {
-			return fontCache.get(key);
+		Font font = fontCache.get(key);
+		if (font != null) {
+			return font;
 		}
 		throw new AssetException("No font found with key: " + key);
 	}
@@ -241,38 +310,80 @@ public class Assets {
 	 * @return image as requested
 	 */
 	public static BufferedImage image(String path) {
-		if (!imageCache.containsKey(path)) {
-			imageCache.put(path, readImage(path));
-		}
-		return imageCache.get(path);
+		return imageCache.getOrLoad(path, Assets::readImage);
 	}
 
 	/**
 	 * Returns the sound clip with the given path.
+	 * <p>
+	 * The returned clip stays playable even if it is evicted from the sound cache later. In that case,
+	 * the next call returns a newly loaded clip and the line of the evicted clip is closed when it is
+	 * no longer referenced.
 	 * 
 	 * @param path path to sound file
 	 * @return sound object
 	 */
 	public static SoundClip sound(String path) {
-		if (soundCache.containsKey(path)) {
-			return soundCache.get(path);
-		}
+		return soundCache.getOrLoad(path, Assets::readSound);
+	}
+
+	private static SoundClip readSound(String path) {
 		try (InputStream is = stream(path)) {
-			SoundClip sound = new SoundClip(is);
-			soundCache.put(path, sound);
-			return sound;
+			return new SoundClip(is);
 		} catch (IOException e) {
 			throw new AssetException(String.format("Sound file at path '%s' could not be opened", path), e);
 		} catch (LineUnavailableException e) {
 			throw new AssetException(String.format("Sound file at path '%s' is not available", path), e);
 		} catch (UnsupportedAudioFileException e) {
 			throw new AssetException(String.format("Sound file at path '%s' has unsupported audio format", path), e);
+		} catch (AssetException e) {
+			throw e;
 		} catch (Exception e) {
 			e.printStackTrace();
 			throw new AssetException(String.format("Error loading sound file '%s'; %s", path, e.getMessage()));
 		}
 	}
 
+	/**
+	 * Returns the sound sample with the given path. Samples are played by the sound mixer and can be
+	 * played overlapping themselves.
+	 * 
+	 * @param path path to sound file
+	 * @return decoded sound sample
+	 */
+	public static SoundSample sample(String path) {
+		return sampleCache.getOrLoad(path, Assets::readSample);
+	}
+
+	private static SoundSample readSample(String path) {
+		try (InputStream is = stream(path)) {
+			return SoundSample.decode(is);
+		} catch (IOException e) {
+			throw new AssetException(String.format("Sound file at path '%s' could not be opened", path), e);
+		} catch (UnsupportedAudioFileException e) {
+			throw new AssetException(String.format("Sound file at path '%s' has unsupported audio format", path), e);
+		}
+	}
+
+	/**
+	 * Creates a sound stream for the sound file with the given path. Streams are not cached, each call
+	 * creates a new stream with its own output line.
+	 * 
+	 * @param path path to sound file
+	 * @return sound stream, decoding the file while playing
+	 */
+	public static SoundStream soundStream(String path) {
+		try {
+			return new SoundStream(path);
+		} catch (IOException e) {
+			throw new AssetException(String.format("Sound file at path '%s' could not be opened", path), e);
+		} catch (LineUnavailableException e) {
+			throw new AssetException(String.format("Sound file at path '%s' is not available", path), e);
+		} catch (UnsupportedAudioFileException e) {
+			throw new AssetException(String.format("Sound file at path '%s' has unsupported audio format", path), e);
+		}
+	}
+
 	/**
 	 * Returns the content of the text file under the specified path.
 	 * 
@@ -280,12 +391,7 @@ public class Assets {
 	 * @return text file content as a single string
 	 */
 	public static String text(String path) {
-		if (textCache.containsKey(path)) {
-			return textCache.get(path);
-		}
-		String text = readTextFile(path);
-		textCache.put(path, text);
-		return text;
+		return textCache.getOrLoad(path, Assets::readTextFile);
 	}
 
 	/**
@@ -295,30 +401,22 @@ public class Assets {
 	 */
 	public static String toc() {
 		StringBuilder s = new StringBuilder();
-		String[] fontNames = fontCache.keySet().toArray(new String[fontCache.size()]);
-		String[] imageNames = imageCache.keySet().toArray(new String[imageCache.size()]);
-		String[] soundNames = soundCache.keySet().toArray(new String[soundCache.size()]);
-		Arrays.sort(fontNames);
-		Arrays.sort(imageNames);
-		Arrays.sort(soundNames);
 		s.append("\n-- Fonts:\n");
-		for (String name : fontNames) {
-			s.append(name).append(": ").append(font(name)).append("\n");
-		}
+		sorted(fontCache).forEach((name, font) -> s.append(name).append(": ").append(font).append("\n"));
 		s.append("\n-- Images:\n");
-		for (String name : imageNames) {
-			Image image = image(name);
-			s.append(name).append(": ").append(image.getWidth(null) + "x" + image.getHeight(null)).append("\n");
-		}
+		sorted(imageCache).forEach((name, image) -> s.append(name).append(": ")
+				.append(image.getWidth() + "x" + image.getHeight()).append("\n"));
 		s.append("\n-- Sounds:\n");
-		for (String name : soundNames) {
-			SoundClip sound = sound(name);
-			s.append(name).append(": ").append(sound.getClass().getSimpleName()).append("\n");
-		}
+		sorted(soundCache).forEach(
+				(name, sound) -> s.append(name).append(": ").append(sound.getClass().getSimpleName()).append("\n"));
 		s.append("\n-- Texts:\n");
-		textCache.entrySet().stream().forEach(entry -> {
-			s.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
-		});
+		textCache.forEach((name, text) -> s.append(name).append(": ").append(text).append("\n"));
 		return s.toString();
 	}
+
+	private static <V> Map<String, V> sorted(AssetCache<V> cache) {
+		Map<String, V> sorted = new TreeMap<>();
+		cache.forEach(sorted::put);
+		return sorted;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,291 @@
+package de.amr.easy.game.assets;
+
+import static de.amr.easy.game.Application.loginfo;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+/**
+ * On-disk cache of decoded images.
+ * <p>
+ * Images are stored converted to the screen-compatible layout (see
+ * {@link Assets#createBufferedImage(int, int, int)}) as raw integer pixels in native byte order. A
+ * cache file is named by a hash of the asset path and a hash of the asset content, so a changed
+ * asset is decoded again and its outdated cache file is replaced. Loading a cached image reads the
+ * pixels in blocks of rows into a reused buffer and copies them in bulk into a new compatible image,
+ * which is much faster than decoding a PNG file. Cache files are not kept open or mapped, so they
+ * can be deleted or replaced at any time. Cache files not matching the current pixel layout or byte
+ * order are treated as missing.
+ * <p>
+ * File format: a header of six big-endian integers (magic number, format version, byte order, image
+ * type, width, height) followed by width * height pixels.
+ * 
+ * @author Armin Reichert
+ */
+public class ImageDiskCache {
+
+	private static final int MAGIC = 0x45474943; // "EGIC"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 6 * Integer.BYTES;
+	private static final int LITTLE_ENDIAN = 1, BIG_ENDIAN = 2;
+	private static final String SUFFIX = ".pixels";
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	// each loading thread reuses its read buffer
+	private static final ThreadLocal<ByteBuffer> READ_BUFFER = ThreadLocal
+			.withInitial(() -> ByteBuffer.allocateDirect(READ_BUFFER_SIZE).order(ByteOrder.nativeOrder()));
+
+	/**
+	 * @return the default cache directory inside the directory for temporary files
+	 */
+	public static Path defaultDirectory() {
+		return Paths.get(System.getProperty("java.io.tmpdir"), "easy-game-image-cache");
+	}
+
+	private final Path dir;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	public ImageDiskCache(Path dir) {
+		this.dir = dir;
+	}
+
+	public Path getDirectory() {
+		return dir;
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Reads the image at the given asset path, from the cache if possible. If the image is not cached,
+	 * it is decoded, converted to the compatible layout and stored in the cache.
+	 * 
+	 * @param path asset path
+	 * @return the image in compatible layout
+	 */
+	public BufferedImage readImage(String path) {
+		byte[] content;
+		try (InputStream is = Assets.stream(path)) {
+			content = is.readAllBytes();
+		} catch (IOException x) {
+			throw new AssetException(String.format("Image with path '%s' could not be read", path), x);
+		}
+		String pathHash = hash(path.getBytes(StandardCharsets.UTF_8));
+		Path file = dir.resolve(pathHash + "-" + hash(content) + SUFFIX);
+		BufferedImage image = load(file);
+		if (image != null) {
+			hits.incrementAndGet();
+			return image;
+		}
+		misses.incrementAndGet();
+		image = decode(path, content);
+		store(file, pathHash, image);
+		return image;
+	}
+
+	/**
+	 * Deletes all cache files.
+	 */
+	public void clear() {
+		deleteFiles("*{" + SUFFIX + ",.tmp}", null);
+	}
+
+	private static String hash(byte[] bytes) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes), 0, 12);
+		} catch (NoSuchAlgorithmException x) {
+			throw new IllegalStateException(x);
+		}
+	}
+
+	private static int nativeOrder() {
+		return ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? LITTLE_ENDIAN : BIG_ENDIAN;
+	}
+
+	private static BufferedImage createCompatibleImage(int width, int height) {
+		return Assets.createBufferedImage(width, height, Transparency.TRANSLUCENT);
+	}
+
+	/*
+	 * Images are only cached if the compatible layout stores one integer per pixel.
+	 */
+	private static boolean isCacheable(BufferedImage image) {
+		int type = image.getType();
+		return (type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_ARGB_PRE
+				|| type == BufferedImage.TYPE_INT_RGB) && image.getRaster().getDataBuffer() instanceof DataBufferInt;
+	}
+
+	private static BufferedImage decode(String path, byte[] content) {
+		BufferedImage decoded;
+		try {
+			decoded = ImageIO.read(new ByteArrayInputStream(content));
+		} catch (IOException x) {
+			throw new AssetException(String.format("Image with path '%s' could not be read", path), x);
+		}
+		if (decoded == null) {
+			throw new AssetException(String.format("Image with path '%s' has unknown format", path));
+		}
+		BufferedImage image = createCompatibleImage(decoded.getWidth(), decoded.getHeight());
+		Graphics2D g = image.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(decoded, 0, 0, null);
+		g.dispose();
+		return image;
+	}
+
+	private BufferedImage load(Path file) {
+		if (!Files.isReadable(file)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE) {
+				return null;
+			}
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			readFully(channel, header);
+			if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != nativeOrder()) {
+				return null;
+			}
+			int type = header.getInt(), width = header.getInt(), height = header.getInt();
+			if (width <= 0 || height <= 0 || size != HEADER_SIZE + 4L * width * height) {
+				return null;
+			}
+			BufferedImage image = createCompatibleImage(width, height);
+			if (image.getType() != type || !isCacheable(image)) {
+				return null; // the compatible layout has changed
+			}
+			// copy row by row, accessing the data buffer's array directly would disable acceleration
+			int rowSize = 4 * width;
+			ByteBuffer buffer = readBuffer(rowSize);
+			int rowsPerRead = buffer.capacity() / rowSize;
+			WritableRaster raster = image.getRaster();
+			int[] row = new int[width];
+			for (int y = 0; y < height; y += rowsPerRead) {
+				int rows = Math.min(rowsPerRead, height - y);
+				buffer.clear().limit(rows * rowSize);
+				readFully(channel, buffer);
+				IntBuffer pixels = buffer.asIntBuffer();
+				for (int r = 0; r < rows; ++r) {
+					pixels.get(row);
+					raster.setDataElements(0, y + r, width, 1, row);
+				}
+			}
+			return image;
+		} catch (IOException | RuntimeException x) {
+			loginfo("Image cache file %s could not be loaded: %s", file, x);
+			return null;
+		}
+	}
+
+	private static ByteBuffer readBuffer(int minSize) {
+		ByteBuffer buffer = READ_BUFFER.get();
+		if (buffer.capacity() < minSize) {
+			buffer = ByteBuffer.allocateDirect(minSize).order(ByteOrder.nativeOrder());
+			READ_BUFFER.set(buffer);
+		}
+		return buffer;
+	}
+
+	/*
+	 * Fills the remaining part of the buffer and flips it for reading.
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) == -1) {
+				throw new EOFException();
+			}
+		}
+		buffer.flip();
+	}
+
+	private void store(Path file, String pathHash, BufferedImage image) {
+		if (!isCacheable(image)) {
+			return;
+		}
+		int width = image.getWidth(), height = image.getHeight();
+		Path tmp = null;
+		try {
+			Files.createDirectories(dir);
+			tmp = Files.createTempFile(dir, pathHash, ".tmp");
+			try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC).putInt(VERSION).putInt(nativeOrder()).putInt(image.getType()).putInt(width)
+						.putInt(height).flip();
+				channel.write(header);
+				ByteBuffer rowBytes = ByteBuffer.allocate(4 * width).order(ByteOrder.nativeOrder());
+				IntBuffer rowInts = rowBytes.asIntBuffer();
+				int[] row = new int[width];
+				WritableRaster raster = image.getRaster();
+				for (int y = 0; y < height; ++y) {
+					raster.getDataElements(0, y, width, 1, row);
+					rowInts.clear();
+					rowInts.put(row);
+					rowBytes.clear();
+					while (rowBytes.hasRemaining()) {
+						channel.write(rowBytes);
+					}
+				}
+			}
+			deleteFiles(pathHash + "-*" + SUFFIX, file);
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			tmp = null;
+		} catch (IOException | RuntimeException x) {
+			loginfo("Image cache file %s could not be stored: %s", file, x);
+		} finally {
+			if (tmp != null) {
+				try {
+					Files.deleteIfExists(tmp);
+				} catch (IOException x) {
+					// ignore, temporary files are deleted by the next clear()
+				}
+			}
+		}
+	}
+
+	private void deleteFiles(String glob, Path keep) {
+		if (!Files.isDirectory(dir)) {
+			return;
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, glob)) {
+			for (Path file : files) {
+				if (!file.equals(keep)) {
+					Files.deleteIfExists(file);
+				}
+			}
+		} catch (IOException x) {
+			loginfo("Image cache files could not be deleted: %s", x);
+		}
+	}
+}
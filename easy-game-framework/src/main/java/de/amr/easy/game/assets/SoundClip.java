@@ -5,6 +5,7 @@ import static de.amr.easy.game.Application.app;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.Cleaner;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
@@ -27,6 +28,8 @@ import com.tagtraum.ffsampledsp.FFAudioInputStream;
  */
 public class SoundClip {
 
+	private static final Cleaner CLEANER = Cleaner.create();
+
 	private final Clip line;
 
 	public SoundClip(InputStream is) throws LineUnavailableException, IOException, UnsupportedAudioFileException {
@@ -88,6 +91,30 @@ public class SoundClip {
 		return line.isRunning();
 	}
 
+	/**
+	 * @return size of the decoded audio data in bytes
+	 */
+	public long getByteSize() {
+		return Math.max(0, (long) line.getFrameLength() * line.getFormat().getFrameSize());
+	}
+
+	/**
+	 * Closes the line and releases its audio data. The clip cannot be played anymore.
+	 */
+	public void close() {
+		line.close();
+	}
+
+	/**
+	 * Closes the line as soon as this clip is no longer referenced. Used for clips evicted from the
+	 * sound cache which may still be referenced by application code.
+	 */
+	void closeWhenUnreachable() {
+		// the cleaning action must not reference this clip
+		Clip clipLine = line;
+		CLEANER.register(this, clipLine::close);
+	}
+
 	/**
 	 * @see SoundManager#getLineVolume(javax.sound.sampled.Line)
 	 */
@@ -1,26 +1,48 @@
 package de.amr.easy.game.assets;
 
+import static de.amr.easy.game.Application.loginfo;
+
 import java.beans.PropertyChangeSupport;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.BooleanControl;
 import javax.sound.sampled.Clip;
 import javax.sound.sampled.FloatControl;
 import javax.sound.sampled.Line;
+import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.Mixer;
 
 /**
  * Sound manager. Handles global muting state and provides common functionality for playing sound
- * clips.
+ * clips and streams.
+ * <p>
+ * Sound samples are played by a {@link SoundMixer} which is created and started when the first
+ * sample is played.
+ * <p>
+ * The global muting state is applied to the lines of the clips and streams started by this manager
+ * and to the mixer.
  * 
  * @author Armin Reichert
  * 
  * @see SoundClip
+ * @see SoundStream
+ * @see SoundSample
  */
 public class SoundManager {
 
+	/** Default number of mixer voices. */
+	public static final int DEFAULT_VOICE_COUNT = 16;
+
 	private boolean muted;
+	private final Set<Line> lines = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+	private int voiceCount = DEFAULT_VOICE_COUNT;
+	private SoundMixer mixer;
 
 	public PropertyChangeSupport changes = new PropertyChangeSupport(this);
 
@@ -73,27 +95,122 @@ public class SoundManager {
 	}
 
 	/**
-	 * Mutes all currently open lines.
+	 * Mutes all lines used by this manager and the mixer.
 	 */
 	public void muteAll() {
 		if (!muted) {
 			muted = true;
-			setAllLinesMuted(true);
+			setUsedLinesMuted(true);
 			changes.firePropertyChange("muted", false, true);
 		}
 	}
 
 	/**
-	 * Unmutes all currently open lines.
+	 * Unmutes all lines used by this manager and the mixer.
 	 */
 	public void unmuteAll() {
 		if (muted) {
 			muted = false;
-			setAllLinesMuted(false);
+			setUsedLinesMuted(false);
 			changes.firePropertyChange("muted", true, false);
 		}
 	}
 
+	/**
+	 * Mutes or unmutes the lines used by this manager and the mixer. Only these lines are visited
+	 * instead of all lines of all audio mixers.
+	 */
+	private void setUsedLinesMuted(boolean muted) {
+		List<Line> snapshot;
+		synchronized (lines) {
+			lines.removeIf(line -> !line.isOpen());
+			snapshot = new ArrayList<>(lines);
+		}
+		snapshot.forEach(line -> setLineMuted(line, muted));
+		synchronized (this) {
+			if (mixer != null) {
+				mixer.setMuted(muted);
+			}
+		}
+	}
+
+	private void use(Line line) {
+		lines.add(line);
+		setLineMuted(line, muted);
+	}
+
+	/**
+	 * @param voiceCount number of voices of the mixer, takes effect when the mixer is created
+	 */
+	public void setVoiceCount(int voiceCount) {
+		if (voiceCount < 1) {
+			throw new IllegalArgumentException("Voice count must be positive, is " + voiceCount);
+		}
+		this.voiceCount = voiceCount;
+	}
+
+	/**
+	 * Returns the mixer playing the sound samples. On first access, the mixer is created and started.
+	 * If no output line is available, the mixer is not started and the samples are not heard.
+	 * 
+	 * @return the sound mixer
+	 */
+	public synchronized SoundMixer mixer() {
+		if (mixer == null) {
+			mixer = new SoundMixer(SoundMixer.DEFAULT_FORMAT, voiceCount);
+			mixer.setMuted(muted);
+			try {
+				mixer.start();
+			} catch (LineUnavailableException | IllegalArgumentException x) {
+				loginfo("Sound mixer has no output line: %s", x.getMessage());
+			}
+		}
+		return mixer;
+	}
+
+	/**
+	 * Replaces the sound mixer. The previous mixer is closed.
+	 * 
+	 * @param mixer new mixer
+	 */
+	public synchronized void setMixer(SoundMixer mixer) {
+		if (this.mixer != null && this.mixer != mixer) {
+			this.mixer.close();
+		}
+		this.mixer = mixer;
+		if (mixer != null) {
+			mixer.setMuted(muted);
+		}
+	}
+
+	/**
+	 * Plays the sample once, centered and with default priority.
+	 * 
+	 * @param sample sound sample
+	 * @return voice handle or 0 if the sample is not played
+	 */
+	public long play(SoundSample sample) {
+		return play(sample, 1, 0, SoundMixer.DEFAULT_PRIORITY);
+	}
+
+	/**
+	 * Plays the sample once.
+	 * 
+	 * @see SoundMixer#play(SoundSample, float, float, int, boolean)
+	 */
+	public long play(SoundSample sample, float gain, float pan, int priority) {
+		return mixer().play(sample, gain, pan, priority, false);
+	}
+
+	/**
+	 * Plays the sample in an infinite loop.
+	 * 
+	 * @see SoundMixer#play(SoundSample, float, float, int, boolean)
+	 */
+	public long loop(SoundSample sample, float gain, float pan, int priority) {
+		return mixer().play(sample, gain, pan, priority, true);
+	}
+
 	/**
 	 * Starts or, if the clip is already running, restarts the clip playback. If the application is
 	 * muted, this clip gets muted too.
@@ -105,7 +222,7 @@ public class SoundManager {
 		}
 		clip.setFramePosition(0);
 		clip.start();
-		setLineMuted(clip, muted);
+		use(clip);
 	}
 
 	/**
@@ -117,7 +234,7 @@ public class SoundManager {
 			clip.stop();
 		}
 		clip.start();
-		setLineMuted(clip, muted);
+		use(clip);
 	}
 
 	/**
@@ -128,7 +245,7 @@ public class SoundManager {
 		if (clip.isRunning()) {
 			clip.stop();
 		}
-		setLineMuted(clip, muted);
+		use(clip);
 	}
 
 	/**
@@ -141,6 +258,39 @@ public class SoundManager {
 		}
 		clip.setFramePosition(0);
 		clip.loop(Clip.LOOP_CONTINUOUSLY);
-		setLineMuted(clip, muted);
+		use(clip);
+	}
+
+	/**
+	 * Starts or, if the stream is already running, restarts the stream playback. If the application is
+	 * muted, this stream gets muted too.
+	 */
+	public void startFromBeginning(SoundStream stream) {
+		stream.restart(false);
+		use(stream.line());
+	}
+
+	/**
+	 * Continues the stream playback.
+	 */
+	public void start(SoundStream stream) {
+		stream.resume();
+		use(stream.line());
+	}
+
+	/**
+	 * Stops the stream playback.
+	 */
+	public void stop(SoundStream stream) {
+		stream.halt();
+		use(stream.line());
+	}
+
+	/**
+	 * Plays the stream in an infinite loop.
+	 */
+	public void loop(SoundStream stream) {
+		stream.restart(true);
+		use(stream.line());
 	}
 }
\ No newline at end of file
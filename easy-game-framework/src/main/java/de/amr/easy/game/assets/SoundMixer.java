@@ -0,0 +1,399 @@
+package de.amr.easy.game.assets;
+
+import static de.amr.easy.game.Application.loginfo;
+
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Software mixer playing {@link SoundSample sound samples} through a single output line.
+ * <p>
+ * The mixer has a fixed number of voices. Each voice plays a sample with its own gain and pan,
+ * optionally looping, and converts the sample rate while playing. Voices share the sample data, so
+ * the same effect can be played overlapping itself. When all voices are busy, a new sound takes the
+ * voice with the lowest priority, of these the one playing longest. Voices with a higher priority
+ * than the new sound are never taken, in that case the new sound is rejected.
+ * <p>
+ * Voices are identified by handles returned by {@link #play(SoundSample, float, float, int, boolean)}.
+ * A handle becomes invalid when its voice ends or is taken by another sound, operations on invalid
+ * handles have no effect.
+ * <p>
+ * After {@link #start()}, a background thread renders the mix in small chunks into the output line.
+ * Without output line, the mix can be rendered by calling {@link #render(byte[], int)}.
+ *
+ * @author Armin Reichert
+ *
+ * @see SoundManager
+ */
+public class SoundMixer implements AutoCloseable {
+
+	/** Output format: 44.1 kHz, 16-bit signed, stereo, little-endian. */
+	public static final AudioFormat DEFAULT_FORMAT = new AudioFormat(44100, 16, 2, true, false);
+
+	/** Default size of the output line buffer in milliseconds. */
+	public static final int DEFAULT_BUFFER_MILLIS = 40;
+
+	/** Priority of sounds played without explicit priority. */
+	public static final int DEFAULT_PRIORITY = 0;
+
+	private final AudioFormat format;
+	private final int voiceCount;
+
+	// voices, a voice is free if its handle is 0
+	private final long[] handles;
+	private final SoundSample[] samples;
+	private final double[] positions, steps; // in sample frames
+	private final float[] gainsLeft, gainsRight;
+	private final int[] priorities;
+	private final boolean[] loops;
+	private long nextHandle = 1;
+
+	private float[] mix = new float[0];
+	private volatile boolean muted;
+
+	// output
+	private SourceDataLine line;
+	private Thread renderer;
+	private volatile boolean rendering;
+
+	// statistics
+	private long stolen;
+	private long rejected;
+
+	/**
+	 * Creates a mixer.
+	 *
+	 * @param format     output format, 16-bit signed PCM with 1 or 2 channels
+	 * @param voiceCount number of voices
+	 */
+	public SoundMixer(AudioFormat format, int voiceCount) {
+		if (!AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding()) || format.getSampleSizeInBits() != 16
+				|| format.getChannels() < 1 || format.getChannels() > 2) {
+			throw new IllegalArgumentException("Mixer format must be 16-bit signed PCM, mono or stereo, is " + format);
+		}
+		if (voiceCount < 1) {
+			throw new IllegalArgumentException("Voice count must be positive, is " + voiceCount);
+		}
+		this.format = format;
+		this.voiceCount = voiceCount;
+		handles = new long[voiceCount];
+		samples = new SoundSample[voiceCount];
+		positions = new double[voiceCount];
+		steps = new double[voiceCount];
+		gainsLeft = new float[voiceCount];
+		gainsRight = new float[voiceCount];
+		priorities = new int[voiceCount];
+		loops = new boolean[voiceCount];
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SoundMixer[%d/%d voices, stolen %d, rejected %d]", getActiveVoiceCount(), voiceCount,
+				stolen, rejected);
+	}
+
+	public AudioFormat getFormat() {
+		return format;
+	}
+
+	public int getVoiceCount() {
+		return voiceCount;
+	}
+
+	/**
+	 * @return number of voices currently playing
+	 */
+	public synchronized int getActiveVoiceCount() {
+		int active = 0;
+		for (long handle : handles) {
+			if (handle != 0) {
+				++active;
+			}
+		}
+		return active;
+	}
+
+	/**
+	 * @return number of voices taken from a playing sound
+	 */
+	public synchronized long getStolenCount() {
+		return stolen;
+	}
+
+	/**
+	 * @return number of sounds not played because all voices had a higher priority
+	 */
+	public synchronized long getRejectedCount() {
+		return rejected;
+	}
+
+	public boolean isMuted() {
+		return muted;
+	}
+
+	/**
+	 * Mutes or unmutes the output. Voices continue playing while muted.
+	 *
+	 * @param muted if the output is muted
+	 */
+	public void setMuted(boolean muted) {
+		this.muted = muted;
+	}
+
+	/**
+	 * Plays a sample.
+	 *
+	 * @param sample   sample
+	 * @param gain     gain, 1 = unchanged
+	 * @param pan      stereo position between -1 (left) and 1 (right)
+	 * @param priority priority for voice stealing, higher values are kept longer
+	 * @param loop     if the sample is played in an infinite loop
+	 * @return voice handle or 0 if the sample is not played
+	 */
+	public synchronized long play(SoundSample sample, float gain, float pan, int priority, boolean loop) {
+		int voice = freeVoice();
+		if (voice == -1) {
+			voice = lowestPriorityVoice();
+			if (priorities[voice] > priority) {
+				++rejected;
+				return 0;
+			}
+			++stolen;
+		}
+		handles[voice] = nextHandle++;
+		samples[voice] = sample;
+		positions[voice] = 0;
+		steps[voice] = sample.getSampleRate() / format.getSampleRate();
+		priorities[voice] = priority;
+		loops[voice] = loop;
+		setGain(voice, gain, pan);
+		return handles[voice];
+	}
+
+	private int freeVoice() {
+		for (int voice = 0; voice < voiceCount; ++voice) {
+			if (handles[voice] == 0) {
+				return voice;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * Handles increase with the start time, so the smallest handle is the voice playing longest.
+	 */
+	private int lowestPriorityVoice() {
+		int lowest = 0;
+		for (int voice = 1; voice < voiceCount; ++voice) {
+			if (priorities[voice] < priorities[lowest]
+					|| priorities[voice] == priorities[lowest] && handles[voice] < handles[lowest]) {
+				lowest = voice;
+			}
+		}
+		return lowest;
+	}
+
+	private int voice(long handle) {
+		if (handle != 0) {
+			for (int voice = 0; voice < voiceCount; ++voice) {
+				if (handles[voice] == handle) {
+					return voice;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param handle voice handle
+	 * @return if the voice is still playing the sound it was started with
+	 */
+	public synchronized boolean isPlaying(long handle) {
+		return voice(handle) != -1;
+	}
+
+	/**
+	 * Changes gain and pan of a playing voice.
+	 *
+	 * @param handle voice handle
+	 * @param gain   gain, 1 = unchanged
+	 * @param pan    stereo position between -1 (left) and 1 (right)
+	 */
+	public synchronized void setGain(long handle, float gain, float pan) {
+		int voice = voice(handle);
+		if (voice != -1) {
+			setGain(voice, gain, pan);
+		}
+	}
+
+	private void setGain(int voice, float gain, float pan) {
+		if (gain < 0) {
+			throw new IllegalArgumentException("Gain must not be negative, is " + gain);
+		}
+		pan = Math.max(-1, Math.min(1, pan));
+		gainsLeft[voice] = gain * Math.min(1, 1 - pan);
+		gainsRight[voice] = gain * Math.min(1, 1 + pan);
+	}
+
+	/**
+	 * Stops a voice.
+	 *
+	 * @param handle voice handle
+	 */
+	public synchronized void stop(long handle) {
+		int voice = voice(handle);
+		if (voice != -1) {
+			free(voice);
+		}
+	}
+
+	/**
+	 * Stops all voices.
+	 */
+	public synchronized void stopAll() {
+		for (int voice = 0; voice < voiceCount; ++voice) {
+			free(voice);
+		}
+	}
+
+	private void free(int voice) {
+		handles[voice] = 0;
+		samples[voice] = null;
+	}
+
+	/**
+	 * Renders the next frames of the mix and advances the voices.
+	 *
+	 * @param out    output buffer in the mixer format
+	 * @param frames number of frames
+	 */
+	public synchronized void render(byte[] out, int frames) {
+		if (mix.length < 2 * frames) {
+			mix = new float[2 * frames];
+		}
+		Arrays.fill(mix, 0, 2 * frames, 0);
+		for (int voice = 0; voice < voiceCount; ++voice) {
+			if (handles[voice] != 0) {
+				mixVoice(voice, frames);
+			}
+		}
+		boolean mono = format.getChannels() == 1, bigEndian = format.isBigEndian();
+		int i = 0;
+		for (int frame = 0; frame < frames; ++frame) {
+			float left = muted ? 0 : mix[2 * frame], right = muted ? 0 : mix[2 * frame + 1];
+			if (mono) {
+				i = put(out, i, (left + right) / 2, bigEndian);
+			} else {
+				i = put(out, i, left, bigEndian);
+				i = put(out, i, right, bigEndian);
+			}
+		}
+	}
+
+	private static int put(byte[] out, int i, float value, boolean bigEndian) {
+		int s = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value)));
+		out[i] = (byte) (bigEndian ? s >> 8 : s);
+		out[i + 1] = (byte) (bigEndian ? s : s >> 8);
+		return i + 2;
+	}
+
+	/*
+	 * Adds the next frames of a voice to the mix, interpolating linearly between sample frames.
+	 */
+	private void mixVoice(int voice, int frames) {
+		final short[] data = samples[voice].data();
+		final int channels = samples[voice].getChannels(), frameCount = data.length / channels;
+		final double step = steps[voice];
+		final float gl = gainsLeft[voice], gr = gainsRight[voice];
+		double pos = positions[voice];
+		for (int frame = 0; frame < frames; ++frame) {
+			if (pos >= frameCount) {
+				if (!loops[voice] || frameCount == 0) {
+					free(voice);
+					return;
+				}
+				pos %= frameCount;
+			}
+			int index = (int) pos, next = index + 1 < frameCount ? index + 1 : loops[voice] ? 0 : index;
+			float t = (float) (pos - index);
+			if (channels == 1) {
+				float s = data[index] + t * (data[next] - data[index]);
+				mix[2 * frame] += gl * s;
+				mix[2 * frame + 1] += gr * s;
+			} else {
+				int a = 2 * index, b = 2 * next;
+				mix[2 * frame] += gl * (data[a] + t * (data[b] - data[a]));
+				mix[2 * frame + 1] += gr * (data[a + 1] + t * (data[b + 1] - data[a + 1]));
+			}
+			pos += step;
+		}
+		positions[voice] = pos;
+	}
+
+	/**
+	 * Starts rendering into a line of the default audio mixer.
+	 */
+	public void start() throws LineUnavailableException {
+		start(AudioSystem.getSourceDataLine(format), DEFAULT_BUFFER_MILLIS);
+	}
+
+	/**
+	 * Starts rendering into the given line.
+	 *
+	 * @param line         output line, not yet open
+	 * @param bufferMillis size of the line buffer in milliseconds
+	 */
+	public synchronized void start(SourceDataLine line, int bufferMillis) throws LineUnavailableException {
+		if (renderer != null) {
+			throw new IllegalStateException("Sound mixer is already started");
+		}
+		int frameSize = format.getFrameSize();
+		int bufferFrames = Math.max(1, (int) (format.getFrameRate() * bufferMillis / 1000));
+		line.open(format, bufferFrames * frameSize);
+		line.start();
+		this.line = line;
+		// chunks of a quarter of the buffer keep the latency low and the line filled
+		int chunkFrames = Math.max(1, bufferFrames / 4);
+		rendering = true;
+		renderer = new Thread(() -> {
+			byte[] chunk = new byte[chunkFrames * frameSize];
+			while (rendering) {
+				render(chunk, chunkFrames);
+				line.write(chunk, 0, chunk.length);
+			}
+		}, "SoundMixer");
+		renderer.setDaemon(true);
+		renderer.start();
+		loginfo("Sound mixer started: %d voices, %s, buffer %d ms", voiceCount, format, bufferMillis);
+	}
+
+	/**
+	 * Stops all voices and the rendering and closes the output line.
+	 */
+	@Override
+	public void close() {
+		Thread current;
+		synchronized (this) {
+			stopAll();
+			current = renderer;
+			renderer = null;
+			rendering = false;
+		}
+		if (current != null) {
+			// stopping makes a blocked write return
+			line.stop();
+			line.flush();
+			try {
+				current.join(1000);
+			} catch (InterruptedException x) {
+				Thread.currentThread().interrupt();
+			}
+			line.close();
+			line = null;
+		}
+	}
+}
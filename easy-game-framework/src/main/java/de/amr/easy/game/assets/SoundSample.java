@@ -0,0 +1,119 @@
+package de.amr.easy.game.assets;
+
+import static de.amr.easy.game.Application.app;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Decoded audio data played by the {@link SoundMixer}. Unlike a {@link SoundClip}, a sample owns no
+ * line: it is shared by all voices playing it, such that the same effect can overlap itself.
+ * <p>
+ * The data is stored as 16-bit signed samples, interleaved if the sound has two channels. The mixer
+ * converts the sample rate while playing.
+ *
+ * @author Armin Reichert
+ *
+ * @see SoundMixer
+ */
+public class SoundSample {
+
+	private final short[] data;
+	private final int channels;
+	private final float sampleRate;
+
+	/**
+	 * Creates a sample from 16-bit signed samples.
+	 *
+	 * @param data       samples, interleaved if there are two channels
+	 * @param channels   number of channels, 1 or 2
+	 * @param sampleRate sample rate in Hz
+	 */
+	public SoundSample(short[] data, int channels, float sampleRate) {
+		if (channels != 1 && channels != 2) {
+			throw new IllegalArgumentException("Sample must have 1 or 2 channels, has " + channels);
+		}
+		if (sampleRate <= 0) {
+			throw new IllegalArgumentException("Sample rate must be positive, is " + sampleRate);
+		}
+		this.data = data;
+		this.channels = channels;
+		this.sampleRate = sampleRate;
+	}
+
+	/**
+	 * Decodes a sound file. MP3 files are decoded as for sound clips.
+	 *
+	 * @param is input stream of the sound file
+	 * @return decoded sample
+	 */
+	public static SoundSample decode(InputStream is) throws IOException, UnsupportedAudioFileException {
+		try (AudioInputStream ais = AudioSystem.getAudioInputStream(new BufferedInputStream(is))) {
+			AudioFormat format = ais.getFormat();
+			int channels = Math.min(2, format.getChannels());
+			AudioFormat pcmFormat = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16, channels,
+					channels * 2, format.getSampleRate(), false);
+			try (AudioInputStream pcmStream = AudioSystem.getAudioInputStream(pcmFormat, ais)) {
+				byte[] bytes = pcmStream.readAllBytes();
+				short[] data = new short[bytes.length / 2];
+				for (int i = 0; i < data.length; ++i) {
+					data[i] = (short) (bytes[2 * i] & 0xFF | bytes[2 * i + 1] << 8);
+				}
+				return new SoundSample(data, channels, format.getSampleRate());
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SoundSample[%d frames, %d channels, %.0f Hz]", getFrameCount(), channels, sampleRate);
+	}
+
+	/**
+	 * @return the samples, interleaved if there are two channels. Must not be modified.
+	 */
+	short[] data() {
+		return data;
+	}
+
+	public int getChannels() {
+		return channels;
+	}
+
+	public float getSampleRate() {
+		return sampleRate;
+	}
+
+	public int getFrameCount() {
+		return data.length / channels;
+	}
+
+	/**
+	 * @return duration in seconds
+	 */
+	public float getDuration() {
+		return getFrameCount() / sampleRate;
+	}
+
+	/**
+	 * @return size of the audio data in bytes
+	 */
+	public long getByteSize() {
+		return 2L * data.length;
+	}
+
+	/**
+	 * Plays this sample once with default gain, pan and priority.
+	 *
+	 * @return voice handle, see {@link SoundMixer#play(SoundSample, float, float, int, boolean)}
+	 */
+	public long play() {
+		return app().soundManager().play(this);
+	}
+}
@@ -0,0 +1,327 @@
+package de.amr.easy.game.assets;
+
+import static de.amr.easy.game.Application.app;
+import static de.amr.easy.game.Application.loginfo;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import com.tagtraum.ffsampledsp.FFAudioInputStream;
+
+/**
+ * A sound which is decoded while playing, for long sounds like music tracks. Unlike a
+ * {@link SoundClip}, the decoded audio data is not kept in memory.
+ * <p>
+ * A background thread reads the decoded audio data in small chunks and writes them into a
+ * {@link SourceDataLine} whose buffer holds only a fraction of a second. Playing from the beginning
+ * or looping reopens the audio source. The API and the handling of the global muting state are the
+ * same as for sound clips.
+ * 
+ * @author Armin Reichert
+ * 
+ * @see SoundManager
+ */
+public class SoundStream {
+
+	/** Default size of the line buffer in milliseconds. */
+	public static final int DEFAULT_BUFFER_MILLIS = 200;
+
+	/**
+	 * Opens the encoded audio data of a stream.
+	 */
+	@FunctionalInterface
+	public interface Source {
+
+		InputStream open() throws IOException;
+	}
+
+	private final String name;
+	private final Source source;
+	private final SourceDataLine line;
+	private final AudioFormat format;
+	private final byte[] chunk;
+	private int chunkStart, chunkEnd; // part of the chunk not yet written, kept when the feeder is halted
+
+	// audio input of the current playback: the source stream and the decoded PCM stream, guarded by
+	// the audio lock which is also used by the feeder thread
+	private final Object audioLock = new Object();
+	private AudioInputStream sourceStream;
+	private AudioInputStream pcmStream;
+	private volatile boolean finished = true;
+
+	// the public operations are synchronized on this stream and stop the feeder thread before
+	// changing the playback
+	private volatile Thread feeder;
+	private volatile int generation;
+	private volatile boolean running;
+	private volatile boolean looping;
+
+	/**
+	 * Creates a stream for the sound file at the given asset path, playing through a line of the
+	 * default mixer.
+	 * 
+	 * @param path asset path
+	 */
+	public SoundStream(String path) throws LineUnavailableException, IOException, UnsupportedAudioFileException {
+		this(path, () -> Assets.stream(path), null, DEFAULT_BUFFER_MILLIS);
+	}
+
+	/**
+	 * Creates a stream.
+	 * 
+	 * @param name         name used in logs and for the background thread
+	 * @param source       opens the encoded audio data, called for each playback from the beginning
+	 * @param line         output line (not yet open) or {@code null} to use a line of the default mixer
+	 * @param bufferMillis size of the line buffer in milliseconds
+	 */
+	public SoundStream(String name, Source source, SourceDataLine line, int bufferMillis)
+			throws LineUnavailableException, IOException, UnsupportedAudioFileException {
+		this.name = name;
+		this.source = source;
+		openAudio();
+		format = pcmStream.getFormat();
+		int frameSize = format.getFrameSize();
+		int bufferFrames = Math.max(1, (int) (format.getFrameRate() * bufferMillis / 1000));
+		try {
+			this.line = line != null ? line : AudioSystem.getSourceDataLine(format);
+			this.line.open(format, bufferFrames * frameSize);
+		} catch (LineUnavailableException | RuntimeException x) {
+			closeAudio();
+			throw x;
+		}
+		// chunks of a quarter of the buffer keep the line filled
+		chunk = new byte[Math.max(frameSize, bufferFrames / 4 * frameSize)];
+		if (volume() > 1) {
+			setVolume(1);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SoundStream[%s, %s]", name, format);
+	}
+
+	/**
+	 * @return the output line
+	 */
+	public SourceDataLine line() {
+		return line;
+	}
+
+	/**
+	 * @return the decoded audio format
+	 */
+	public AudioFormat format() {
+		return format;
+	}
+
+	/**
+	 * @return size of the buffers used by this stream in bytes
+	 */
+	public long getByteSize() {
+		return line.getBufferSize() + chunk.length;
+	}
+
+	public void mute() {
+		SoundManager.setLineMuted(line, true);
+	}
+
+	public void unmute() {
+		SoundManager.setLineMuted(line, false);
+	}
+
+	public void play() {
+		app().soundManager().startFromBeginning(this);
+	}
+
+	public void start() {
+		app().soundManager().start(this);
+	}
+
+	public void stop() {
+		app().soundManager().stop(this);
+	}
+
+	public void loop() {
+		app().soundManager().loop(this);
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * @return if the stream is looping
+	 */
+	public boolean isLooping() {
+		return looping;
+	}
+
+	/**
+	 * @see SoundManager#getLineVolume(javax.sound.sampled.Line)
+	 */
+	public float volume() {
+		return SoundManager.getLineVolume(line).orElse(0f);
+	}
+
+	/**
+	 * @param value value between 0 and 1
+	 * @see SoundManager#setLineVolume(javax.sound.sampled.Line, float)
+	 */
+	public void setVolume(float value) {
+		SoundManager.setLineVolume(line, value);
+	}
+
+	/**
+	 * Stops playing and releases the line and the audio input. The stream cannot be played anymore.
+	 */
+	public synchronized void close() {
+		halt();
+		synchronized (audioLock) {
+			closeAudio();
+		}
+		line.close();
+	}
+
+	/**
+	 * Starts playing from the beginning. Called by the sound manager.
+	 * 
+	 * @param loop if the stream loops
+	 */
+	synchronized void restart(boolean loop) {
+		halt();
+		synchronized (audioLock) {
+			closeAudio();
+			try {
+				openAudio();
+			} catch (IOException | UnsupportedAudioFileException x) {
+				throw new AssetException(String.format("Sound stream '%s' could not be opened", name), x);
+			}
+		}
+		chunkStart = chunkEnd = 0;
+		looping = loop;
+		startFeeder();
+	}
+
+	/**
+	 * Continues playing at the current position or, if the end has been reached, from the beginning.
+	 * Called by the sound manager.
+	 */
+	synchronized void resume() {
+		if (running) {
+			return;
+		}
+		if (finished) {
+			restart(looping);
+		} else {
+			startFeeder();
+		}
+	}
+
+	/**
+	 * Stops playing, keeping the current position. Called by the sound manager.
+	 */
+	synchronized void halt() {
+		Thread current = feeder;
+		if (current == null) {
+			return;
+		}
+		++generation;
+		feeder = null;
+		// stopping makes a blocked write return, flushing a blocked drain
+		line.stop();
+		line.flush();
+		try {
+			current.join(1000);
+		} catch (InterruptedException x) {
+			Thread.currentThread().interrupt();
+		}
+		line.flush();
+		running = false;
+	}
+
+	private void openAudio() throws IOException, UnsupportedAudioFileException {
+		sourceStream = AudioSystem.getAudioInputStream(new BufferedInputStream(source.open()));
+		if (sourceStream instanceof FFAudioInputStream) {
+			AudioFormat mp3Format = sourceStream.getFormat();
+			AudioFormat pcmFormat = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, mp3Format.getSampleRate(), 16,
+					mp3Format.getChannels(), mp3Format.getChannels() * 2, mp3Format.getSampleRate(), false);
+			pcmStream = AudioSystem.getAudioInputStream(pcmFormat, sourceStream);
+		} else {
+			pcmStream = sourceStream;
+		}
+		finished = false;
+	}
+
+	private void closeAudio() {
+		try {
+			if (pcmStream != null && pcmStream != sourceStream) {
+				pcmStream.close();
+			}
+			if (sourceStream != null) {
+				sourceStream.close();
+			}
+		} catch (IOException x) {
+			loginfo("Sound stream '%s' could not be closed: %s", name, x);
+		}
+		pcmStream = sourceStream = null;
+	}
+
+	private void startFeeder() {
+		int myGeneration = ++generation;
+		running = true;
+		line.start();
+		feeder = new Thread(() -> feed(myGeneration), "SoundStream-" + name);
+		feeder.setDaemon(true);
+		feeder.start();
+	}
+
+	/*
+	 * Runs on the feeder thread until the stream ends or the generation changes.
+	 */
+	private void feed(int myGeneration) {
+		try {
+			while (generation == myGeneration) {
+				if (chunkStart == chunkEnd) {
+					int n;
+					synchronized (audioLock) {
+						if (generation != myGeneration) {
+							return;
+						}
+						n = pcmStream.read(chunk);
+						if (n == -1 && looping) {
+							closeAudio();
+							openAudio();
+							continue;
+						}
+					}
+					if (n == -1) {
+						line.drain();
+						break;
+					}
+					chunkStart = 0;
+					chunkEnd = n;
+				}
+				// a halted line returns early, the rest of the chunk is written when resuming
+				chunkStart += line.write(chunk, chunkStart, chunkEnd - chunkStart);
+			}
+		} catch (IOException | UnsupportedAudioFileException | RuntimeException x) {
+			loginfo("Sound stream '%s' stopped: %s", name, x);
+		}
+		synchronized (audioLock) {
+			if (generation == myGeneration) {
+				finished = true;
+				running = false;
+				feeder = null;
+			}
+		}
+	}
+}
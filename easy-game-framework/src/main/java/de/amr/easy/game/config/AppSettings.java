@@ -9,6 +9,9 @@ import java.util.stream.Stream;
 
 import com.beust.jcommander.Parameter;
 
+import de.amr.easy.game.assets.SoundManager;
+import de.amr.easy.game.timing.FramePacing;
+
 /**
  * Application settings. Contains predefined properties and a generic map. The predefined settings
  * can be overwritten by corresponding command-line parameters.
@@ -37,6 +40,19 @@ public class AppSettings {
 	@Parameter(names = { "-fps" }, description = "Clock speed (ticks/sec)")
 	public int fps = 60;
 
+	@Parameter(names = { "-fixedTimestep" }, description = "Clock ticks with fixed timestep, rendering is decoupled")
+	public boolean fixedTimestep = false;
+
+	@Parameter(names = { "-pacing" }, description = "Frame pacing strategy (SLEEP, PRECISE)")
+	public FramePacing pacing = FramePacing.SLEEP;
+
+	@Parameter(names = { "-renderRate" }, description = "Render rate (frames/sec) in fixed-timestep mode")
+	public int renderRate = 60;
+
+	@Parameter(names = {
+			"-pipelinedRendering" }, description = "Render on a separate thread while the next update runs (for views providing snapshots)")
+	public boolean pipelinedRendering = false;
+
 	@Parameter(names = { "-width" }, description = "Application window width (unscaled)")
 	public int width = 640;
 
@@ -59,6 +75,18 @@ public class AppSettings {
 	@Parameter(names = { "-muted" }, description = "Application starts with sound muted")
 	public boolean muted = false;
 
+	@Parameter(names = { "-imageCacheSize" }, description = "Size limit (MB) of the image cache, 0 = unlimited")
+	public int imageCacheSize = 0;
+
+	@Parameter(names = { "-soundCacheSize" }, description = "Size limit (MB) of the sound cache, 0 = unlimited")
+	public int soundCacheSize = 0;
+
+	@Parameter(names = { "-imageDiskCache" }, description = "Cache decoded images on disk to speed up the next start")
+	public boolean imageDiskCache = false;
+
+	@Parameter(names = { "-soundVoices" }, description = "Number of voices of the sound mixer")
+	public int soundVoices = SoundManager.DEFAULT_VOICE_COUNT;
+
 	/**
 	 * @return stream of all keys of the user-defined settings
 	 */
@@ -138,8 +166,16 @@ public class AppSettings {
 		print("Full-screen mode", fullScreen);
 		print("Full-screen resolution", fullScreenMode);
 		print("Framerate (ticks/sec)", fps);
+		print("Frame pacing", pacing);
+		print("Fixed timestep", fixedTimestep);
+		print("Render rate (frames/sec)", renderRate);
+		print("Pipelined rendering", pipelinedRendering);
 		print("Smooth rendering", smoothRendering);
 		print("Muted", muted);
+		print("Image cache size (MB)", imageCacheSize);
+		print("Sound cache size (MB)", soundCacheSize);
+		print("Image disk cache", imageDiskCache);
+		print("Sound mixer voices", soundVoices);
 	}
 
 	public void print(String name, Object value) {
@@ -0,0 +1,160 @@
+package de.amr.easy.game.controller;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import de.amr.easy.game.entity.EntityMap;
+
+/**
+ * Updates the entities of an entity map implementing {@link Lifecycle} in parallel on a fork/join
+ * pool.
+ * <p>
+ * The entities are partitioned into update groups (see {@link UpdateGroup}), by default one group
+ * per entity class. Each group is updated sequentially by one task, the tasks run in parallel.
+ * Independent entities are split into chunks updated in parallel. The partition is rebuilt when the
+ * entity map has changed.
+ * <p>
+ * {@link #update()} returns when all entities have been updated, so it acts as a barrier: when
+ * called from the update of the application controller, all entity updates are complete before
+ * collision detection and rendering take place. Entity updates must only change the state of their
+ * own group and must not call non-thread-safe framework code, e.g. play sounds or change the
+ * application controller.
+ *
+ * @author Armin Reichert
+ */
+public class ParallelUpdateScheduler {
+
+	private final EntityMap entities;
+	private final ForkJoinPool pool;
+	private final List<GroupUpdate> tasks = new ArrayList<>();
+	private long partitionedModifications = -1;
+	private int chunkSize = 256;
+	private boolean parallel = true;
+
+	/**
+	 * Creates a scheduler using the common fork/join pool.
+	 *
+	 * @param entities entity map
+	 */
+	public ParallelUpdateScheduler(EntityMap entities) {
+		this(entities, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a scheduler using the given fork/join pool.
+	 *
+	 * @param entities entity map
+	 * @param pool     pool running the updates
+	 */
+	public ParallelUpdateScheduler(EntityMap entities, ForkJoinPool pool) {
+		this.entities = Objects.requireNonNull(entities);
+		this.pool = Objects.requireNonNull(pool);
+	}
+
+	/**
+	 * @param chunkSize number of independent entities updated by a single task (default: 256)
+	 */
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive, is " + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+		partitionedModifications = -1;
+	}
+
+	/**
+	 * @return if the updates are run in parallel
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * @param parallel if the updates are run in parallel. If not, all groups are updated on the
+	 *                 calling thread, e.g. for debugging.
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	/**
+	 * @return number of tasks the entities are partitioned into
+	 */
+	public int getTaskCount() {
+		partition();
+		return tasks.size();
+	}
+
+	/**
+	 * Updates all entities and waits until all updates are complete. An exception thrown by an entity
+	 * update is rethrown by this method, other updates of the same tick may then be skipped.
+	 */
+	public void update() {
+		partition();
+		if (!parallel || tasks.size() == 1 || pool.getParallelism() == 1) {
+			for (GroupUpdate task : tasks) {
+				task.updateGroup();
+			}
+			return;
+		}
+		for (GroupUpdate task : tasks) {
+			task.reinitialize();
+		}
+		pool.invoke(new RecursiveAction() {
+
+			@Override
+			protected void compute() {
+				ForkJoinTask.invokeAll(tasks);
+			}
+		});
+	}
+
+	private void partition() {
+		long modifications = entities.getModificationCount();
+		if (modifications == partitionedModifications) {
+			return;
+		}
+		Map<Object, List<Lifecycle>> groups = new LinkedHashMap<>();
+		entities.implementing(Lifecycle.class).forEach(lifecycle -> {
+			Object key = lifecycle instanceof UpdateGroup member ? member.updateGroup() : lifecycle.getClass();
+			groups.computeIfAbsent(key, k -> new ArrayList<>()).add(lifecycle);
+		});
+		tasks.clear();
+		groups.forEach((key, members) -> {
+			if (key == UpdateGroup.INDEPENDENT) {
+				for (int from = 0; from < members.size(); from += chunkSize) {
+					tasks.add(new GroupUpdate(members.subList(from, Math.min(from + chunkSize, members.size()))));
+				}
+			} else {
+				tasks.add(new GroupUpdate(members));
+			}
+		});
+		partitionedModifications = modifications;
+	}
+
+	private static class GroupUpdate extends RecursiveAction {
+
+		private final Lifecycle[] members;
+
+		GroupUpdate(List<Lifecycle> members) {
+			this.members = members.toArray(Lifecycle[]::new);
+		}
+
+		@Override
+		protected void compute() {
+			updateGroup();
+		}
+
+		void updateGroup() {
+			for (Lifecycle member : members) {
+				member.update();
+			}
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package de.amr.easy.game.controller;
+
+/**
+ * Lets an entity declare the group it is updated with by the {@link ParallelUpdateScheduler}.
+ * <p>
+ * Entities of the same group are updated one after another on the same thread, different groups are
+ * updated in parallel. Entities not implementing this interface are grouped by their class. Entities
+ * in the group {@link #INDEPENDENT} do not share mutable state with any other entity and are
+ * updated in parallel with each other.
+ *
+ * @author Armin Reichert
+ */
+public interface UpdateGroup {
+
+	/** Group of entities which can be updated in parallel with any other entity. */
+	static final Object INDEPENDENT = new Object() {
+
+		@Override
+		public String toString() {
+			return "INDEPENDENT";
+		}
+	};
+
+	/**
+	 * @return the key of the update group of this entity, compared using {@code equals}. Must not
+	 *         change while the entity is stored in an entity map.
+	 */
+	Object updateGroup();
+}
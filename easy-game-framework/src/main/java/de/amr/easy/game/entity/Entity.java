@@ -10,7 +10,8 @@ import de.amr.easy.game.entity.collision.Collider;
  * An entity provides a {@link Transform transform} object that stores the position, velocity and
  * rotation of the object. Entities are also sensitive to collisions. By default, the transform's
  * position denotes the left upper corner of the collision box. Invisible entities do not trigger
- * collisions.
+ * collisions. The collision layer and mask are used by the layer rules of the collision handler. Fast
+ * entities can use swept collision tests such that they do not tunnel through thin colliders.
  * 
  * @author Armin Reichert
  */
@@ -24,6 +25,32 @@ public class Entity implements Collider {
 	 */
 	public boolean visible = true;
 
+	/** Collision layer (0-31) of this entity. */
+	public int collisionLayer = 0;
+
+	/** Bit mask of the collision layers this entity can collide with. */
+	public int collisionMask = ~0;
+
+	/**
+	 * If set, collisions are also detected along the movement by the velocity since the last update.
+	 */
+	public boolean sweptCollision = false;
+
+	@Override
+	public int collisionLayer() {
+		return collisionLayer;
+	}
+
+	@Override
+	public int collisionMask() {
+		return collisionMask;
+	}
+
+	@Override
+	public boolean sweptCollision() {
+		return sweptCollision;
+	}
+
 	@Override
 	public Rectangle2D getCollisionBox() {
 		return visible ? tf.getCollisionBox() : new Rectangle2D.Float(tf.x, tf.y, 0, 0);
@@ -1,51 +1,229 @@
 package de.amr.easy.game.entity;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /**
  * An entity map that allows to store entities with a unique key or anonymously and that provides a
  * number of useful methods for accessing entities.
- * 
+ * <p>
+ * Queries by class ({@link #ofClass(Class)}) and by implemented type ({@link #implementing(Class)})
+ * use secondary indices. The index for a type is created by the first query for that type and kept
+ * up to date when entities are stored or removed, so later queries do not scan or reflect. The
+ * {@code forEach} methods iterate over the index arrays without allocating. Entities are removed
+ * using an identity-keyed reverse index from entities to their keys.
+ * <p>
+ * The indices are growable arrays which are modified under the lock of the map. Removed entities
+ * are only marked and dropped when the array is compacted, so storing and removing an entity takes
+ * amortized constant time per index. Queries and iterations use an immutable snapshot of an index
+ * which is created lazily by the first query after a modification of that index, that is at most
+ * once per batch of modifications (typically once per tick). Queries are not blocked by later
+ * modifications and see the state at the time they started.
+ *
  * @author Armin Reichert
  */
 public class EntityMap {
 
+	private static final Entity[] NO_ENTITIES = {};
+	private static final String ANONYMOUS_KEY_PREFIX = "#anonymous-";
+
+	/*
+	 * Entities of one type. Modified under the lock of the map, read through the snapshot.
+	 */
+	private class TypeIndex {
+
+		private Entity[] slots = NO_ENTITIES;
+		private int end;
+		private final Map<Entity, Boolean> removed = new IdentityHashMap<>();
+		private volatile int size;
+		private volatile Entity[] snapshot = NO_ENTITIES;
+		private volatile boolean dirty;
+
+		void add(Entity entity) {
+			// a removed entity which is added again is still in the slots
+			if (removed.remove(entity) == null) {
+				if (end == slots.length) {
+					compact();
+					if (end == slots.length) {
+						slots = Arrays.copyOf(slots, Math.max(8, 2 * slots.length));
+					}
+				}
+				slots[end++] = entity;
+			}
+			++size;
+			dirty = true;
+		}
+
+		void remove(Entity entity) {
+			removed.put(entity, Boolean.TRUE);
+			--size;
+			dirty = true;
+		}
+
+		private void compact() {
+			if (removed.isEmpty()) {
+				return;
+			}
+			int write = 0;
+			for (int read = 0; read < end; ++read) {
+				if (!removed.containsKey(slots[read])) {
+					slots[write++] = slots[read];
+				}
+			}
+			Arrays.fill(slots, write, end, null);
+			end = write;
+			removed.clear();
+		}
+
+		Entity[] items() {
+			if (dirty) {
+				synchronized (EntityMap.this) {
+					if (dirty) {
+						compact();
+						snapshot = end == 0 ? NO_ENTITIES : Arrays.copyOf(slots, end);
+						dirty = false;
+					}
+				}
+			}
+			return snapshot;
+		}
+	}
+
 	private final Map<String, Entity> entries = new ConcurrentHashMap<>();
+	private final Map<Entity, List<String>> keysByEntity = new IdentityHashMap<>();
+	private final TypeIndex allEntities = new TypeIndex();
+	private final Map<Class<?>, TypeIndex> classIndices = new ConcurrentHashMap<>();
+	private final Map<Class<?>, TypeIndex> typeIndices = new ConcurrentHashMap<>();
+	private long anonymousKeys;
+	private volatile long modifications;
 
-	public <E extends Entity> E store(String key, E entity) {
-		entries.put(key, entity);
+	public synchronized <E extends Entity> E store(String key, E entity) {
+		Entity previous = entries.put(key, entity);
+		if (previous == entity) {
+			return entity;
+		}
+		if (previous != null) {
+			unlink(previous, key);
+		}
+		List<String> keys = keysByEntity.get(entity);
+		if (keys == null) {
+			keys = new ArrayList<>(1);
+			keysByEntity.put(entity, keys);
+			addToIndices(entity);
+		}
+		keys.add(key);
+		++modifications;
 		return entity;
 	}
 
-	public <E extends Entity> E store(E entity) {
-		return store("" + entity.hashCode(), entity);
+	/**
+	 * Stores the entity under a generated key. Storing an entity which is already contained has no
+	 * effect.
+	 *
+	 * @param entity entity
+	 * @return the entity
+	 */
+	public synchronized <E extends Entity> E store(E entity) {
+		if (keysByEntity.containsKey(entity)) {
+			return entity;
+		}
+		String key;
+		do {
+			key = ANONYMOUS_KEY_PREFIX + (++anonymousKeys);
+		} while (entries.containsKey(key));
+		return store(key, entity);
+	}
+
+	/**
+	 * Acquires an entity from the given pool and stores it anonymously.
+	 *
+	 * @param pool entity pool
+	 * @return the entity
+	 */
+	public <E extends Entity> E spawn(ObjectPool<E> pool) {
+		return store(pool.acquire());
 	}
 
-	public void remove(String key) {
-		entries.remove(key);
+	/**
+	 * Removes the entity and releases it to the given pool. Despawning an entity which is not contained
+	 * (for example, a second time in the same tick) has no effect.
+	 *
+	 * @param entity entity
+	 * @param pool   pool the entity was acquired from
+	 * @return if the entity was removed and released
+	 */
+	public <E extends Entity> boolean despawn(E entity, ObjectPool<? super E> pool) {
+		if (removeEntity(entity)) {
+			pool.release(entity);
+			return true;
+		}
+		return false;
 	}
 
-	public void removeEntity(Entity entity) {
-		entries.entrySet().removeIf(e -> e.getValue().equals(entity));
+	public synchronized void remove(String key) {
+		Entity entity = entries.remove(key);
+		if (entity != null) {
+			unlink(entity, key);
+			++modifications;
+		}
 	}
 
-	public void removeAll(Class<? extends Entity> class_) {
-		entries.entrySet().removeIf(e -> class_.isAssignableFrom(e.getValue().getClass()));
+	/**
+	 * Removes the entity under all its keys.
+	 *
+	 * @param entity entity
+	 * @return if the entity was contained
+	 */
+	public synchronized boolean removeEntity(Entity entity) {
+		List<String> keys = keysByEntity.remove(entity);
+		if (keys == null) {
+			return false;
+		}
+		for (String key : keys) {
+			entries.remove(key);
+		}
+		removeFromIndices(entity);
+		++modifications;
+		return true;
+	}
+
+	public synchronized void removeAll(Class<? extends Entity> class_) {
+		for (Entity entity : typeIndex(class_).items()) {
+			removeEntity(entity);
+		}
+	}
+
+	/**
+	 * @return number of modifications (stores and removals) of this map so far
+	 */
+	public long getModificationCount() {
+		return modifications;
 	}
 
 	public boolean contains(String key) {
 		return entries.containsKey(key);
 	}
 
+	/**
+	 * @return number of (distinct) entities in this map
+	 */
+	public int size() {
+		return allEntities.size;
+	}
+
 	public Stream<Entity> all() {
-		return entries.values().stream();
+		return Arrays.stream(allEntities.items());
 	}
 
 	public Stream<Entity> filter(Predicate<? super Entity> predicate) {
-		return entries.values().stream().filter(predicate);
+		return all().filter(predicate);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -53,12 +231,109 @@ public class EntityMap {
 		return (E) entries.get(name);
 	}
 
+	@SuppressWarnings("unchecked")
 	public <E extends Entity> Stream<E> ofClass(Class<E> class_) {
-		return filter(e -> e.getClass().equals(class_)).map(class_::cast);
+		return (Stream<E>) Arrays.stream(classIndex(class_).items());
 	}
 
+	@SuppressWarnings("unchecked")
 	public <E> Stream<E> implementing(Class<E> interface_) {
-		return filter(e -> interface_.isAssignableFrom(e.getClass())).map(interface_::cast);
+		return (Stream<E>) Arrays.stream(typeIndex(interface_).items());
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Performs the given action for each entity.
+	 *
+	 * @param action action
+	 */
+	public void forEach(Consumer<? super Entity> action) {
+		for (Entity entity : allEntities.items()) {
+			action.accept(entity);
+		}
+	}
+
+	/**
+	 * Performs the given action for each entity of exactly the given class.
+	 *
+	 * @param class_ entity class
+	 * @param action action
+	 */
+	@SuppressWarnings("unchecked")
+	public <E extends Entity> void forEachOfClass(Class<E> class_, Consumer<? super E> action) {
+		for (Entity entity : classIndex(class_).items()) {
+			action.accept((E) entity);
+		}
+	}
+
+	/**
+	 * Performs the given action for each entity which is an instance of the given type.
+	 *
+	 * @param interface_ class or interface
+	 * @param action     action
+	 */
+	@SuppressWarnings("unchecked")
+	public <E> void forEachImplementing(Class<E> interface_, Consumer<? super E> action) {
+		for (Entity entity : typeIndex(interface_).items()) {
+			action.accept((E) entity);
+		}
+	}
+
+	private TypeIndex classIndex(Class<?> class_) {
+		TypeIndex index = classIndices.get(class_);
+		return index != null ? index : createIndex(classIndices, class_);
+	}
+
+	private TypeIndex typeIndex(Class<?> type) {
+		TypeIndex index = typeIndices.get(type);
+		return index != null ? index : createIndex(typeIndices, type);
+	}
+
+	private synchronized TypeIndex createIndex(Map<Class<?>, TypeIndex> indices, Class<?> type) {
+		TypeIndex index = indices.get(type);
+		if (index == null) {
+			index = new TypeIndex();
+			for (Entity entity : allEntities.items()) {
+				if (indices == classIndices ? entity.getClass() == type : type.isInstance(entity)) {
+					index.add(entity);
+				}
+			}
+			indices.put(type, index);
+		}
+		return index;
+	}
+
+	private void unlink(Entity entity, String key) {
+		List<String> keys = keysByEntity.get(entity);
+		keys.remove(key);
+		if (keys.isEmpty()) {
+			keysByEntity.remove(entity);
+			removeFromIndices(entity);
+		}
+	}
+
+	private void addToIndices(Entity entity) {
+		allEntities.add(entity);
+		TypeIndex classIndex = classIndices.get(entity.getClass());
+		if (classIndex != null) {
+			classIndex.add(entity);
+		}
+		typeIndices.forEach((type, index) -> {
+			if (type.isInstance(entity)) {
+				index.add(entity);
+			}
+		});
+	}
+
+	private void removeFromIndices(Entity entity) {
+		allEntities.remove(entity);
+		TypeIndex classIndex = classIndices.get(entity.getClass());
+		if (classIndex != null) {
+			classIndex.remove(entity);
+		}
+		typeIndices.forEach((type, index) -> {
+			if (type.isInstance(entity)) {
+				index.remove(entity);
+			}
+		});
+	}
+}
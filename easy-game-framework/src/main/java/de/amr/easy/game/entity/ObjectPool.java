@@ -0,0 +1,193 @@
+package de.amr.easy.game.entity;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import de.amr.easy.game.controller.Lifecycle;
+
+/**
+ * A pool of reusable objects, e.g. bullets or particles which are created and discarded all the
+ * time.
+ * <p>
+ * {@link #acquire()} returns a free object of the pool or creates a new one if the pool is empty.
+ * {@link #release(Object)} returns an object to the pool. If the pool already holds as many free
+ * objects as its capacity allows, the object is discarded. Lifecycle hooks are called as follows:
+ * <ul>
+ * <li>on acquire: {@link Lifecycle#init()} for objects implementing {@link Lifecycle}
+ * <li>on release: {@link Lifecycle#exit()} for objects implementing {@link Lifecycle}, then
+ * {@link Poolable#reset()} for objects implementing {@link Poolable}
+ * </ul>
+ * Entities can be added to and removed from an entity map together with acquiring and releasing
+ * them, see {@link EntityMap#spawn(ObjectPool)} and {@link EntityMap#despawn(Entity, ObjectPool)}.
+ * <p>
+ * The pool keeps statistics about hits (acquires served by a pooled object), misses and the number
+ * of outstanding objects. It can be used from several threads.
+ *
+ * @param <T> object type
+ *
+ * @author Armin Reichert
+ */
+public class ObjectPool<T> {
+
+	private final String name;
+	private final Supplier<? extends T> factory;
+	private final int capacity;
+	private final Object[] free;
+	private int freeCount;
+
+	// statistics
+	private long acquires;
+	private long hits;
+	private long releases;
+	private long discarded;
+	private int outstanding;
+	private int peakOutstanding;
+
+	/**
+	 * Creates a pool.
+	 *
+	 * @param name     pool name used in statistics
+	 * @param factory  creates new objects
+	 * @param capacity maximum number of free objects kept in the pool
+	 */
+	public ObjectPool(String name, Supplier<? extends T> factory, int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Pool capacity must not be negative, is " + capacity);
+		}
+		this.name = Objects.requireNonNull(name);
+		this.factory = Objects.requireNonNull(factory);
+		this.capacity = capacity;
+		free = new Object[capacity];
+	}
+
+	/**
+	 * Fills the pool with new objects up to the given number of free objects, e.g. when a level is
+	 * loaded.
+	 *
+	 * @param count number of free objects
+	 */
+	public synchronized void prefill(int count) {
+		while (freeCount < Math.min(count, capacity)) {
+			free[freeCount++] = factory.get();
+		}
+	}
+
+	/**
+	 * Returns a free object from the pool or a new object if the pool is empty. Objects implementing
+	 * {@link Lifecycle} are initialized.
+	 *
+	 * @return object
+	 */
+	@SuppressWarnings("unchecked")
+	public T acquire() {
+		T object = null;
+		synchronized (this) {
+			++acquires;
+			if (freeCount > 0) {
+				object = (T) free[--freeCount];
+				free[freeCount] = null;
+				++hits;
+			}
+			peakOutstanding = Math.max(peakOutstanding, ++outstanding);
+		}
+		if (object == null) {
+			object = factory.get();
+		}
+		if (object instanceof Lifecycle lifecycle) {
+			lifecycle.init();
+		}
+		return object;
+	}
+
+	/**
+	 * Returns an object to the pool. The object must have been acquired from this pool and must not
+	 * be used after being released.
+	 *
+	 * @param object object
+	 */
+	public void release(T object) {
+		Objects.requireNonNull(object);
+		synchronized (this) {
+			if (outstanding == 0) {
+				throw new IllegalStateException("More objects released than acquired in pool " + name);
+			}
+			--outstanding;
+		}
+		if (object instanceof Lifecycle lifecycle) {
+			lifecycle.exit();
+		}
+		if (object instanceof Poolable poolable) {
+			poolable.reset();
+		}
+		synchronized (this) {
+			++releases;
+			if (freeCount < capacity) {
+				free[freeCount++] = object;
+			} else {
+				++discarded;
+			}
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public synchronized int getFreeCount() {
+		return freeCount;
+	}
+
+	public synchronized long getAcquireCount() {
+		return acquires;
+	}
+
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	public synchronized long getMissCount() {
+		return acquires - hits;
+	}
+
+	public synchronized long getReleaseCount() {
+		return releases;
+	}
+
+	/**
+	 * @return number of released objects discarded because the pool was full
+	 */
+	public synchronized long getDiscardedCount() {
+		return discarded;
+	}
+
+	/**
+	 * @return fraction of acquires served by a pooled object (0..1)
+	 */
+	public synchronized double getHitRate() {
+		return acquires == 0 ? 0 : (double) hits / acquires;
+	}
+
+	/**
+	 * @return number of acquired objects not released yet
+	 */
+	public synchronized int getOutstanding() {
+		return outstanding;
+	}
+
+	/**
+	 * @return maximum number of outstanding objects so far
+	 */
+	public synchronized int getPeakOutstanding() {
+		return peakOutstanding;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("%s: hit rate %.1f%%, %d outstanding (peak %d), %d/%d free, %d discarded", name,
+				100 * getHitRate(), outstanding, peakOutstanding, freeCount, capacity, discarded);
+	}
+}
@@ -0,0 +1,79 @@
+package de.amr.easy.game.entity;
+
+import static de.amr.easy.game.Application.loginfo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Object pools by type, each with its own capacity limit.
+ *
+ * @author Armin Reichert
+ */
+public class ObjectPools {
+
+	private final Map<Class<?>, ObjectPool<?>> pools = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the pool for the given type.
+	 *
+	 * @param type     object type, objects are released to the pool of their class
+	 * @param factory  creates new objects
+	 * @param capacity maximum number of free objects kept in the pool
+	 * @return the pool
+	 */
+	public <T> ObjectPool<T> register(Class<T> type, Supplier<? extends T> factory, int capacity) {
+		ObjectPool<T> pool = new ObjectPool<>(type.getSimpleName(), factory, capacity);
+		if (pools.putIfAbsent(type, pool) != null) {
+			throw new IllegalStateException("Pool for type already exists: " + type.getName());
+		}
+		return pool;
+	}
+
+	/**
+	 * @param type object type
+	 * @return the pool for this type
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> ObjectPool<T> pool(Class<T> type) {
+		ObjectPool<T> pool = (ObjectPool<T>) pools.get(type);
+		if (pool == null) {
+			throw new IllegalArgumentException("No pool registered for type " + type.getName());
+		}
+		return pool;
+	}
+
+	/**
+	 * @param type object type
+	 * @return object from the pool for this type
+	 */
+	public <T> T acquire(Class<T> type) {
+		return pool(type).acquire();
+	}
+
+	/**
+	 * Returns the object to the pool of its class.
+	 *
+	 * @param object object
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> void release(T object) {
+		pool((Class<T>) object.getClass()).release(object);
+	}
+
+	/**
+	 * @return all pools
+	 */
+	public Stream<ObjectPool<?>> pools() {
+		return pools.values().stream();
+	}
+
+	/**
+	 * Writes the statistics of all pools to the application log.
+	 */
+	public void logStatistics() {
+		pools().forEach(pool -> loginfo("%s", pool));
+	}
+}
@@ -0,0 +1,15 @@
+package de.amr.easy.game.entity;
+
+/**
+ * Implemented by objects which must be reset when they are returned to an {@link ObjectPool}.
+ * 
+ * @author Armin Reichert
+ */
+public interface Poolable {
+
+	/**
+	 * Called when the object is released to its pool. Must bring the object into the state of a newly
+	 * created object, e.g. clear references to other objects.
+	 */
+	void reset();
+}
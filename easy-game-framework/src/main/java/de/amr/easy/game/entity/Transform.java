@@ -4,10 +4,15 @@ import static de.amr.easy.game.math.V2f.v;
 
 import java.awt.geom.Rectangle2D;
 
+import de.amr.easy.game.math.MutableV2f;
 import de.amr.easy.game.math.V2f;
 
 /**
  * Encapsulates size, position, velocity and rotation of an entity.
+ * <p>
+ * The vector-valued getters create a new vector on each call. Code running many times per frame
+ * should use the primitive accessors like {@link #getCenterX()} or the methods storing into a
+ * {@link MutableV2f} like {@link #positionInto(MutableV2f)}.
  * 
  * @author Armin Reichert
  */
@@ -84,7 +89,66 @@ public class Transform {
 	 * @return center position vector
 	 */
 	public V2f getCenter() {
-		return v(x + width / 2, y + height / 2);
+		return v(getCenterX(), getCenterY());
+	}
+
+	/**
+	 * @return x-coordinate of the center position
+	 */
+	public float getCenterX() {
+		return x + width / 2;
+	}
+
+	/**
+	 * @return y-coordinate of the center position
+	 */
+	public float getCenterY() {
+		return y + height / 2;
+	}
+
+	/**
+	 * Stores the position into the given vector.
+	 * 
+	 * @param out result vector
+	 * @return the result vector
+	 */
+	public MutableV2f positionInto(MutableV2f out) {
+		return out.set(x, y);
+	}
+
+	/**
+	 * Stores the center position into the given vector.
+	 * 
+	 * @param out result vector
+	 * @return the result vector
+	 */
+	public MutableV2f centerInto(MutableV2f out) {
+		return out.set(getCenterX(), getCenterY());
+	}
+
+	/**
+	 * Stores the velocity into the given vector.
+	 * 
+	 * @param out result vector
+	 * @return the result vector
+	 */
+	public MutableV2f velocityInto(MutableV2f out) {
+		return out.set(vx, vy);
+	}
+
+	/**
+	 * @return squared speed (length of velocity vector)
+	 */
+	public float getSpeedSq() {
+		return V2f.lengthSq(vx, vy);
+	}
+
+	/**
+	 * @param other other transform
+	 * @return squared Euclidean distance between the centers
+	 */
+	public float centerDistSq(Transform other) {
+		return V2f.distSq(getCenterX(), getCenterY(), other.getCenterX(), other.getCenterY());
 	}
 
 	/**
@@ -0,0 +1,458 @@
+package de.amr.easy.game.entity;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Stores the transform data (position, velocity, size, rotation) of many objects in packed
+ * primitive arrays ("structure of arrays").
+ * <p>
+ * Each object is identified by a stable handle. The data of all objects is kept densely packed in
+ * the index range {@code [0, size())} of the arrays returned by {@link #x()}, {@link #y()} etc.
+ * When an object is released, the last object is moved into its place, so the index of an object
+ * can change, its handle does not. Handles of released objects become invalid, also when their
+ * slot is reused. Each slot counts its reuses in 11 bits of the handle, so a released handle only
+ * becomes valid again after its slot has been reused 2048 times.
+ * <p>
+ * Bulk systems like {@link #move()} or the bounds queries run as tight loops over the arrays. To
+ * use the store with existing code working with {@link Transform} objects, entities can be
+ * {@link #attach(Entity) attached}: {@link #loadTransforms()} copies the transforms of the attached
+ * entities into the store, {@link #storeTransforms()} copies the store content back, e.g. before
+ * collision detection and rendering.
+ * <p>
+ * A store must be used from a single thread.
+ *
+ * @author Armin Reichert
+ */
+public class TransformStore {
+
+	private static final int SLOT_BITS = 20;
+	private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+	private static final int GENERATION_MASK = (1 << 31 - SLOT_BITS) - 1; // handles are not negative
+	private static final int MAX_OBJECTS = 1 << SLOT_BITS;
+
+	// packed data
+	private float[] xs, ys, vxs, vys, widths, heights, rotations;
+	private int[] slotOfIndex;
+	private Entity[] attached;
+	private int size;
+
+	// slots
+	private int[] indexOfSlot;
+	private int[] generations;
+	private int[] freeSlots;
+	private int freeCount;
+	private int slotCount;
+
+	/**
+	 * Creates a store with the given initial capacity.
+	 *
+	 * @param capacity initial number of objects
+	 */
+	public TransformStore(int capacity) {
+		if (capacity < 1 || capacity > MAX_OBJECTS) {
+			throw new IllegalArgumentException("Illegal capacity: " + capacity);
+		}
+		xs = new float[capacity];
+		ys = new float[capacity];
+		vxs = new float[capacity];
+		vys = new float[capacity];
+		widths = new float[capacity];
+		heights = new float[capacity];
+		rotations = new float[capacity];
+		slotOfIndex = new int[capacity];
+		attached = new Entity[capacity];
+		indexOfSlot = new int[capacity];
+		generations = new int[capacity];
+		freeSlots = new int[capacity];
+	}
+
+	/**
+	 * Creates a store with an initial capacity of 256 objects.
+	 */
+	public TransformStore() {
+		this(256);
+	}
+
+	/**
+	 * Adds an object with all values zero.
+	 *
+	 * @return handle of the new object
+	 */
+	public int create() {
+		if (size == xs.length) {
+			grow();
+		}
+		int slot = freeCount > 0 ? freeSlots[--freeCount] : slotCount++;
+		int index = size++;
+		indexOfSlot[slot] = index;
+		slotOfIndex[index] = slot;
+		xs[index] = ys[index] = vxs[index] = vys[index] = widths[index] = heights[index] = rotations[index] = 0;
+		attached[index] = null;
+		return generations[slot] << SLOT_BITS | slot;
+	}
+
+	/**
+	 * Adds an object initialized from the given transform.
+	 *
+	 * @param tf transform
+	 * @return handle of the new object
+	 */
+	public int create(Transform tf) {
+		int handle = create();
+		read(handle, tf);
+		return handle;
+	}
+
+	/**
+	 * Adds an object for the given entity. Its transform is copied into the store and it is updated by
+	 * {@link #loadTransforms()} and {@link #storeTransforms()}.
+	 *
+	 * @param entity entity
+	 * @return handle of the new object
+	 */
+	public int attach(Entity entity) {
+		int handle = create(entity.tf);
+		attached[size - 1] = entity;
+		return handle;
+	}
+
+	/**
+	 * Removes the object with the given handle. The handle becomes invalid.
+	 *
+	 * @param handle object handle
+	 */
+	public void release(int handle) {
+		int index = indexOf(handle);
+		int slot = handle & SLOT_MASK;
+		int last = --size;
+		if (index != last) {
+			xs[index] = xs[last];
+			ys[index] = ys[last];
+			vxs[index] = vxs[last];
+			vys[index] = vys[last];
+			widths[index] = widths[last];
+			heights[index] = heights[last];
+			rotations[index] = rotations[last];
+			attached[index] = attached[last];
+			slotOfIndex[index] = slotOfIndex[last];
+			indexOfSlot[slotOfIndex[index]] = index;
+		}
+		attached[last] = null;
+		generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+		freeSlots[freeCount++] = slot;
+	}
+
+	/**
+	 * Removes all objects. All handles become invalid.
+	 */
+	public void clear() {
+		while (size > 0) {
+			release(handleAt(size - 1));
+		}
+	}
+
+	private void grow() {
+		if (xs.length == MAX_OBJECTS) {
+			throw new IllegalStateException("Transform store is full");
+		}
+		int capacity = Math.min(2 * xs.length, MAX_OBJECTS);
+		xs = Arrays.copyOf(xs, capacity);
+		ys = Arrays.copyOf(ys, capacity);
+		vxs = Arrays.copyOf(vxs, capacity);
+		vys = Arrays.copyOf(vys, capacity);
+		widths = Arrays.copyOf(widths, capacity);
+		heights = Arrays.copyOf(heights, capacity);
+		rotations = Arrays.copyOf(rotations, capacity);
+		slotOfIndex = Arrays.copyOf(slotOfIndex, capacity);
+		attached = Arrays.copyOf(attached, capacity);
+		indexOfSlot = Arrays.copyOf(indexOfSlot, capacity);
+		generations = Arrays.copyOf(generations, capacity);
+		freeSlots = Arrays.copyOf(freeSlots, capacity);
+	}
+
+	/**
+	 * @return number of objects
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param handle object handle
+	 * @return if the handle denotes an object of this store
+	 */
+	public boolean isValid(int handle) {
+		int slot = handle & SLOT_MASK;
+		return handle >= 0 && slot < slotCount && generations[slot] == handle >>> SLOT_BITS
+				&& indexOfSlot[slot] < size && slotOfIndex[indexOfSlot[slot]] == slot;
+	}
+
+	/**
+	 * @param handle object handle
+	 * @return current index of the object in the packed arrays
+	 */
+	public int indexOf(int handle) {
+		if (!isValid(handle)) {
+			throw new IllegalArgumentException("Invalid handle: " + handle);
+		}
+		return indexOfSlot[handle & SLOT_MASK];
+	}
+
+	/**
+	 * @param index index in the packed arrays
+	 * @return handle of the object at this index
+	 */
+	public int handleAt(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		int slot = slotOfIndex[index];
+		return generations[slot] << SLOT_BITS | slot;
+	}
+
+	/**
+	 * @param index index in the packed arrays
+	 * @return entity attached at this index or {@code null}
+	 */
+	public Entity attachedAt(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		return attached[index];
+	}
+
+	// Packed arrays, valid in the index range [0, size()). They are replaced when the store grows.
+
+	public float[] x() {
+		return xs;
+	}
+
+	public float[] y() {
+		return ys;
+	}
+
+	public float[] vx() {
+		return vxs;
+	}
+
+	public float[] vy() {
+		return vys;
+	}
+
+	public float[] width() {
+		return widths;
+	}
+
+	public float[] height() {
+		return heights;
+	}
+
+	public float[] rotation() {
+		return rotations;
+	}
+
+	// Access by handle
+
+	public float getX(int handle) {
+		return xs[indexOf(handle)];
+	}
+
+	public float getY(int handle) {
+		return ys[indexOf(handle)];
+	}
+
+	public float getVelocityX(int handle) {
+		return vxs[indexOf(handle)];
+	}
+
+	public float getVelocityY(int handle) {
+		return vys[indexOf(handle)];
+	}
+
+	public float getWidth(int handle) {
+		return widths[indexOf(handle)];
+	}
+
+	public float getHeight(int handle) {
+		return heights[indexOf(handle)];
+	}
+
+	public float getRotation(int handle) {
+		return rotations[indexOf(handle)];
+	}
+
+	public void setPosition(int handle, float x, float y) {
+		int index = indexOf(handle);
+		xs[index] = x;
+		ys[index] = y;
+	}
+
+	public void setVelocity(int handle, float vx, float vy) {
+		int index = indexOf(handle);
+		vxs[index] = vx;
+		vys[index] = vy;
+	}
+
+	public void setSize(int handle, float width, float height) {
+		int index = indexOf(handle);
+		widths[index] = width;
+		heights[index] = height;
+	}
+
+	public void setRotation(int handle, float rotation) {
+		rotations[indexOf(handle)] = rotation;
+	}
+
+	/**
+	 * Copies the given transform into the object with the given handle.
+	 *
+	 * @param handle object handle
+	 * @param tf     transform
+	 */
+	public void read(int handle, Transform tf) {
+		readAt(indexOf(handle), tf);
+	}
+
+	/**
+	 * Copies the object with the given handle into the given transform. Width and height are rounded.
+	 *
+	 * @param handle object handle
+	 * @param tf     transform
+	 */
+	public void write(int handle, Transform tf) {
+		writeAt(indexOf(handle), tf);
+	}
+
+	private void readAt(int i, Transform tf) {
+		xs[i] = tf.x;
+		ys[i] = tf.y;
+		vxs[i] = tf.vx;
+		vys[i] = tf.vy;
+		widths[i] = tf.width;
+		heights[i] = tf.height;
+		rotations[i] = (float) tf.rotation;
+	}
+
+	private void writeAt(int i, Transform tf) {
+		tf.x = xs[i];
+		tf.y = ys[i];
+		tf.vx = vxs[i];
+		tf.vy = vys[i];
+		tf.width = Math.round(widths[i]);
+		tf.height = Math.round(heights[i]);
+		tf.rotation = rotations[i];
+	}
+
+	/**
+	 * Copies the transforms of all attached entities into the store.
+	 */
+	public void loadTransforms() {
+		for (int i = 0; i < size; ++i) {
+			if (attached[i] != null) {
+				readAt(i, attached[i].tf);
+			}
+		}
+	}
+
+	/**
+	 * Copies the store content into the transforms of all attached entities.
+	 */
+	public void storeTransforms() {
+		for (int i = 0; i < size; ++i) {
+			if (attached[i] != null) {
+				writeAt(i, attached[i].tf);
+			}
+		}
+	}
+
+	// Bulk systems
+
+	/**
+	 * Moves all objects one step using their velocity.
+	 */
+	public void move() {
+		float[] x = xs, y = ys, vx = vxs, vy = vys;
+		for (int i = 0; i < size; ++i) {
+			x[i] += vx[i];
+			y[i] += vy[i];
+		}
+	}
+
+	/**
+	 * Moves all objects by their velocity scaled by the given factor.
+	 *
+	 * @param dt velocity scaling, e.g. the elapsed time in ticks
+	 */
+	public void move(float dt) {
+		float[] x = xs, y = ys, vx = vxs, vy = vys;
+		for (int i = 0; i < size; ++i) {
+			x[i] += vx[i] * dt;
+			y[i] += vy[i] * dt;
+		}
+	}
+
+	/**
+	 * Calls the given action with the handle of each object whose box is not completely inside the
+	 * given bounds. The action must not create or release objects.
+	 *
+	 * @param minX   left bound
+	 * @param minY   top bound
+	 * @param maxX   right bound
+	 * @param maxY   bottom bound
+	 * @param action action called with the object handle
+	 */
+	public void forEachOutside(float minX, float minY, float maxX, float maxY, IntConsumer action) {
+		float[] x = xs, y = ys, w = widths, h = heights;
+		for (int i = 0; i < size; ++i) {
+			if (x[i] < minX || y[i] < minY || x[i] + w[i] > maxX || y[i] + h[i] > maxY) {
+				action.accept(handleAt(i));
+			}
+		}
+	}
+
+	/**
+	 * Calls the given action with the handle of each object whose box overlaps the given rectangle.
+	 * The action must not create or release objects.
+	 *
+	 * @param left   rectangle left
+	 * @param top    rectangle top
+	 * @param width  rectangle width
+	 * @param height rectangle height
+	 * @param action action called with the object handle
+	 */
+	public void forEachOverlapping(float left, float top, float width, float height, IntConsumer action) {
+		float right = left + width, bottom = top + height;
+		float[] x = xs, y = ys, w = widths, h = heights;
+		for (int i = 0; i < size; ++i) {
+			if (x[i] < right && x[i] + w[i] > left && y[i] < bottom && y[i] + h[i] > top) {
+				action.accept(handleAt(i));
+			}
+		}
+	}
+
+	/**
+	 * Computes the bounding box of all objects (broad phase helper).
+	 *
+	 * @param bounds array receiving {@code minX, minY, maxX, maxY}, all zero if the store is empty
+	 */
+	public void bounds(float[] bounds) {
+		if (size == 0) {
+			Arrays.fill(bounds, 0, 4, 0);
+			return;
+		}
+		float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+		float[] x = xs, y = ys, w = widths, h = heights;
+		for (int i = 0; i < size; ++i) {
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxX = Math.max(maxX, x[i] + w[i]);
+			maxY = Math.max(maxY, y[i] + h[i]);
+		}
+		bounds[0] = minX;
+		bounds[1] = minY;
+		bounds[2] = maxX;
+		bounds[3] = maxY;
+	}
+}
@@ -0,0 +1,84 @@
+package de.amr.easy.game.entity.collision;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * A collider known to the {@link CollisionHandler}, either because it is part of a registered pair
+ * or because it has been added for the layer rules.
+ *
+ * @author Armin Reichert
+ */
+final class Body {
+
+	final Collider collider;
+
+	/** Tells if the collision box is given by the transform of the entity. */
+	final boolean transformBox;
+
+	/** Index in the body table of the handler, changes when other bodies are removed. */
+	int slot;
+
+	/** Number of registered pairs referencing this body. */
+	int pairCount;
+
+	/** Tells if this body takes part in the layer rules. */
+	boolean layered;
+
+	/** Layer contacts of this body colliding in the last update. */
+	Contact[] contacts = new Contact[2];
+	int contactCount;
+
+	/** A collision between two layered bodies matching a layer rule. */
+	static final class Contact {
+
+		Body first;
+		Body second;
+		int firstLayer;
+		int secondLayer;
+		long collisionTick = -1;
+		long previousCollisionTick = -1;
+		double timeOfImpact = 1;
+		final Rectangle2D.Float intersection = new Rectangle2D.Float();
+
+		boolean isDead() {
+			return first == null;
+		}
+	}
+
+	Body(Collider collider, boolean transformBox) {
+		this.collider = collider;
+		this.transformBox = transformBox;
+	}
+
+	boolean isUsed() {
+		return pairCount > 0 || layered;
+	}
+
+	Contact findContact(Body other) {
+		for (int i = 0; i < contactCount; ++i) {
+			Contact contact = contacts[i];
+			if (contact.first == other || contact.second == other) {
+				return contact;
+			}
+		}
+		return null;
+	}
+
+	void addContact(Contact contact) {
+		if (contactCount == contacts.length) {
+			contacts = Arrays.copyOf(contacts, 2 * contacts.length);
+		}
+		contacts[contactCount++] = contact;
+	}
+
+	void removeContact(Contact contact) {
+		for (int i = 0; i < contactCount; ++i) {
+			if (contacts[i] == contact) {
+				contacts[i] = contacts[--contactCount];
+				contacts[contactCount] = null;
+				return;
+			}
+		}
+	}
+}
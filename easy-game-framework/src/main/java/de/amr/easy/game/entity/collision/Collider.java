@@ -4,9 +4,40 @@ import java.awt.geom.Rectangle2D;
 
 public interface Collider {
 
+	/** Number of collision layers. */
+	int NUM_LAYERS = 32;
+
 	Rectangle2D getCollisionBox();
 
 	default boolean collidesWith(Collider other) {
 		return getCollisionBox().intersects(other.getCollisionBox());
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @return the collision layer (0-31) of this collider, used by the layer rules of the
+	 *         {@link CollisionHandler}
+	 */
+	default int collisionLayer() {
+		return 0;
+	}
+
+	/**
+	 * @return bit mask of the collision layers this collider can collide with, bit {@code i} stands
+	 *         for layer {@code i}
+	 */
+	default int collisionMask() {
+		return ~0;
+	}
+
+	/**
+	 * Tells if the {@link CollisionHandler} tests this collider along its movement since the last
+	 * update instead of testing only its current position. The movement is given by the velocity of
+	 * the entity's transform and assumed to be applied once per update. Colliders that are not
+	 * entities have no velocity and are always tested at their current position.
+	 * 
+	 * @return if swept collision tests are used for this collider
+	 */
+	default boolean sweptCollision() {
+		return false;
+	}
+}
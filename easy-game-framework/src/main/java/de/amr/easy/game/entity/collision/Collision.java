@@ -2,20 +2,34 @@ package de.amr.easy.game.entity.collision;
 
 import java.awt.geom.Rectangle2D;
 
+/**
+ * A collision event. Events generated by the {@link CollisionHandler} are pooled and only valid until
+ * the next update of the handler.
+ */
 public class Collision {
 
-	private final Collider first;
-	private final Collider second;
-	private final Rectangle2D intersection;
-	private final boolean collisionStart;
-	private final Object appEvent;
+	private Collider first;
+	private Collider second;
+	private Rectangle2D intersection;
+	private boolean collisionStart;
+	private Object appEvent;
+	private double timeOfImpact = 1;
 
 	public Collision(Collider first, Collider second, Rectangle2D intersection, Object appEvent, boolean collisionStart) {
+		set(first, second, intersection, appEvent, collisionStart, 1);
+	}
+
+	Collision() {
+	}
+
+	void set(Collider first, Collider second, Rectangle2D intersection, Object appEvent, boolean collisionStart,
+			double timeOfImpact) {
 		this.first = first;
 		this.second = second;
 		this.intersection = intersection;
 		this.appEvent = appEvent;
 		this.collisionStart = collisionStart;
+		this.timeOfImpact = timeOfImpact;
 	}
 
 	@Override
@@ -44,4 +58,18 @@ public class Collision {
 	public Rectangle2D getIntersection() {
 		return intersection;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Returns the time of impact for swept collision tests (see {@link Collider#sweptCollision()}) as
+	 * fraction of the movement since the last update: 0 means the colliders already overlapped at the
+	 * previous position, 1 means they started overlapping at the current position. If the colliders
+	 * passed through each other during the movement, the intersection is taken at the time of impact.
+	 * For collisions of colliders not using swept tests and for collision end events, the time of
+	 * impact is 1.
+	 * 
+	 * @return time of impact between 0 and 1
+	 */
+	public double getTimeOfImpact() {
+		return timeOfImpact;
+	}
+}
@@ -1,66 +1,328 @@
 package de.amr.easy.game.entity.collision;
 
+import static de.amr.easy.game.entity.collision.Collider.NUM_LAYERS;
+
 import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
+import de.amr.easy.game.entity.Entity;
+import de.amr.easy.game.entity.Transform;
+import de.amr.easy.game.entity.collision.Body.Contact;
+
+/**
+ * Detects collisions between colliders and generates collision start and end events.
+ * <p>
+ * Collisions are defined either by registering pairs of colliders ({@link #registerStart} etc.) or
+ * by layer rules: each collider declares a collision layer and a mask of the layers it can collide
+ * with (see {@link Collider#collisionLayer()}). Colliders taking part in the layer rules are added
+ * using {@link #add(Collider)} and a single rule per layer pair (see {@link #registerLayerStart})
+ * defines the event for all collisions between colliders of these layers. Colliders of a layer pair
+ * collide only if each layer is contained in the other collider's mask. For the layer rules, no
+ * pairs are stored in advance, they are found by the broad phase.
+ * <p>
+ * A spatial hash is used as broad phase: on every update, the collision boxes of all colliders are
+ * inserted into a uniform grid and only colliders sharing a grid cell are tested for intersection.
+ * The cell size should be about the size of the typical collider. A cell size of 0 disables the
+ * broad phase such that every pair is tested.
+ * <p>
+ * Fast moving entities may pass through thin colliders between two updates. For colliders using
+ * swept collision tests (see {@link Collider#sweptCollision()}), the collision boxes are also tested
+ * along their movement since the last update, given by the velocity of the entity's transform. Such
+ * collisions generate the same start and end events, the time of impact is reported by
+ * {@link Collision#getTimeOfImpact()}.
+ * <p>
+ * Once the internal buffers have reached their working size, an update does not allocate memory:
+ * the collision boxes of entities are read directly from their transform, the pair buffers of the
+ * current and the previous update are swapped and collision events are taken from a pool. Therefore
+ * the events returned by {@link #collisions()} are only valid until the next update.
+ *
+ * @author Armin Reichert
+ */
 public class CollisionHandler {
 
-	private final Map<CollisionPair, Object> collisionStarts = new HashMap<>();
-	private final Map<CollisionPair, Object> collisionEnds = new HashMap<>();
-	private final Set<CollisionPair> newCollisions = new HashSet<>();
-	private final Set<CollisionPair> oldCollisions = new HashSet<>();
-	private final Set<Collision> events = new HashSet<>();
+	/** Default size of the broad phase grid cells. */
+	public static final float DEFAULT_CELL_SIZE = 64;
+
+	/** Tells if the collision box of an entity class is given by its transform. */
+	private static final ClassValue<Boolean> TRANSFORM_BOX = new ClassValue<>() {
+
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			try {
+				return Entity.class.isAssignableFrom(type)
+						&& type.getMethod("getCollisionBox").getDeclaringClass() == Entity.class;
+			} catch (NoSuchMethodException x) {
+				return false;
+			}
+		}
+	};
+
+	// registered pairs, indexed by their colliders
+	private final List<CollisionPair> pairs = new ArrayList<>();
+	private final Map<Collider, Map<Collider, CollisionPair>> pairsByCollider = new HashMap<>();
+
+	// pairs colliding in the current and in the previous update, swapped on each update
+	private List<CollisionPair> newCollisions = new ArrayList<>();
+	private List<CollisionPair> oldCollisions = new ArrayList<>();
+	private long tick;
+
+	// layer rules indexed by (first layer, second layer)
+	private final boolean[] layerStartRules = new boolean[NUM_LAYERS * NUM_LAYERS];
+	private final boolean[] layerEndRules = new boolean[NUM_LAYERS * NUM_LAYERS];
+	private final Object[] layerStartEvents = new Object[NUM_LAYERS * NUM_LAYERS];
+	private final Object[] layerEndEvents = new Object[NUM_LAYERS * NUM_LAYERS];
+
+	// layer contacts colliding in the current and in the previous update, swapped on each update
+	private List<Contact> newContacts = new ArrayList<>();
+	private List<Contact> oldContacts = new ArrayList<>();
+	private final List<Contact> contactPool = new ArrayList<>();
+
+	private final List<Collision> events = new ArrayList<>();
+	private final List<Collision> eventsView = Collections.unmodifiableList(events);
+	private final List<Collision> eventPool = new ArrayList<>();
+
+	// bodies with their collision box (minX, minY, maxX, maxY), sweep velocity (vx, vy), layer and mask
+	// of the current update
+	private final Map<Collider, Body> bodiesByCollider = new HashMap<>();
+	private Body[] bodies = new Body[16];
+	private int bodyCount;
+	private double[] boxes = new double[4 * 16];
+	private float[] velocities = new float[2 * 16];
+	private int[] layers = new int[16];
+	private int[] masks = new int[16];
+
+	// broad phase
+	private final SpatialHashGrid grid = new SpatialHashGrid(DEFAULT_CELL_SIZE);
+	private final SpatialHashGrid.PairVisitor candidateTest = this::testCandidates;
+	private boolean broadPhaseEnabled = true;
+
+	// result of the last intersection test
+	private double hitMinX, hitMinY, hitMaxX, hitMaxY, hitTime;
+	private double sweepEntry, sweepExit;
+
+	public CollisionHandler() {
+	}
+
+	/**
+	 * Creates a collision handler with the given broad phase cell size.
+	 *
+	 * @param cellSize grid cell size, 0 disables the broad phase
+	 */
+	public CollisionHandler(float cellSize) {
+		setCellSize(cellSize);
+	}
+
+	/**
+	 * Sets the cell size of the broad phase grid.
+	 *
+	 * @param cellSize grid cell size, 0 disables the broad phase
+	 */
+	public void setCellSize(float cellSize) {
+		if (cellSize < 0) {
+			throw new IllegalArgumentException("Cell size must not be negative, is " + cellSize);
+		}
+		broadPhaseEnabled = cellSize > 0;
+		if (broadPhaseEnabled) {
+			grid.setCellSize(cellSize);
+		}
+	}
+
+	/**
+	 * @return the cell size of the broad phase grid, 0 if the broad phase is disabled
+	 */
+	public float getCellSize() {
+		return broadPhaseEnabled ? (float) grid.getCellSize() : 0;
+	}
 
 	public void registerStart(Collider x, Collider y, Object event) {
-		collisionStarts.put(new CollisionPair(x, y), event);
+		CollisionPair pair = indexedPair(x, y);
+		pair.startRegistered = true;
+		pair.startEvent = event;
 	}
 
 	public void registerEnd(Collider x, Collider y, Object event) {
-		collisionEnds.put(new CollisionPair(x, y), event);
+		CollisionPair pair = indexedPair(x, y);
+		pair.endRegistered = true;
+		pair.endEvent = event;
 	}
 
 	public void unregisterStart(Collider x, Collider y) {
-		collisionStarts.remove(new CollisionPair(x, y));
+		CollisionPair pair = findPair(x, y);
+		if (pair != null) {
+			pair.startRegistered = false;
+			pair.startEvent = null;
+			removeIfUnused(pair);
+		}
 	}
 
 	public void unregisterEnd(Collider x, Collider y) {
-		collisionEnds.remove(new CollisionPair(x, y));
+		CollisionPair pair = findPair(x, y);
+		if (pair != null) {
+			pair.endRegistered = false;
+			pair.endEvent = null;
+			removeIfUnused(pair);
+		}
+	}
+
+	/**
+	 * Adds a collider taking part in the layer rules.
+	 *
+	 * @param collider a collider
+	 */
+	public void add(Collider collider) {
+		body(collider).layered = true;
 	}
 
+	/**
+	 * Removes a collider from the layer rules. Its current layer collisions end without end events.
+	 *
+	 * @param collider a collider
+	 */
+	public void remove(Collider collider) {
+		Body body = bodiesByCollider.get(collider);
+		if (body == null || !body.layered) {
+			return;
+		}
+		body.layered = false;
+		for (int i = 0; i < body.contactCount; ++i) {
+			Contact contact = body.contacts[i];
+			(contact.first == body ? contact.second : contact.first).removeContact(contact);
+			contact.first = contact.second = null;
+			body.contacts[i] = null;
+		}
+		body.contactCount = 0;
+		removeIfUnused(body);
+	}
+
+	/**
+	 * @param collider a collider
+	 * @return if the collider takes part in the layer rules
+	 */
+	public boolean contains(Collider collider) {
+		Body body = bodiesByCollider.get(collider);
+		return body != null && body.layered;
+	}
+
+	/**
+	 * Registers the event generated when colliders of the given layers start colliding. The first
+	 * collider of the collision is the one from the first layer.
+	 *
+	 * @param firstLayer  first layer
+	 * @param secondLayer second layer
+	 * @param event       application event
+	 */
+	public void registerLayerStart(int firstLayer, int secondLayer, Object event) {
+		int rule = layerRule(firstLayer, secondLayer);
+		layerStartRules[rule] = true;
+		layerStartEvents[rule] = event;
+	}
+
+	/**
+	 * Registers the event generated when colliders of the given layers stop colliding. The first
+	 * collider of the collision is the one from the first layer.
+	 *
+	 * @param firstLayer  first layer
+	 * @param secondLayer second layer
+	 * @param event       application event
+	 */
+	public void registerLayerEnd(int firstLayer, int secondLayer, Object event) {
+		int rule = layerRule(firstLayer, secondLayer);
+		layerEndRules[rule] = true;
+		layerEndEvents[rule] = event;
+	}
+
+	public void unregisterLayerStart(int firstLayer, int secondLayer) {
+		int rule = layerRule(firstLayer, secondLayer);
+		layerStartRules[rule] = false;
+		layerStartEvents[rule] = null;
+	}
+
+	public void unregisterLayerEnd(int firstLayer, int secondLayer) {
+		int rule = layerRule(firstLayer, secondLayer);
+		layerEndRules[rule] = false;
+		layerEndEvents[rule] = null;
+	}
+
+	/**
+	 * @return the collision events of the last update, valid until the next update
+	 */
 	public Iterable<Collision> collisions() {
-		return events;
+		return eventsView;
 	}
 
 	public void update() {
-		oldCollisions.clear();
-		oldCollisions.addAll(newCollisions);
+		++tick;
+		List<CollisionPair> swap = oldCollisions;
+		oldCollisions = newCollisions;
+		newCollisions = swap;
 		newCollisions.clear();
-		events.clear();
-		for (CollisionPair pair : collisionStarts.keySet()) {
-			if (checkCollision(pair)) {
-				newCollisions.add(pair);
+		List<Contact> swapContacts = oldContacts;
+		oldContacts = newContacts;
+		newContacts = swapContacts;
+		newContacts.clear();
+		releaseEvents();
+		readBodies();
+		if (broadPhaseEnabled) {
+			grid.clear();
+			for (int i = 0; i < bodyCount; ++i) {
+				int b = 4 * i;
+				float vx = velocities[2 * i], vy = velocities[2 * i + 1];
+				if (vx == 0 && vy == 0) {
+					grid.insert(i, boxes[b], boxes[b + 1], boxes[b + 2], boxes[b + 3]);
+				} else {
+					// insert the area covered by the movement since the last update
+					grid.insert(i, Math.min(boxes[b], boxes[b] - vx), Math.min(boxes[b + 1], boxes[b + 1] - vy),
+							Math.max(boxes[b + 2], boxes[b + 2] - vx), Math.max(boxes[b + 3], boxes[b + 3] - vy));
+				}
+			}
+			grid.forEachCandidatePair(candidateTest);
+		} else {
+			for (int i = 0; i < pairs.size(); ++i) {
+				testPair(pairs.get(i));
+			}
+			for (int i = 0; i < bodyCount; ++i) {
+				for (int j = i + 1; j < bodyCount; ++j) {
+					if (bodies[i].layered && bodies[j].layered) {
+						testLayers(bodies[i], bodies[j]);
+					}
+				}
 			}
 		}
-		for (CollisionPair pair : collisionEnds.keySet()) {
-			if (checkCollision(pair)) {
-				newCollisions.add(pair);
+		for (int i = 0; i < newCollisions.size(); ++i) {
+			CollisionPair pair = newCollisions.get(i);
+			if (pair.startRegistered && pair.previousCollisionTick != tick - 1) {
+				addEvent(pair.either(), pair.other(), pair.getIntersection(), pair.startEvent, true, pair.timeOfImpact);
 			}
 		}
-		for (CollisionPair pair : collisionStarts.keySet()) {
-			if (newCollisions.contains(pair) && !oldCollisions.contains(pair)) {
-				Collision event = new Collision(pair.either(), pair.other(), pair.getIntersection(), collisionStarts.get(pair),
-						true);
-				events.add(event);
+		for (int i = 0; i < newContacts.size(); ++i) {
+			Contact contact = newContacts.get(i);
+			if (contact.previousCollisionTick != tick - 1) {
+				addLayerEvent(contact, layerStartRules, layerStartEvents, true);
 			}
 		}
-		for (CollisionPair pair : collisionEnds.keySet()) {
-			if (!newCollisions.contains(pair) && oldCollisions.contains(pair)) {
-				Collision event = new Collision(pair.either(), pair.other(), pair.getIntersection(), collisionEnds.get(pair),
-						false);
-				events.add(event);
+		for (int i = 0; i < oldCollisions.size(); ++i) {
+			CollisionPair pair = oldCollisions.get(i);
+			if (pair.collisionTick != tick) {
+				if (pair.endRegistered) {
+					addEvent(pair.either(), pair.other(), pair.getIntersection(), pair.endEvent, false, 1);
+				}
+				removeIfUnused(pair);
+			}
+		}
+		for (int i = 0; i < oldContacts.size(); ++i) {
+			Contact contact = oldContacts.get(i);
+			if (contact.collisionTick != tick) {
+				if (!contact.isDead()) {
+					addLayerEvent(contact, layerEndRules, layerEndEvents, false);
+					contact.first.removeContact(contact);
+					contact.second.removeContact(contact);
+				}
+				releaseContact(contact);
 			}
 		}
 	}
@@ -68,17 +330,317 @@ public class CollisionHandler {
 	public void clear() {
 		newCollisions.clear();
 		oldCollisions.clear();
+		newContacts.clear();
+		oldContacts.clear();
+		releaseEvents();
+		for (CollisionPair pair : pairs) {
+			pair.index = -1;
+		}
+		pairs.clear();
+		pairsByCollider.clear();
+		Arrays.fill(bodies, 0, bodyCount, null);
+		bodyCount = 0;
+		bodiesByCollider.clear();
+		Arrays.fill(layerStartRules, false);
+		Arrays.fill(layerEndRules, false);
+		Arrays.fill(layerStartEvents, null);
+		Arrays.fill(layerEndEvents, null);
+	}
+
+	private static int layerRule(int firstLayer, int secondLayer) {
+		if (firstLayer < 0 || firstLayer >= NUM_LAYERS) {
+			throw new IllegalArgumentException("Illegal collision layer: " + firstLayer);
+		}
+		if (secondLayer < 0 || secondLayer >= NUM_LAYERS) {
+			throw new IllegalArgumentException("Illegal collision layer: " + secondLayer);
+		}
+		return firstLayer * NUM_LAYERS + secondLayer;
+	}
+
+	private void addEvent(Collider first, Collider second, Rectangle2D intersection, Object appEvent,
+			boolean collisionStart, double timeOfImpact) {
+		Collision event = eventPool.isEmpty() ? new Collision() : eventPool.remove(eventPool.size() - 1);
+		event.set(first, second, intersection, appEvent, collisionStart, timeOfImpact);
+		events.add(event);
+	}
+
+	private void addLayerEvent(Contact contact, boolean[] rules, Object[] appEvents, boolean collisionStart) {
+		double timeOfImpact = collisionStart ? contact.timeOfImpact : 1;
+		int rule = contact.firstLayer * NUM_LAYERS + contact.secondLayer;
+		if (rules[rule]) {
+			addEvent(contact.first.collider, contact.second.collider, contact.intersection, appEvents[rule],
+					collisionStart, timeOfImpact);
+			return;
+		}
+		rule = contact.secondLayer * NUM_LAYERS + contact.firstLayer;
+		if (rules[rule]) {
+			addEvent(contact.second.collider, contact.first.collider, contact.intersection, appEvents[rule],
+					collisionStart, timeOfImpact);
+		}
+	}
+
+	private void releaseEvents() {
+		for (int i = 0; i < events.size(); ++i) {
+			Collision event = events.get(i);
+			event.set(null, null, null, null, false, 1);
+			eventPool.add(event);
+		}
 		events.clear();
-		collisionStarts.clear();
-		collisionEnds.clear();
 	}
 
-	private boolean checkCollision(CollisionPair p) {
-		Rectangle2D intersection = p.either().getCollisionBox().createIntersection(p.other().getCollisionBox());
-		if (!intersection.isEmpty()) {
-			p.setIntersection(intersection);
+	private void releaseContact(Contact contact) {
+		contact.first = contact.second = null;
+		contact.collisionTick = contact.previousCollisionTick = -1;
+		contactPool.add(contact);
+	}
+
+	private CollisionPair findPair(Collider x, Collider y) {
+		Map<Collider, CollisionPair> partners = pairsByCollider.get(x);
+		return partners != null ? partners.get(y) : null;
+	}
+
+	private CollisionPair indexedPair(Collider x, Collider y) {
+		Map<Collider, CollisionPair> partners = pairsByCollider.computeIfAbsent(x, collider -> new HashMap<>());
+		CollisionPair pair = partners.get(y);
+		if (pair == null) {
+			pair = new CollisionPair(x, y);
+			pair.index = pairs.size();
+			pair.eitherBody = body(x);
+			++pair.eitherBody.pairCount;
+			pair.otherBody = body(y);
+			++pair.otherBody.pairCount;
+			pairs.add(pair);
+			partners.put(y, pair);
+		}
+		return pair;
+	}
+
+	/*
+	 * Removes a pair that is not registered anymore. A pair colliding in the current update is kept until
+	 * the next update such that registering it again continues its collision state.
+	 */
+	private void removeIfUnused(CollisionPair pair) {
+		if (pair.isRegistered() || pair.collisionTick == tick || pair.index == -1) {
+			return;
+		}
+		CollisionPair last = pairs.remove(pairs.size() - 1);
+		if (last != pair) {
+			pairs.set(pair.index, last);
+			last.index = pair.index;
+		}
+		pair.index = -1;
+		Map<Collider, CollisionPair> partners = pairsByCollider.get(pair.either());
+		partners.remove(pair.other());
+		if (partners.isEmpty()) {
+			pairsByCollider.remove(pair.either());
+		}
+		--pair.eitherBody.pairCount;
+		removeIfUnused(pair.eitherBody);
+		--pair.otherBody.pairCount;
+		removeIfUnused(pair.otherBody);
+	}
+
+	private Body body(Collider collider) {
+		Body body = bodiesByCollider.get(collider);
+		if (body == null) {
+			body = new Body(collider, TRANSFORM_BOX.get(collider.getClass()));
+			if (bodyCount == bodies.length) {
+				int capacity = 2 * bodies.length;
+				bodies = Arrays.copyOf(bodies, capacity);
+				boxes = Arrays.copyOf(boxes, 4 * capacity);
+				velocities = Arrays.copyOf(velocities, 2 * capacity);
+				layers = Arrays.copyOf(layers, capacity);
+				masks = Arrays.copyOf(masks, capacity);
+			}
+			body.slot = bodyCount;
+			bodies[bodyCount++] = body;
+			bodiesByCollider.put(collider, body);
+		}
+		return body;
+	}
+
+	private void removeIfUnused(Body body) {
+		if (body.isUsed() || bodiesByCollider.get(body.collider) != body) {
+			return;
+		}
+		Body last = bodies[--bodyCount];
+		bodies[body.slot] = last;
+		last.slot = body.slot;
+		bodies[bodyCount] = null;
+		bodiesByCollider.remove(body.collider);
+	}
+
+	private void readBodies() {
+		for (int i = 0; i < bodyCount; ++i) {
+			Body body = bodies[i];
+			int b = 4 * i;
+			if (body.transformBox) {
+				Entity entity = (Entity) body.collider;
+				Transform tf = entity.tf;
+				boxes[b] = tf.x;
+				boxes[b + 1] = tf.y;
+				boxes[b + 2] = entity.visible ? (double) tf.x + tf.width : tf.x;
+				boxes[b + 3] = entity.visible ? (double) tf.y + tf.height : tf.y;
+			} else {
+				Rectangle2D box = body.collider.getCollisionBox();
+				boxes[b] = box.getMinX();
+				boxes[b + 1] = box.getMinY();
+				boxes[b + 2] = box.getMaxX();
+				boxes[b + 3] = box.getMaxY();
+			}
+			float vx = 0, vy = 0;
+			if (body.collider instanceof Entity entity && entity.visible && entity.sweptCollision()) {
+				vx = entity.tf.vx;
+				vy = entity.tf.vy;
+			}
+			velocities[2 * i] = vx;
+			velocities[2 * i + 1] = vy;
+			if (body.layered) {
+				int layer = body.collider.collisionLayer();
+				layers[i] = layer >= 0 && layer < NUM_LAYERS ? layer : -1;
+				masks[i] = body.collider.collisionMask();
+			}
+		}
+	}
+
+	private void testCandidates(int i, int j) {
+		Body x = bodies[i], y = bodies[j];
+		if (x.pairCount > 0 && y.pairCount > 0) {
+			Map<Collider, CollisionPair> partners = pairsByCollider.get(x.collider);
+			if (partners != null) {
+				CollisionPair pair = partners.get(y.collider);
+				if (pair != null) {
+					testPair(pair);
+				}
+			}
+			if (i != j) {
+				partners = pairsByCollider.get(y.collider);
+				if (partners != null) {
+					CollisionPair pair = partners.get(x.collider);
+					if (pair != null) {
+						testPair(pair);
+					}
+				}
+			}
+		}
+		if (i != j && x.layered && y.layered) {
+			testLayers(x, y);
+		}
+	}
+
+	private void testPair(CollisionPair pair) {
+		if (!pair.isRegistered() || pair.collisionTick == tick) {
+			return;
+		}
+		if (intersect(pair.eitherBody.slot, pair.otherBody.slot)) {
+			pair.setIntersection(hitMinX, hitMinY, hitMaxX - hitMinX, hitMaxY - hitMinY);
+			pair.timeOfImpact = hitTime;
+			pair.previousCollisionTick = pair.collisionTick;
+			pair.collisionTick = tick;
+			newCollisions.add(pair);
+		}
+	}
+
+	private boolean hasLayerRule(int firstLayer, int secondLayer) {
+		int rule = firstLayer * NUM_LAYERS + secondLayer;
+		return layerStartRules[rule] || layerEndRules[rule];
+	}
+
+	private void testLayers(Body x, Body y) {
+		int lx = layers[x.slot], ly = layers[y.slot];
+		if (lx == -1 || ly == -1 || (masks[x.slot] & (1 << ly)) == 0 || (masks[y.slot] & (1 << lx)) == 0) {
+			return;
+		}
+		boolean xFirst = hasLayerRule(lx, ly);
+		if (!xFirst && !hasLayerRule(ly, lx)) {
+			return;
+		}
+		if (!intersect(x.slot, y.slot)) {
+			return;
+		}
+		Contact contact = x.findContact(y);
+		if (contact == null) {
+			contact = contactPool.isEmpty() ? new Contact() : contactPool.remove(contactPool.size() - 1);
+			contact.first = xFirst ? x : y;
+			contact.second = xFirst ? y : x;
+			contact.firstLayer = xFirst ? lx : ly;
+			contact.secondLayer = xFirst ? ly : lx;
+			x.addContact(contact);
+			y.addContact(contact);
+		} else if (contact.collisionTick == tick) {
+			return;
+		}
+		contact.intersection.setRect(hitMinX, hitMinY, hitMaxX - hitMinX, hitMaxY - hitMinY);
+		contact.timeOfImpact = hitTime;
+		contact.previousCollisionTick = contact.collisionTick;
+		contact.collisionTick = tick;
+		newContacts.add(contact);
+	}
+
+	/*
+	 * Tests the bodies in the given slots for intersection and stores the intersection and the time of
+	 * impact. If one of the bodies is swept, the bodies also collide if they overlapped at some time
+	 * during their movement since the last update. In that case, the intersection is taken at the time
+	 * of impact.
+	 */
+	private boolean intersect(int i, int j) {
+		int a = 4 * i, b = 4 * j;
+		hitMinX = Math.max(boxes[a], boxes[b]);
+		hitMinY = Math.max(boxes[a + 1], boxes[b + 1]);
+		hitMaxX = Math.min(boxes[a + 2], boxes[b + 2]);
+		hitMaxY = Math.min(boxes[a + 3], boxes[b + 3]);
+		hitTime = 1;
+		boolean swept = velocities[2 * i] != 0 || velocities[2 * i + 1] != 0 || velocities[2 * j] != 0
+				|| velocities[2 * j + 1] != 0;
+		if (hitMaxX > hitMinX && hitMaxY > hitMinY) {
+			if (swept && sweep(i, j)) {
+				hitTime = Math.min(1, Math.max(0, sweepEntry));
+			}
 			return true;
 		}
-		return false;
+		if (!swept || !sweep(i, j) || sweepEntry < 0 || sweepEntry >= 1) {
+			return false;
+		}
+		// move both boxes back to their position at the time of impact
+		double back = 1 - sweepEntry;
+		double ax = back * velocities[2 * i], ay = back * velocities[2 * i + 1];
+		double bx = back * velocities[2 * j], by = back * velocities[2 * j + 1];
+		hitMinX = Math.max(boxes[a] - ax, boxes[b] - bx);
+		hitMinY = Math.max(boxes[a + 1] - ay, boxes[b + 1] - by);
+		hitMaxX = Math.max(hitMinX, Math.min(boxes[a + 2] - ax, boxes[b + 2] - bx));
+		hitMaxY = Math.max(hitMinY, Math.min(boxes[a + 3] - ay, boxes[b + 3] - by));
+		hitTime = sweepEntry;
+		return true;
+	}
+
+	/*
+	 * Sweeps the boxes of the given slots from their previous to their current position. Stores the
+	 * times of entry and exit of the overlap as fractions of the movement (slab method).
+	 */
+	private boolean sweep(int i, int j) {
+		int a = 4 * i, b = 4 * j;
+		if (boxes[a + 2] <= boxes[a] || boxes[a + 3] <= boxes[a + 1] || boxes[b + 2] <= boxes[b]
+				|| boxes[b + 3] <= boxes[b + 1]) {
+			return false;
+		}
+		sweepEntry = Double.NEGATIVE_INFINITY;
+		sweepExit = Double.POSITIVE_INFINITY;
+		for (int axis = 0; axis < 2; ++axis) {
+			double va = velocities[2 * i + axis], vb = velocities[2 * j + axis];
+			// box extents at the previous position, the first box moving relative to the second one
+			double aMin = boxes[a + axis] - va, aMax = boxes[a + axis + 2] - va;
+			double bMin = boxes[b + axis] - vb, bMax = boxes[b + axis + 2] - vb;
+			double v = va - vb;
+			if (v == 0) {
+				if (aMax <= bMin || aMin >= bMax) {
+					return false;
+				}
+			} else {
+				double t1 = (bMin - aMax) / v, t2 = (bMax - aMin) / v;
+				sweepEntry = Math.max(sweepEntry, Math.min(t1, t2));
+				sweepExit = Math.min(sweepExit, Math.max(t1, t2));
+			}
+		}
+		return sweepEntry < sweepExit;
 	}
 }
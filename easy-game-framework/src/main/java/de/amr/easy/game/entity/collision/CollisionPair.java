@@ -9,6 +9,18 @@ public class CollisionPair {
 	private final Collider other;
 	private Rectangle2D intersection;
 
+	// state managed by the collision handler
+	boolean startRegistered;
+	boolean endRegistered;
+	Object startEvent;
+	Object endEvent;
+	Body eitherBody;
+	Body otherBody;
+	int index = -1;
+	long collisionTick = -1;
+	long previousCollisionTick = -1;
+	double timeOfImpact = 1;
+
 	public CollisionPair(Collider x, Collider y) {
 		this.either = x;
 		this.other = y;
@@ -30,6 +42,20 @@ public class CollisionPair {
 		this.intersection = intersection;
 	}
 
+	/**
+	 * Stores the intersection bounds into the rectangle owned by this pair, creating it only once.
+	 */
+	void setIntersection(double x, double y, double width, double height) {
+		if (!(intersection instanceof Rectangle2D.Float)) {
+			intersection = new Rectangle2D.Float();
+		}
+		intersection.setRect(x, y, width, height);
+	}
+
+	boolean isRegistered() {
+		return startRegistered || endRegistered;
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(either, other);
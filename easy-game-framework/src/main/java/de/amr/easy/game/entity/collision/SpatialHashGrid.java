@@ -0,0 +1,255 @@
+package de.amr.easy.game.entity.collision;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid stored in a spatial hash, used as broad phase by the {@link CollisionHandler}.
+ * <p>
+ * Items are identified by their index and inserted with their bounding box. The grid is rebuilt in
+ * every update: {@link #clear()} is O(1) and, once the internal arrays have grown to their working
+ * size, neither inserting nor visiting candidate pairs allocates memory.
+ *
+ * @author Armin Reichert
+ */
+final class SpatialHashGrid {
+
+	/**
+	 * Receives the candidate pairs found by the grid.
+	 */
+	@FunctionalInterface
+	interface PairVisitor {
+
+		/**
+		 * Called once for each pair of items sharing at least one grid cell. For each item, a pair with
+		 * itself is reported too.
+		 *
+		 * @param i index of first item
+		 * @param j index of second item
+		 */
+		void visit(int i, int j);
+	}
+
+	/** Items covering more cells than this are not hashed but tested against every other item. */
+	static final int MAX_CELLS_PER_ITEM = 1024;
+
+	private double cellSize;
+
+	// cell range covered by each item, an empty range marks an item that has not been inserted
+	private int[] cellMinX = new int[64];
+	private int[] cellMinY = new int[64];
+	private int[] cellMaxX = new int[64];
+	private int[] cellMaxY = new int[64];
+	private int itemCount;
+
+	// items covering too many cells
+	private int[] largeItems = new int[8];
+	private int largeItemCount;
+
+	// open-addressing hash table mapping cell coordinates to linked lists of entries
+	private long[] cellKeys = new long[256];
+	private int[] cellHeads = new int[256];
+	private int[] cellStamps = new int[256];
+	private int[] usedCells = new int[128];
+	private int usedCellCount;
+	private int stamp = 1;
+
+	// entries (item in cell) stored as linked lists
+	private int[] entryItems = new int[256];
+	private int[] entryNext = new int[256];
+	private int entryCount;
+
+	SpatialHashGrid(double cellSize) {
+		setCellSize(cellSize);
+	}
+
+	void setCellSize(double cellSize) {
+		if (!(cellSize > 0)) {
+			throw new IllegalArgumentException("Cell size must be positive, is " + cellSize);
+		}
+		this.cellSize = cellSize;
+	}
+
+	double getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Removes all items.
+	 */
+	void clear() {
+		itemCount = 0;
+		largeItemCount = 0;
+		usedCellCount = 0;
+		entryCount = 0;
+		if (++stamp == 0) {
+			Arrays.fill(cellStamps, 0);
+			stamp = 1;
+		}
+	}
+
+	/**
+	 * Inserts an item with the given bounding box. Items must be inserted with consecutive indices
+	 * starting at 0 after the last {@link #clear()}. Items with an empty box are not inserted.
+	 *
+	 * @param item index of the item
+	 * @param minX left border of bounding box
+	 * @param minY top border of bounding box
+	 * @param maxX right border of bounding box
+	 * @param maxY bottom border of bounding box
+	 */
+	void insert(int item, double minX, double minY, double maxX, double maxY) {
+		ensureItemCapacity(item + 1);
+		itemCount = Math.max(itemCount, item + 1);
+		if (!(maxX > minX && maxY > minY)) {
+			cellMinX[item] = 0;
+			cellMaxX[item] = -1;
+			return;
+		}
+		int x0 = cell(minX), y0 = cell(minY), x1 = cell(maxX), y1 = cell(maxY);
+		cellMinX[item] = x0;
+		cellMinY[item] = y0;
+		cellMaxX[item] = x1;
+		cellMaxY[item] = y1;
+		long numCells = ((long) x1 - x0 + 1) * ((long) y1 - y0 + 1);
+		if (numCells > MAX_CELLS_PER_ITEM) {
+			if (largeItemCount == largeItems.length) {
+				largeItems = Arrays.copyOf(largeItems, 2 * largeItems.length);
+			}
+			largeItems[largeItemCount++] = item;
+			return;
+		}
+		for (int dx = 0; dx <= x1 - x0; ++dx) {
+			for (int dy = 0; dy <= y1 - y0; ++dy) {
+				addEntry(findOrCreateCell(x0 + dx, y0 + dy), item);
+			}
+		}
+	}
+
+	/**
+	 * Visits every pair of inserted items sharing a cell exactly once.
+	 *
+	 * @param visitor pair visitor
+	 */
+	void forEachCandidatePair(PairVisitor visitor) {
+		for (int u = 0; u < usedCellCount; ++u) {
+			int slot = usedCells[u];
+			long key = cellKeys[slot];
+			int cx = (int) (key >> 32), cy = (int) key;
+			for (int e1 = cellHeads[slot]; e1 != -1; e1 = entryNext[e1]) {
+				int i = entryItems[e1];
+				for (int e2 = e1; e2 != -1; e2 = entryNext[e2]) {
+					int j = entryItems[e2];
+					// a pair is reported only in the cell containing the upper left corner of the overlap
+					if (cx == Math.max(cellMinX[i], cellMinX[j]) && cy == Math.max(cellMinY[i], cellMinY[j])) {
+						visitor.visit(i, j);
+					}
+				}
+			}
+		}
+		for (int l = 0; l < largeItemCount; ++l) {
+			int large = largeItems[l];
+			for (int item = 0; item < itemCount; ++item) {
+				if (!inserted(item) || item < large && isLarge(item)) {
+					continue;
+				}
+				if (cellRangesOverlap(large, item)) {
+					visitor.visit(large, item);
+				}
+			}
+		}
+	}
+
+	private boolean inserted(int item) {
+		return cellMaxX[item] >= cellMinX[item];
+	}
+
+	private boolean isLarge(int item) {
+		for (int l = 0; l < largeItemCount; ++l) {
+			if (largeItems[l] == item) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean cellRangesOverlap(int i, int j) {
+		return cellMinX[i] <= cellMaxX[j] && cellMinX[j] <= cellMaxX[i] && cellMinY[i] <= cellMaxY[j]
+				&& cellMinY[j] <= cellMaxY[i];
+	}
+
+	private int cell(double coord) {
+		return (int) Math.floor(coord / cellSize);
+	}
+
+	private void ensureItemCapacity(int size) {
+		if (size > cellMinX.length) {
+			int newSize = Math.max(size, 2 * cellMinX.length);
+			cellMinX = Arrays.copyOf(cellMinX, newSize);
+			cellMinY = Arrays.copyOf(cellMinY, newSize);
+			cellMaxX = Arrays.copyOf(cellMaxX, newSize);
+			cellMaxY = Arrays.copyOf(cellMaxY, newSize);
+		}
+	}
+
+	private void addEntry(int slot, int item) {
+		if (entryCount == entryItems.length) {
+			entryItems = Arrays.copyOf(entryItems, 2 * entryItems.length);
+			entryNext = Arrays.copyOf(entryNext, 2 * entryNext.length);
+		}
+		entryItems[entryCount] = item;
+		entryNext[entryCount] = cellHeads[slot];
+		cellHeads[slot] = entryCount;
+		++entryCount;
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private int findOrCreateCell(int cx, int cy) {
+		if (2 * (usedCellCount + 1) > cellKeys.length) {
+			growTable();
+		}
+		long key = ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+		int mask = cellKeys.length - 1;
+		int slot = hash(key) & mask;
+		while (cellStamps[slot] == stamp) {
+			if (cellKeys[slot] == key) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		cellStamps[slot] = stamp;
+		cellKeys[slot] = key;
+		cellHeads[slot] = -1;
+		if (usedCellCount == usedCells.length) {
+			usedCells = Arrays.copyOf(usedCells, 2 * usedCells.length);
+		}
+		usedCells[usedCellCount++] = slot;
+		return slot;
+	}
+
+	private void growTable() {
+		long[] oldKeys = cellKeys;
+		int[] oldHeads = cellHeads;
+		int[] oldUsed = Arrays.copyOf(usedCells, usedCellCount);
+		int newSize = 2 * oldKeys.length;
+		cellKeys = new long[newSize];
+		cellHeads = new int[newSize];
+		cellStamps = new int[newSize];
+		usedCells = new int[Math.max(usedCells.length, newSize / 2)];
+		int mask = newSize - 1;
+		for (int u = 0; u < oldUsed.length; ++u) {
+			int oldSlot = oldUsed[u];
+			int slot = hash(oldKeys[oldSlot]) & mask;
+			while (cellStamps[slot] == stamp) {
+				slot = (slot + 1) & mask;
+			}
+			cellStamps[slot] = stamp;
+			cellKeys[slot] = oldKeys[oldSlot];
+			cellHeads[slot] = oldHeads[oldSlot];
+			usedCells[u] = slot;
+		}
+	}
+}
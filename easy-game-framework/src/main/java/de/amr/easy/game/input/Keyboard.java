@@ -30,7 +30,9 @@ public class Keyboard {
 	}
 
 	private static void loginfo(String msg, Object... args) {
-		LOGGER.info(String.format(msg, args));
+		if (LOGGER.isLoggable(Level.INFO)) {
+			LOGGER.info(String.format(msg, args));
+		}
 	}
 
 	private static final KeyboardState keyboardState = new KeyboardState();
@@ -164,7 +166,9 @@ public class Keyboard {
 		}
 
 		private void update() {
-			long time = Application.app().clock().getTotalTicks();
+			// the tick is only needed for logging, polling also works without a running application
+			long time = LOGGER.isLoggable(Level.INFO) && Application.app() != null ? Application.app().clock().getTotalTicks()
+					: 0;
 			for (int key = 1; key < Math.min(pressedNow.size(), 1024); ++key) {
 				if (isModifier(key)) {
 					continue;
@@ -0,0 +1,185 @@
+package de.amr.easy.game.math;
+
+/**
+ * Mutable 2D vector with float precision.
+ * <p>
+ * Counterpart of the immutable {@link V2f} for code running many times per frame (movement, steering,
+ * collision checks). All operations modify this vector and return it, such that calls can be chained
+ * without allocating intermediate vectors. Use {@link #toV2f()} to create an immutable copy when a
+ * vector has to be stored or shared.
+ *
+ * @author Armin Reichert
+ */
+public final class MutableV2f {
+
+	public float x;
+	public float y;
+
+	public MutableV2f() {
+	}
+
+	public MutableV2f(float x, float y) {
+		this.x = x;
+		this.y = y;
+	}
+
+	public MutableV2f(V2f v) {
+		this(v.x(), v.y());
+	}
+
+	@Override
+	public String toString() {
+		return "(%.2f, %.2f)".formatted(x, y);
+	}
+
+	/**
+	 * @return immutable copy of this vector
+	 */
+	public V2f toV2f() {
+		return V2f.v(x, y);
+	}
+
+	public MutableV2f set(float x, float y) {
+		this.x = x;
+		this.y = y;
+		return this;
+	}
+
+	public MutableV2f set(V2f v) {
+		return set(v.x(), v.y());
+	}
+
+	public MutableV2f set(MutableV2f v) {
+		return set(v.x, v.y);
+	}
+
+	/**
+	 * Adds the given components to this vector.
+	 *
+	 * @param dx x-component
+	 * @param dy y-component
+	 * @return this vector
+	 */
+	public MutableV2f add(float dx, float dy) {
+		x += dx;
+		y += dy;
+		return this;
+	}
+
+	public MutableV2f add(V2f v) {
+		return add(v.x(), v.y());
+	}
+
+	public MutableV2f add(MutableV2f v) {
+		return add(v.x, v.y);
+	}
+
+	/**
+	 * Subtracts the given components from this vector.
+	 *
+	 * @param dx x-component
+	 * @param dy y-component
+	 * @return this vector
+	 */
+	public MutableV2f subtract(float dx, float dy) {
+		x -= dx;
+		y -= dy;
+		return this;
+	}
+
+	public MutableV2f subtract(V2f v) {
+		return subtract(v.x(), v.y());
+	}
+
+	public MutableV2f subtract(MutableV2f v) {
+		return subtract(v.x, v.y);
+	}
+
+	/**
+	 * Multiplies this vector with a scalar value.
+	 *
+	 * @param f scalar value
+	 * @return this vector
+	 */
+	public MutableV2f times(float f) {
+		x *= f;
+		y *= f;
+		return this;
+	}
+
+	/**
+	 * Adds the scaled vector, for example {@code position.addScaled(velocity, dt)}.
+	 *
+	 * @param v vector
+	 * @param f scale factor
+	 * @return this vector
+	 */
+	public MutableV2f addScaled(MutableV2f v, float f) {
+		x += f * v.x;
+		y += f * v.y;
+		return this;
+	}
+
+	/**
+	 * Inverts this vector.
+	 *
+	 * @return this vector
+	 */
+	public MutableV2f invert() {
+		x = -x;
+		y = -y;
+		return this;
+	}
+
+	/**
+	 * Normalizes this vector to unit length. The null vector is left unchanged.
+	 *
+	 * @return this vector
+	 */
+	public MutableV2f normalize() {
+		float length = length();
+		if (length > 0) {
+			x /= length;
+			y /= length;
+		}
+		return this;
+	}
+
+	/**
+	 * @return the length of this vector
+	 */
+	public float length() {
+		return V2f.length(x, y);
+	}
+
+	/**
+	 * @return the squared length of this vector, use this for comparisons
+	 */
+	public float lengthSq() {
+		return V2f.lengthSq(x, y);
+	}
+
+	/**
+	 * @param v other vector
+	 * @return the dot product of this and the other vector
+	 */
+	public float dot(MutableV2f v) {
+		return x * v.x + y * v.y;
+	}
+
+	/**
+	 * @param v other vector
+	 * @return the squared Euclidean distance to the other vector
+	 */
+	public float distSq(MutableV2f v) {
+		return V2f.distSq(x, y, v.x, v.y);
+	}
+
+	/**
+	 * @param v other vector
+	 * @return if the components are equal up to {@link V2f#EPSILON}
+	 */
+	public boolean almostEquals(MutableV2f v) {
+		return Math.abs(x - v.x) < V2f.EPSILON && Math.abs(y - v.y) < V2f.EPSILON;
+	}
+}
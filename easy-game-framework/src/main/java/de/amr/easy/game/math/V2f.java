@@ -5,6 +5,11 @@ import static java.lang.Math.toDegrees;
 
 /**
  * Immutable 2D vector with float precision.
+ * <p>
+ * The static methods with primitive arguments ({@link #lengthSq(float, float)},
+ * {@link #distSq(float, float, float, float)}, {@link #addInto(float, float, float, float, MutableV2f)}
+ * etc.) do not allocate and are meant for code running many times per frame, together with
+ * {@link MutableV2f}.
  * 
  * @author Armin Reichert
  */
@@ -97,7 +102,7 @@ public record V2f(float x, float y) {
 	 * @return the Euclidean distance between the points defined by the vectors
 	 */
 	public static float euclideanDist(V2f v, V2f w) {
-		return diff(v, w).length();
+		return dist(v.x, v.y, w.x, w.y);
 	}
 
 	/**
@@ -145,7 +150,98 @@ public record V2f(float x, float y) {
 	 * @return The length of the vector.
 	 */
 	public float length() {
-		return (float) Math.hypot(x, y);
+		return length(x, y);
+	}
+
+	/**
+	 * @return The squared length of the vector.
+	 */
+	public float lengthSq() {
+		return lengthSq(x, y);
+	}
+
+	/**
+	 * @param x x-component
+	 * @param y y-component
+	 * @return length of the vector <code>(x, y)</code>
+	 */
+	public static float length(float x, float y) {
+		// computed in double precision, no overflow and much faster than Math.hypot
+		return (float) Math.sqrt((double) x * x + (double) y * y);
+	}
+
+	/**
+	 * @param x x-component
+	 * @param y y-component
+	 * @return squared length of the vector <code>(x, y)</code>
+	 */
+	public static float lengthSq(float x, float y) {
+		return x * x + y * y;
+	}
+
+	/**
+	 * @param x1 x-coordinate of first point
+	 * @param y1 y-coordinate of first point
+	 * @param x2 x-coordinate of second point
+	 * @param y2 y-coordinate of second point
+	 * @return the Euclidean distance between the points
+	 */
+	public static float dist(float x1, float y1, float x2, float y2) {
+		return length(x1 - x2, y1 - y2);
+	}
+
+	/**
+	 * Use this instead of {@link #dist(float, float, float, float)} for comparing distances.
+	 * 
+	 * @param x1 x-coordinate of first point
+	 * @param y1 y-coordinate of first point
+	 * @param x2 x-coordinate of second point
+	 * @param y2 y-coordinate of second point
+	 * @return the squared Euclidean distance between the points
+	 */
+	public static float distSq(float x1, float y1, float x2, float y2) {
+		float dx = x1 - x2, dy = y1 - y2;
+		return dx * dx + dy * dy;
+	}
+
+	/**
+	 * Stores the sum <code>(x1 + x2, y1 + y2)</code> into the given vector.
+	 * 
+	 * @param x1  x-component of first vector
+	 * @param y1  y-component of first vector
+	 * @param x2  x-component of second vector
+	 * @param y2  y-component of second vector
+	 * @param out result vector
+	 * @return the result vector
+	 */
+	public static MutableV2f addInto(float x1, float y1, float x2, float y2, MutableV2f out) {
+		return out.set(x1 + x2, y1 + y2);
+	}
+
+	/**
+	 * Stores the difference <code>(x1 - x2, y1 - y2)</code> into the given vector.
+	 * 
+	 * @param x1  x-component of first vector
+	 * @param y1  y-component of first vector
+	 * @param x2  x-component of second vector
+	 * @param y2  y-component of second vector
+	 * @param out result vector
+	 * @return the result vector
+	 */
+	public static MutableV2f subtractInto(float x1, float y1, float x2, float y2, MutableV2f out) {
+		return out.set(x1 - x2, y1 - y2);
+	}
+
+	/**
+	 * Stores the normalized vector <code>(x, y)</code> into the given vector.
+	 * 
+	 * @param x   x-component
+	 * @param y   y-component
+	 * @param out result vector
+	 * @return the result vector
+	 */
+	public static MutableV2f normalizeInto(float x, float y, MutableV2f out) {
+		return out.set(x, y).normalize();
 	}
 
 }
\ No newline at end of file
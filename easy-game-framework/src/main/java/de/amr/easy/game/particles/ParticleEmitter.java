@@ -0,0 +1,111 @@
+package de.amr.easy.game.particles;
+
+import java.awt.Color;
+import java.util.SplittableRandom;
+
+/**
+ * Emits particles into a {@link ParticleSystem}, continuously with a given rate and/or in bursts.
+ * <p>
+ * Particles start at the emitter position, move into the emitter direction (radians, 0 = right)
+ * with a random deviation of up to half the spread angle and a random speed and lifetime from the
+ * configured ranges.
+ *
+ * @author Armin Reichert
+ */
+public class ParticleEmitter {
+
+	public float x, y;
+	public float direction = 0;
+	public float spread = (float) (2 * Math.PI);
+	public float minSpeed = 1, maxSpeed = 2;
+	public int minLifetime = 30, maxLifetime = 60;
+	public float size = 2;
+	public int color = Color.WHITE.getRGB();
+	public boolean enabled = true;
+
+	private float rate;
+	private float pending;
+	private final SplittableRandom rnd;
+
+	/**
+	 * Creates an emitter using the given random seed.
+	 *
+	 * @param seed random seed
+	 */
+	public ParticleEmitter(long seed) {
+		rnd = new SplittableRandom(seed);
+	}
+
+	public ParticleEmitter() {
+		this(System.nanoTime());
+	}
+
+	/**
+	 * @return particles emitted per tick
+	 */
+	public float getRate() {
+		return rate;
+	}
+
+	/**
+	 * @param rate particles emitted per tick, can be fractional
+	 */
+	public void setRate(float rate) {
+		if (rate < 0) {
+			throw new IllegalArgumentException("Emitter rate must not be negative, is " + rate);
+		}
+		this.rate = rate;
+	}
+
+	public void setPosition(float x, float y) {
+		this.x = x;
+		this.y = y;
+	}
+
+	public void setColor(Color color) {
+		this.color = color.getRGB();
+	}
+
+	/**
+	 * Emits a burst of particles into the given system.
+	 *
+	 * @param system particle system
+	 * @param count  number of particles
+	 * @return number of particles emitted (the system's budget can prevent emission)
+	 */
+	public int burst(ParticleSystem system, int count) {
+		int emitted = 0;
+		while (emitted < count && emitOne(system)) {
+			++emitted;
+		}
+		return emitted;
+	}
+
+	/**
+	 * Emits the particles for one tick. Called by the particle system.
+	 *
+	 * @param system particle system
+	 */
+	void tick(ParticleSystem system) {
+		if (!enabled) {
+			pending = 0;
+			return;
+		}
+		pending += rate;
+		while (pending >= 1) {
+			pending -= 1;
+			if (!emitOne(system)) {
+				pending = 0; // budget exceeded, do not accumulate
+				break;
+			}
+		}
+	}
+
+	private boolean emitOne(ParticleSystem system) {
+		float angle = direction + (float) ((rnd.nextDouble() - 0.5) * spread);
+		float speed = minSpeed + (float) rnd.nextDouble() * (maxSpeed - minSpeed);
+		int lifetime = minLifetime + (maxLifetime > minLifetime ? rnd.nextInt(maxLifetime - minLifetime + 1) : 0);
+		return system.spawn(x, y, speed * (float) Math.cos(angle), speed * (float) Math.sin(angle), lifetime, size,
+				color);
+	}
+}
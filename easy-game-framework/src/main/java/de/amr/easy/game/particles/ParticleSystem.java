@@ -0,0 +1,374 @@
+package de.amr.easy.game.particles;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.util.Arrays;
+
+import de.amr.easy.game.controller.Lifecycle;
+import de.amr.easy.game.ui.sprites.Sprite;
+import de.amr.easy.game.ui.sprites.SpriteBatch;
+import de.amr.easy.game.view.View;
+
+/**
+ * A particle system storing its particles in primitive arrays.
+ * <p>
+ * Particles are kept in a ring of fixed capacity, ordered by their spawn time. When the ring is
+ * full, a new particle replaces the oldest one. Each {@link #update() update} (called once per
+ * clock tick) lets the emitters emit, moves all particles by their velocity, applies gravity and
+ * drag and removes particles which have reached their lifetime. The update loops only use the
+ * primitive arrays and no method calls or branches, such that the JIT compiler can vectorize them.
+ * <p>
+ * The number of particles spawned per update can be limited by a budget. Spawn requests exceeding
+ * the budget are rejected and counted.
+ * <p>
+ * Particles are drawn either as filled squares or circles of their color, fading out over their
+ * lifetime, or using the frames of a sprite, where the frame is selected by the particle's age.
+ * Filled particles are drawn grouped by their alpha level to minimize color changes, sprite frames
+ * through a {@link SpriteBatch}.
+ *
+ * @author Armin Reichert
+ */
+public class ParticleSystem implements Lifecycle, View {
+
+	private static final int ALPHA_LEVELS = 16;
+
+	private final int capacity;
+	private final float[] xs, ys, vxs, vys, ages, lifetimes, sizes;
+	private final int[] colors;
+	private int tail; // index of the oldest particle
+	private int count;
+
+	private ParticleEmitter[] emitters = {};
+	private float gravityX, gravityY;
+	private float drag = 1;
+	private int budget = Integer.MAX_VALUE;
+
+	// drawing
+	private Sprite sprite;
+	private boolean round;
+	private final SpriteBatch batch = new SpriteBatch();
+	private final int[] levelStart = new int[ALPHA_LEVELS + 1];
+	private final int[] drawOrder;
+	private final Color[] levelColors = new Color[ALPHA_LEVELS];
+
+	// statistics
+	private int spawnedThisTick;
+	private int spawnedLastTick;
+	private long rejected;
+	private long replaced;
+
+	/**
+	 * Creates a particle system.
+	 *
+	 * @param capacity maximum number of particles
+	 */
+	public ParticleSystem(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive, is " + capacity);
+		}
+		this.capacity = capacity;
+		xs = new float[capacity];
+		ys = new float[capacity];
+		vxs = new float[capacity];
+		vys = new float[capacity];
+		ages = new float[capacity];
+		lifetimes = new float[capacity];
+		sizes = new float[capacity];
+		colors = new int[capacity];
+		drawOrder = new int[capacity];
+	}
+
+	public void addEmitter(ParticleEmitter emitter) {
+		emitters = Arrays.copyOf(emitters, emitters.length + 1);
+		emitters[emitters.length - 1] = emitter;
+	}
+
+	public void removeEmitter(ParticleEmitter emitter) {
+		for (int i = 0; i < emitters.length; ++i) {
+			if (emitters[i] == emitter) {
+				ParticleEmitter[] copy = new ParticleEmitter[emitters.length - 1];
+				System.arraycopy(emitters, 0, copy, 0, i);
+				System.arraycopy(emitters, i + 1, copy, i, copy.length - i);
+				emitters = copy;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @param gx gravity acceleration (pixels per tick squared) in x-direction
+	 * @param gy gravity acceleration in y-direction
+	 */
+	public void setGravity(float gx, float gy) {
+		gravityX = gx;
+		gravityY = gy;
+	}
+
+	/**
+	 * @param drag velocity factor applied each tick (1 = no drag)
+	 */
+	public void setDrag(float drag) {
+		this.drag = drag;
+	}
+
+	/**
+	 * @param budget maximum number of particles spawned per tick
+	 */
+	public void setBudget(int budget) {
+		if (budget < 0) {
+			throw new IllegalArgumentException("Budget must not be negative, is " + budget);
+		}
+		this.budget = budget;
+	}
+
+	public int getBudget() {
+		return budget;
+	}
+
+	/**
+	 * @param sprite sprite whose frames are used to draw the particles or {@code null} to draw filled
+	 *               shapes
+	 */
+	public void setSprite(Sprite sprite) {
+		this.sprite = sprite;
+	}
+
+	/**
+	 * @param round if particles without sprite are drawn as circles instead of squares
+	 */
+	public void setRound(boolean round) {
+		this.round = round;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return number of living particles
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return number of particles spawned in the last tick
+	 */
+	public int getSpawnedLastTick() {
+		return spawnedLastTick;
+	}
+
+	/**
+	 * @return number of spawn requests rejected because of the budget
+	 */
+	public long getRejectedCount() {
+		return rejected;
+	}
+
+	/**
+	 * @return number of particles replaced by new ones because the system was full
+	 */
+	public long getReplacedCount() {
+		return replaced;
+	}
+
+	/**
+	 * Spawns a particle.
+	 *
+	 * @param x        x-position (center)
+	 * @param y        y-position (center)
+	 * @param vx       x-velocity (pixels per tick)
+	 * @param vy       y-velocity
+	 * @param lifetime lifetime in ticks
+	 * @param size     particle size in pixels
+	 * @param argb     particle color
+	 * @return {@code false} if the budget for this tick is exhausted
+	 */
+	public boolean spawn(float x, float y, float vx, float vy, float lifetime, float size, int argb) {
+		if (spawnedThisTick >= budget) {
+			++rejected;
+			return false;
+		}
+		++spawnedThisTick;
+		if (count == capacity) {
+			tail = tail + 1 == capacity ? 0 : tail + 1;
+			--count;
+			++replaced;
+		}
+		int i = ring(count);
+		xs[i] = x;
+		ys[i] = y;
+		vxs[i] = vx;
+		vys[i] = vy;
+		ages[i] = 0;
+		lifetimes[i] = lifetime;
+		sizes[i] = size;
+		colors[i] = argb;
+		++count;
+		return true;
+	}
+
+	/**
+	 * Removes all particles.
+	 */
+	public void clear() {
+		tail = 0;
+		count = 0;
+	}
+
+	@Override
+	public void init() {
+		clear();
+	}
+
+	@Override
+	public void update() {
+		spawnedLastTick = spawnedThisTick;
+		spawnedThisTick = 0;
+		for (ParticleEmitter emitter : emitters) {
+			emitter.tick(this);
+		}
+		// the particles are stored in at most two contiguous ranges of the ring
+		int end = tail + count;
+		integrate(tail, Math.min(end, capacity));
+		if (end > capacity) {
+			integrate(0, end - capacity);
+		}
+		removeExpired();
+	}
+
+	private void integrate(int from, int to) {
+		final float[] x = xs, y = ys, vx = vxs, vy = vys, age = ages;
+		final float gx = gravityX, gy = gravityY, d = drag;
+		for (int i = from; i < to; ++i) {
+			vx[i] = vx[i] * d + gx;
+			vy[i] = vy[i] * d + gy;
+		}
+		for (int i = from; i < to; ++i) {
+			x[i] += vx[i];
+			y[i] += vy[i];
+		}
+		for (int i = from; i < to; ++i) {
+			age[i] += 1;
+		}
+	}
+
+	/*
+	 * Removes expired particles keeping the spawn order. Particles of the same emitter mostly expire
+	 * oldest first, so usually only the tail moves.
+	 */
+	private void removeExpired() {
+		int k = 0;
+		while (k < count && ages[ring(k)] >= lifetimes[ring(k)]) {
+			++k;
+		}
+		tail = ring(k);
+		count -= k;
+		int write = 0;
+		for (int read = 0; read < count; ++read) {
+			int r = ring(read);
+			if (ages[r] < lifetimes[r]) {
+				if (write != read) {
+					int w = ring(write);
+					xs[w] = xs[r];
+					ys[w] = ys[r];
+					vxs[w] = vxs[r];
+					vys[w] = vys[r];
+					ages[w] = ages[r];
+					lifetimes[w] = lifetimes[r];
+					sizes[w] = sizes[r];
+					colors[w] = colors[r];
+				}
+				++write;
+			}
+		}
+		count = write;
+	}
+
+	private int ring(int k) {
+		int i = tail + k;
+		return i >= capacity ? i - capacity : i;
+	}
+
+	@Override
+	public void draw(Graphics2D g) {
+		if (sprite != null) {
+			draw(batch, 0);
+			batch.flush(g);
+		} else {
+			drawFilled(g);
+		}
+	}
+
+	/**
+	 * Submits the particles into the given sprite batch. Requires a sprite.
+	 *
+	 * @param batch sprite batch
+	 * @param layer batch layer
+	 */
+	public void draw(SpriteBatch batch, int layer) {
+		if (sprite == null) {
+			throw new IllegalStateException("Particle system has no sprite");
+		}
+		int frames = sprite.getFrameCount();
+		for (int k = 0; k < count; ++k) {
+			int i = ring(k);
+			int frame = Math.min(frames - 1, (int) (frames * ages[i] / lifetimes[i]));
+			float half = sizes[i] / 2;
+			batch.drawFrame(sprite, frame, xs[i] - half, ys[i] - half, 0, layer);
+		}
+	}
+
+	private void drawFilled(Graphics2D g) {
+		// counting sort by alpha level, then draw each level with a single color change per color
+		Arrays.fill(levelStart, 0);
+		for (int k = 0; k < count; ++k) {
+			++levelStart[alphaLevel(ring(k)) + 1];
+		}
+		for (int level = 0; level < ALPHA_LEVELS; ++level) {
+			levelStart[level + 1] += levelStart[level];
+		}
+		for (int k = 0; k < count; ++k) {
+			int i = ring(k);
+			drawOrder[levelStart[alphaLevel(i)]++] = i;
+		}
+		int previousRGB = 0, previousLevel = -1;
+		Color color = null;
+		for (int n = 0; n < count; ++n) {
+			int i = drawOrder[n];
+			int level = alphaLevel(i), rgb = colors[i] & 0xFFFFFF;
+			if (level != previousLevel || rgb != previousRGB) {
+				color = color(rgb, level);
+				g.setColor(color);
+				previousLevel = level;
+				previousRGB = rgb;
+			}
+			int size = Math.max(1, Math.round(sizes[i]));
+			int left = Math.round(xs[i] - sizes[i] / 2), top = Math.round(ys[i] - sizes[i] / 2);
+			if (round) {
+				g.fillOval(left, top, size, size);
+			} else {
+				g.fillRect(left, top, size, size);
+			}
+		}
+	}
+
+	private int alphaLevel(int i) {
+		float remaining = 1 - ages[i] / lifetimes[i];
+		int baseAlpha = colors[i] >>> 24;
+		return Math.max(0, Math.min(ALPHA_LEVELS - 1, (int) (remaining * baseAlpha * ALPHA_LEVELS / 256)));
+	}
+
+	/*
+	 * Colors are cached per alpha level for the most recently used RGB value.
+	 */
+	private Color color(int rgb, int level) {
+		Color color = levelColors[level];
+		if (color == null || (color.getRGB() & 0xFFFFFF) != rgb) {
+			int alpha = (level + 1) * 256 / ALPHA_LEVELS - 1;
+			color = new Color(alpha << 24 | rgb, true);
+			levelColors[level] = color;
+		}
+		return color;
+	}
+}
@@ -1,20 +1,35 @@
 package de.amr.easy.game.timing;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.util.Objects;
 
 import de.amr.easy.game.Application;
 
 /**
  * The clock that drives the application.
+ * <p>
+ * By default, the clock executes its tick action with the target frequency and the application
+ * renders inside the tick action. In fixed-timestep mode, the tick action runs at the target
+ * frequency measured in simulation time: the elapsed real time is accumulated and as many ticks are
+ * executed as fit into it, such that the simulation stays deterministic if single frames take too
+ * long. The render action is executed separately with its own target rate and can use the
+ * {@link #getInterpolation() interpolation} value to draw the state between the last two ticks.
  * 
  * @author Armin Reichert
  */
 public class Clock {
 
+	/** Maximum number of ticks executed in fixed-timestep mode before rendering a frame. */
+	public static final int MAX_TICKS_PER_FRAME = 5;
+
+	/** Time before a deadline that is spin-waited instead of slept with precise pacing. */
+	private static final long SPIN_TIME = MILLISECONDS.toNanos(2);
+
 	public volatile boolean logging;
 
 	/**
@@ -22,6 +37,11 @@ public class Clock {
 	 */
 	public Runnable onTick;
 
+	/**
+	 * Action executed for rendering a frame in fixed-timestep mode.
+	 */
+	public Runnable onRender;
+
 	private Thread thread;
 	private String threadName;
 	private volatile boolean ticking;
@@ -33,6 +53,20 @@ public class Clock {
 	private long frameCountStart;
 	private int frames;
 
+	// frame pacing
+	private volatile FramePacing pacing = FramePacing.SLEEP;
+	private long nextFrameTime = -1;
+
+	// fixed-timestep mode
+	private volatile boolean fixedTimestep;
+	private int targetRenderRate = 60;
+	private int currentRenderRate;
+	private int renderFrames;
+	private long accumulator;
+	private long lastStepTime = -1;
+	private long nextRenderTime;
+	private float interpolation = 1;
+
 	private PropertyChangeSupport changes = new PropertyChangeSupport(this);
 
 	/**
@@ -64,6 +98,8 @@ public class Clock {
 	public synchronized void start() {
 		if (!ticking) {
 			totalTicks = 0;
+			lastStepTime = -1;
+			nextFrameTime = -1;
 			ticking = true;
 			thread = new Thread(this::ticking, threadName);
 			thread.start();
@@ -87,8 +123,14 @@ public class Clock {
 	private void ticking() {
 		while (ticking) {
 			try {
-				tick();
-				++totalTicks;
+				if (fixedTimestep) {
+					nextFrameTime = -1;
+					step();
+				} else {
+					lastStepTime = -1;
+					tick();
+					++totalTicks;
+				}
 			} catch (InterruptedException e) {
 				e.printStackTrace();
 			}
@@ -101,7 +143,9 @@ public class Clock {
 			onTick.run();
 		}
 		long frameDuration = System.nanoTime() - startTime;
-		loginfo("Tick  %.2f millisec", frameDuration / 1_000_000f);
+		if (logging) {
+			loginfo("Tick  %.2f millisec", frameDuration / 1_000_000f);
+		}
 		++frames;
 
 		long now = System.nanoTime();
@@ -112,19 +156,120 @@ public class Clock {
 			tooSlow = true;
 		}
 
-		// one second has passed, store framerate
-		if (now - frameCountStart > SECONDS.toNanos(1)) {
-			currentFrameRate = frames;
-			frames = 0;
-			frameCountStart = now;
-		}
+		measureFrameRates(now);
 
 		// sleep to keep target framerate
-		if (!tooSlow) {
+		if (pacing == FramePacing.PRECISE) {
+			long frameTime = SECONDS.toNanos(1) / targetFrameRate;
+			if (nextFrameTime == -1 || now - nextFrameTime > MAX_TICKS_PER_FRAME * frameTime) {
+				// (re)started or too far behind, do not try to catch up
+				nextFrameTime = now;
+			}
+			nextFrameTime += frameTime;
+			waitUntil(nextFrameTime);
+		} else if (!tooSlow) {
+			nextFrameTime = -1;
 			long sleepTime = SECONDS.toNanos(1) / targetFrameRate - frameDuration;
 			sleepTime = sleepTime * 94 / 100;
 			NANOSECONDS.sleep(sleepTime);
-			loginfo("Sleep %.2f millisec", sleepTime / 1_000_000f);
+			if (logging) {
+				loginfo("Sleep %.2f millisec", sleepTime / 1_000_000f);
+			}
+		}
+	}
+
+	/*
+	 * Waits until the given deadline. With precise pacing, sleeps until shortly before the deadline and
+	 * spin-waits for the rest.
+	 */
+	private void waitUntil(long deadline) throws InterruptedException {
+		long waitTime = deadline - System.nanoTime();
+		if (pacing != FramePacing.PRECISE) {
+			if (waitTime > 0) {
+				NANOSECONDS.sleep(waitTime);
+			}
+			return;
+		}
+		if (waitTime > SPIN_TIME) {
+			NANOSECONDS.sleep(waitTime - SPIN_TIME);
+		}
+		while (System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+		}
+		if (logging) {
+			loginfo("Wait  %.2f millisec", waitTime / 1_000_000f);
+		}
+	}
+
+	/*
+	 * Executes as many ticks as fit into the real time accumulated since the last step, then renders a
+	 * frame if the next frame is due and sleeps until the next tick or frame is due.
+	 */
+	private void step() throws InterruptedException {
+		long tickTime = SECONDS.toNanos(1) / targetFrameRate;
+		long now = System.nanoTime();
+		if (lastStepTime == -1) {
+			// (re)started: tick immediately
+			accumulator = tickTime;
+			nextRenderTime = now;
+		} else {
+			accumulator += now - lastStepTime;
+		}
+		lastStepTime = now;
+		if (accumulator > MAX_TICKS_PER_FRAME * tickTime) {
+			// ticks take longer than the tick time, drop simulation time instead of falling further behind
+			if (logging) {
+				loginfo("Dropped %.2f millisec", (accumulator - MAX_TICKS_PER_FRAME * tickTime) / 1_000_000f);
+			}
+			accumulator = MAX_TICKS_PER_FRAME * tickTime;
+		}
+		while (accumulator >= tickTime && ticking && fixedTimestep) {
+			long startTime = System.nanoTime();
+			if (onTick != null) {
+				onTick.run();
+			}
+			++totalTicks;
+			++frames;
+			accumulator -= tickTime;
+			if (logging) {
+				loginfo("Tick  %.2f millisec", (System.nanoTime() - startTime) / 1_000_000f);
+			}
+		}
+
+		now = System.nanoTime();
+		if (now >= nextRenderTime) {
+			interpolation = Math.min(1f, (float) (accumulator + now - lastStepTime) / tickTime);
+			long startTime = now;
+			if (onRender != null) {
+				onRender.run();
+			}
+			++renderFrames;
+			now = System.nanoTime();
+			if (logging) {
+				loginfo("Render %.2f millisec", (now - startTime) / 1_000_000f);
+			}
+			long renderTime = SECONDS.toNanos(1) / targetRenderRate;
+			nextRenderTime += renderTime;
+			if (nextRenderTime < now) {
+				// skip frames that are already too late
+				nextRenderTime = now + renderTime;
+			}
+		}
+		measureFrameRates(now);
+
+		// wait until next tick or frame is due
+		long nextTickTime = lastStepTime + tickTime - accumulator;
+		waitUntil(Math.min(nextTickTime, nextRenderTime));
+	}
+
+	private void measureFrameRates(long now) {
+		// one second has passed, store framerates
+		if (now - frameCountStart > SECONDS.toNanos(1)) {
+			currentFrameRate = frames;
+			currentRenderRate = fixedTimestep ? renderFrames : frames;
+			frames = 0;
+			renderFrames = 0;
+			frameCountStart = now;
 		}
 	}
 
@@ -173,6 +318,79 @@ public class Clock {
 		changes.firePropertyChange("frequency", oldTargetFrameRate, targetFrameRate);
 	}
 
+	/**
+	 * @return the strategy used for waiting until the next frame is due
+	 */
+	public FramePacing getPacing() {
+		return pacing;
+	}
+
+	/**
+	 * Sets the strategy used for waiting until the next frame is due.
+	 * 
+	 * @param pacing frame pacing strategy
+	 */
+	public void setPacing(FramePacing pacing) {
+		this.pacing = Objects.requireNonNull(pacing);
+		loginfo("Clock frame pacing set to %s", pacing);
+	}
+
+	/**
+	 * @return if the clock runs in fixed-timestep mode
+	 */
+	public boolean isFixedTimestep() {
+		return fixedTimestep;
+	}
+
+	/**
+	 * Switches fixed-timestep mode on or off. In fixed-timestep mode, the render action is executed
+	 * separately from the tick action with the target render rate.
+	 * 
+	 * @param fixedTimestep if fixed-timestep mode is used
+	 */
+	public void setFixedTimestep(boolean fixedTimestep) {
+		this.fixedTimestep = fixedTimestep;
+		loginfo("Clock fixed-timestep mode %s", fixedTimestep ? "on" : "off");
+	}
+
+	/**
+	 * @return current number of rendered frames/second
+	 */
+	public int getRenderRate() {
+		return currentRenderRate;
+	}
+
+	/**
+	 * @return the target number of rendered frames/second in fixed-timestep mode
+	 */
+	public int getTargetRenderRate() {
+		return targetRenderRate;
+	}
+
+	/**
+	 * Sets the target number of rendered frames/second in fixed-timestep mode.
+	 * 
+	 * @param targetRenderRate frames/second
+	 */
+	public void setTargetRenderRate(int targetRenderRate) {
+		if (targetRenderRate < 1) {
+			throw new IllegalArgumentException("Clock target render rate must be at least 1");
+		}
+		this.targetRenderRate = targetRenderRate;
+		loginfo("Clock target render rate set to %d frames/sec.", targetRenderRate);
+	}
+
+	/**
+	 * Returns the fraction of the tick time that has passed since the last tick when the current frame
+	 * is rendered. Views can use it to interpolate between the previous and the current state. Outside
+	 * fixed-timestep mode, the value is always 1.
+	 * 
+	 * @return interpolation value between 0 and 1
+	 */
+	public float getInterpolation() {
+		return fixedTimestep ? interpolation : 1;
+	}
+
 	/**
 	 * @return total number of ticks since the clock was started
 	 */
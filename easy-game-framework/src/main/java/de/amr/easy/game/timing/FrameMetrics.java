@@ -0,0 +1,272 @@
+package de.amr.easy.game.timing;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures the time spent in the phases of each frame (see {@link FramePhase}).
+ * <p>
+ * The phase times of a frame are summed up until the frame ends. Then they are recorded into one
+ * histogram per phase, providing percentiles over all frames since the last reset, and stored in a
+ * ring buffer keeping the details of the most recent frames. In fixed-timestep mode, a frame can
+ * contain several clock ticks.
+ * <p>
+ * Phase times and ticks can be recorded concurrently, e.g. by the clock thread and the render thread
+ * in pipelined rendering mode. Frames must be ended by one thread at a time. The histograms can be
+ * read from any thread. The frame ring is read without synchronization, details of the oldest
+ * frames may already be overwritten while being read.
+ *
+ * @author Armin Reichert
+ */
+public class FrameMetrics {
+
+	private static final FramePhase[] PHASES = FramePhase.values();
+
+	private final TimingHistogram[] histograms = new TimingHistogram[PHASES.length];
+	private final List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+
+	// current frame
+	private final AtomicLongArray currentNanos = new AtomicLongArray(PHASES.length);
+	private final AtomicInteger currentPhases = new AtomicInteger(); // bit set of phases recorded in the current frame
+	private final AtomicInteger currentTicks = new AtomicInteger();
+	private long lastFrameEnd = -1;
+	private long lastGcCount;
+	private long lastGcMillis;
+
+	// ring of recent frames
+	private final int capacity;
+	private final long[] phaseNanos;
+	private final long[] frameEnds;
+	private final long[] frameIntervals;
+	private final int[] frameTicks;
+	private final int[] frameGcCounts;
+	private final int[] frameGcMillis;
+	private volatile long frameCount;
+
+	/**
+	 * Creates metrics keeping the details of the given number of recent frames.
+	 *
+	 * @param capacity number of recent frames kept
+	 */
+	public FrameMetrics(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Frame capacity must be at least 1");
+		}
+		this.capacity = capacity;
+		phaseNanos = new long[capacity * PHASES.length];
+		frameEnds = new long[capacity];
+		frameIntervals = new long[capacity];
+		frameTicks = new int[capacity];
+		frameGcCounts = new int[capacity];
+		frameGcMillis = new int[capacity];
+		for (int i = 0; i < PHASES.length; ++i) {
+			histograms[i] = new TimingHistogram();
+		}
+		lastGcCount = gcCount();
+		lastGcMillis = gcMillis();
+	}
+
+	/**
+	 * Creates metrics keeping the details of the last 600 frames.
+	 */
+	public FrameMetrics() {
+		this(600);
+	}
+
+	/**
+	 * Adds the given time to the given phase of the current frame.
+	 *
+	 * @param phase frame phase
+	 * @param nanos time spent in nanoseconds
+	 */
+	public void record(FramePhase phase, long nanos) {
+		currentNanos.addAndGet(phase.ordinal(), nanos);
+		currentPhases.getAndAccumulate(1 << phase.ordinal(), (phases, bit) -> phases | bit);
+	}
+
+	/**
+	 * Counts a clock tick in the current frame.
+	 */
+	public void countTick() {
+		currentTicks.incrementAndGet();
+	}
+
+	/**
+	 * Ends the current frame: records its phase times into the histograms and stores it in the frame
+	 * ring.
+	 */
+	public void endFrame() {
+		long now = System.nanoTime();
+		long gcCount = gcCount(), gcMillis = gcMillis();
+		int slot = (int) (frameCount % capacity);
+		int phases = currentPhases.getAndSet(0);
+		for (int i = 0; i < PHASES.length; ++i) {
+			long nanos = currentNanos.getAndSet(i, 0);
+			if ((phases & (1 << i)) != 0) {
+				histograms[i].record(nanos);
+			}
+			phaseNanos[slot * PHASES.length + i] = nanos;
+		}
+		frameEnds[slot] = now;
+		frameIntervals[slot] = lastFrameEnd == -1 ? 0 : now - lastFrameEnd;
+		frameTicks[slot] = currentTicks.getAndSet(0);
+		frameGcCounts[slot] = (int) (gcCount - lastGcCount);
+		frameGcMillis[slot] = (int) (gcMillis - lastGcMillis);
+		lastFrameEnd = now;
+		lastGcCount = gcCount;
+		lastGcMillis = gcMillis;
+		++frameCount;
+	}
+
+	/**
+	 * Clears the histograms. The frame ring is kept.
+	 */
+	public void reset() {
+		for (TimingHistogram histogram : histograms) {
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * @param phase frame phase
+	 * @return histogram of the time per frame spent in this phase
+	 */
+	public TimingHistogram histogram(FramePhase phase) {
+		return histograms[phase.ordinal()];
+	}
+
+	/**
+	 * @param phase frame phase
+	 * @return median time per frame spent in this phase (nanoseconds)
+	 */
+	public long p50(FramePhase phase) {
+		return histogram(phase).getPercentile(50);
+	}
+
+	/**
+	 * @param phase frame phase
+	 * @return 95th percentile of the time per frame spent in this phase (nanoseconds)
+	 */
+	public long p95(FramePhase phase) {
+		return histogram(phase).getPercentile(95);
+	}
+
+	/**
+	 * @param phase frame phase
+	 * @return 99th percentile of the time per frame spent in this phase (nanoseconds)
+	 */
+	public long p99(FramePhase phase) {
+		return histogram(phase).getPercentile(99);
+	}
+
+	/**
+	 * @param phase frame phase
+	 * @return maximum time per frame spent in this phase (nanoseconds)
+	 */
+	public long max(FramePhase phase) {
+		return histogram(phase).getMax();
+	}
+
+	/**
+	 * @return number of recent frames kept in the frame ring
+	 */
+	public int getFrameCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return number of frames ended so far. The details of frames with a number from
+	 *         {@code max(0, frameCount - capacity)} to {@code frameCount - 1} are available.
+	 */
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * @param frame frame number
+	 * @param phase frame phase
+	 * @return time spent in the phase during the given frame (nanoseconds)
+	 */
+	public long getFramePhaseNanos(long frame, FramePhase phase) {
+		return phaseNanos[slot(frame) * PHASES.length + phase.ordinal()];
+	}
+
+	/**
+	 * @param frame frame number
+	 * @return time spent in all phases of the given frame (nanoseconds)
+	 */
+	public long getFrameWorkNanos(long frame) {
+		long sum = 0;
+		int base = slot(frame) * PHASES.length;
+		for (int i = 0; i < PHASES.length; ++i) {
+			sum += phaseNanos[base + i];
+		}
+		return sum;
+	}
+
+	/**
+	 * @param frame frame number
+	 * @return {@link System#nanoTime()} at the end of the given frame
+	 */
+	public long getFrameEnd(long frame) {
+		return frameEnds[slot(frame)];
+	}
+
+	/**
+	 * @param frame frame number
+	 * @return time between the end of the previous frame and the end of the given frame (nanoseconds)
+	 */
+	public long getFrameInterval(long frame) {
+		return frameIntervals[slot(frame)];
+	}
+
+	/**
+	 * @param frame frame number
+	 * @return number of clock ticks during the given frame
+	 */
+	public int getFrameTicks(long frame) {
+		return frameTicks[slot(frame)];
+	}
+
+	/**
+	 * @param frame frame number
+	 * @return number of garbage collections during the given frame
+	 */
+	public int getFrameGcCount(long frame) {
+		return frameGcCounts[slot(frame)];
+	}
+
+	/**
+	 * @param frame frame number
+	 * @return accumulated garbage collection time during the given frame (milliseconds)
+	 */
+	public int getFrameGcMillis(long frame) {
+		return frameGcMillis[slot(frame)];
+	}
+
+	private int slot(long frame) {
+		if (frame < 0 || frame >= frameCount || frame < frameCount - capacity) {
+			throw new IndexOutOfBoundsException("Frame " + frame + " is not available");
+		}
+		return (int) (frame % capacity);
+	}
+
+	private long gcCount() {
+		long sum = 0;
+		for (int i = 0; i < gcBeans.size(); ++i) {
+			sum += Math.max(0, gcBeans.get(i).getCollectionCount());
+		}
+		return sum;
+	}
+
+	private long gcMillis() {
+		long sum = 0;
+		for (int i = 0; i < gcBeans.size(); ++i) {
+			sum += Math.max(0, gcBeans.get(i).getCollectionTime());
+		}
+		return sum;
+	}
+}
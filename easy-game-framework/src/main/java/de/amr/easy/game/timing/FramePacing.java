@@ -0,0 +1,22 @@
+package de.amr.easy.game.timing;
+
+/**
+ * Strategies used by the {@link Clock} for waiting until the next frame is due.
+ * 
+ * @author Armin Reichert
+ */
+public enum FramePacing {
+
+	/**
+	 * Sleeps for a bit less than the remaining frame time. Cheap but subject to the granularity of the
+	 * operating system's sleep, the frame rate jitters and drifts from the target.
+	 */
+	SLEEP,
+
+	/**
+	 * Schedules frames against absolute deadlines such that late frames are compensated by the
+	 * following ones. Sleeps coarsely and spin-waits for the last stretch before each deadline. More
+	 * precise but the spinning costs CPU time.
+	 */
+	PRECISE;
+}
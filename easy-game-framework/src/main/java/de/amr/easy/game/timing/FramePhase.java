@@ -0,0 +1,24 @@
+package de.amr.easy.game.timing;
+
+/**
+ * The phases of a frame measured by the {@link FrameMetrics}.
+ * 
+ * @author Armin Reichert
+ */
+public enum FramePhase {
+
+	/** Polling keyboard and mouse. */
+	INPUT,
+
+	/** Updating the collision handler. */
+	COLLISION,
+
+	/** Updating the application controller. */
+	UPDATE,
+
+	/** Drawing the current view into the back buffer. */
+	RENDER,
+
+	/** Showing the back buffer. */
+	PRESENT;
+}
@@ -7,23 +7,27 @@ import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.GraphicsDevice;
 import java.awt.GraphicsEnvironment;
+import java.awt.geom.Rectangle2D;
 
 import de.amr.easy.game.Application;
 import de.amr.easy.game.controller.Lifecycle;
 import de.amr.easy.game.ui.widgets.TextWidget;
-import de.amr.easy.game.view.View;
+import de.amr.easy.game.view.DirtyRegions;
+import de.amr.easy.game.view.RetainedView;
 
 /**
- * This view displays general application info.
+ * This view displays general application info. Only the region of the scrolling text is redrawn
+ * on each frame.
  * 
  * @author Armin Reichert
  */
-public class AppInfoView implements Lifecycle, View {
+public class AppInfoView implements Lifecycle, RetainedView {
 
 	private final int width;
 	private final int height;
 	private final Application app;
 	private final TextWidget text;
+	private final Rectangle2D.Float lastTextBounds = new Rectangle2D.Float();
 
 	public AppInfoView(Application app, int width, int height) {
 		this.app = app;
@@ -60,6 +64,13 @@ public class AppInfoView implements Lifecycle, View {
 		text.draw(g);
 	}
 
+	@Override
+	public void collectDirtyRegions(DirtyRegions regions) {
+		regions.add(lastTextBounds);
+		lastTextBounds.setRect(text.tf.x, text.tf.y, text.tf.width, text.tf.height);
+		regions.add(lastTextBounds);
+	}
+
 	private String buildInfoText() {
 		StringBuilder sb = new StringBuilder();
 		if (app != null) {
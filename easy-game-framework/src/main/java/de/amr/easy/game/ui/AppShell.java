@@ -35,8 +35,13 @@ import de.amr.easy.game.Application;
 import de.amr.easy.game.input.Keyboard;
 import de.amr.easy.game.input.Mouse;
 import de.amr.easy.game.input.MouseHandler;
+import de.amr.easy.game.timing.FrameMetrics;
+import de.amr.easy.game.timing.FramePhase;
 import de.amr.easy.game.ui.f2dialog.F2Dialog;
 import de.amr.easy.game.ui.f2dialog.core.F2DialogImpl;
+import de.amr.easy.game.ui.sprites.SpriteCache;
+import de.amr.easy.game.view.DirtyRegions;
+import de.amr.easy.game.view.RetainedView;
 import de.amr.easy.game.view.View;
 
 /**
@@ -50,6 +55,15 @@ import de.amr.easy.game.view.View;
  * cases, active rendering with the frequency of the application clock is performed.
  * 
  * <p>
+ * In pipelined rendering mode, rendering is called from the render thread of the
+ * {@link RenderPipeline}.
+ * 
+ * <p>
+ * Views implementing {@link RetainedView} are rendered in retained mode: the shell keeps the last
+ * frame in an offscreen image, redraws only the regions reported as dirty and copies the image to
+ * the screen.
+ * 
+ * <p>
  * The F11-key toggles between full-screen-exclusive and window mode.
  * 
  * @author Armin Reichert
@@ -58,8 +72,17 @@ public class AppShell extends JFrame {
 
 	// TODO localize
 	private static final String PAUSED_TEXT = "PAUSED\n(Press CTRL+P to continue)";
-	private static final Image MUTED_ICON = new ImageIcon(AppShell.class.getResource("/icons/muted.png")).getImage()
-			.getScaledInstance(32, 32, Image.SCALE_SMOOTH);
+	private static final BufferedImage MUTED_ICON = createMutedIcon();
+
+	private static BufferedImage createMutedIcon() {
+		Image image = new ImageIcon(AppShell.class.getResource("/icons/muted.png")).getImage()
+				.getScaledInstance(32, 32, Image.SCALE_SMOOTH);
+		BufferedImage icon = new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = icon.createGraphics();
+		g.drawImage(new ImageIcon(image).getImage(), 0, 0, null);
+		g.dispose();
+		return icon;
+	}
 
 	private final Application app;
 	private final int viewWidth;
@@ -67,9 +90,21 @@ public class AppShell extends JFrame {
 	private final GraphicsDevice device;
 	private final Canvas canvas;
 	private final JFrame fullScreenWindow;
+	private final Object renderLock = new Object(); // serializes rendering and display mode switches
 	private int frames;
+	private float interpolation;
 	private F2DialogImpl f2Dialog;
 
+	// retained mode
+	private final DirtyRegions dirtyRegions = new DirtyRegions();
+	private BufferedImage retainedImage;
+	private View retainedView;
+	private float retainedScaling;
+	private boolean retainedSmoothRendering;
+
+	// cached overlays
+	private BufferedImage pausedOverlay;
+
 	public AppShell(Application app, int width, int height) {
 		this.app = app;
 		this.viewWidth = width;
@@ -156,20 +191,41 @@ public class AppShell extends JFrame {
 		return device.getFullScreenWindow() != null;
 	}
 
+	/**
+	 * Shows the application window and leaves full-screen mode. Does not overlap the rendering of a
+	 * frame.
+	 */
 	public void showWindow() {
+		synchronized (renderLock) {
+			enterWindowMode();
+		}
+	}
+
+	/**
+	 * Shows the full-screen window. Does not overlap the rendering of a frame.
+	 */
+	public void showFullScreenWindow() {
+		synchronized (renderLock) {
+			enterFullScreenMode();
+		}
+	}
+
+	private void enterWindowMode() {
 		if (inFullScreenMode()) {
 			device.setFullScreenWindow(null);
 		}
 		if (canvas.getBufferStrategy() == null) {
 			canvas.createBufferStrategy(2);
 		}
+		retainedImage = null;
+		SpriteCache.invalidate();
 		requestFocus();
 		setVisible(true);
 		loginfo("Entered window mode, resolution %dx%d (%dx%d px scaled by %.2f)", (int) (viewWidth * app.settings().scale),
 				(int) (viewHeight * app.settings().scale), viewWidth, viewHeight, app.settings().scale);
 	}
 
-	public void showFullScreenWindow() {
+	private void enterFullScreenMode() {
 		if (!device.isFullScreenSupported()) {
 			loginfo("Device does not support full-screen exclusive mode.");
 			return;
@@ -177,6 +233,8 @@ public class AppShell extends JFrame {
 
 		fullScreenWindow.setVisible(true);
 		fullScreenWindow.createBufferStrategy(2);
+		retainedImage = null;
+		SpriteCache.invalidate();
 		fullScreenWindow.requestFocus();
 		if (!app.settings().fullScreenCursor) {
 			Cursor invisibleCursor = fullScreenWindow.getToolkit()
@@ -213,10 +271,24 @@ public class AppShell extends JFrame {
 	}
 
 	public void render(View view) {
-		if (device.getFullScreenWindow() != null) {
-			render(view, fullScreenWindow.getBufferStrategy(), fullScreenWindow.getWidth(), fullScreenWindow.getHeight());
-		} else {
-			render(view, canvas.getBufferStrategy(), canvas.getWidth(), canvas.getHeight());
+		render(view, app.clock().getInterpolation());
+	}
+
+	/**
+	 * Renders the given view. Rendering and display mode switches are serialized, so a frame is never
+	 * drawn or presented while the buffer strategy is recreated.
+	 * 
+	 * @param view          view
+	 * @param interpolation interpolation value passed to the view, see {@link View#draw(Graphics2D, float)}
+	 */
+	public void render(View view, float interpolation) {
+		synchronized (renderLock) {
+			this.interpolation = interpolation;
+			if (device.getFullScreenWindow() != null) {
+				render(view, fullScreenWindow.getBufferStrategy(), fullScreenWindow.getWidth(), fullScreenWindow.getHeight());
+			} else {
+				render(view, canvas.getBufferStrategy(), canvas.getWidth(), canvas.getHeight());
+			}
 		}
 		// update window title text
 		if (frames >= app.clock().getTargetFramerate()) {
@@ -227,18 +299,33 @@ public class AppShell extends JFrame {
 
 	private void render(View view, BufferStrategy strategy, int width, int height) {
 		try {
+			FrameMetrics metrics = app.metrics();
+			RetainedView retained = view instanceof RetainedView rv ? rv : null;
 			do {
 				do {
+					long startTime = System.nanoTime();
+					if (retained != null) {
+						updateRetainedImage(retained);
+					}
 					Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
-					g.setColor(Color.BLACK);
-					g.fillRect(0, 0, width, height);
-					drawView(view, g);
+					if (retained == null || inFullScreenMode()) {
+						g.setColor(Color.BLACK);
+						g.fillRect(0, 0, width, height);
+					}
+					if (retained != null) {
+						drawRetainedImage(g);
+					} else {
+						drawView(view, g);
+					}
 					centerHorizontally(g);
 					drawPausedText(g);
 					drawMutedIcon(g);
 					g.dispose();
+					metrics.record(FramePhase.RENDER, System.nanoTime() - startTime);
 				} while (strategy.contentsRestored());
+				long startTime = System.nanoTime();
 				strategy.show();
+				metrics.record(FramePhase.PRESENT, System.nanoTime() - startTime);
 			} while (strategy.contentsLost());
 			++frames;
 		} catch (Exception x) {
@@ -248,24 +335,80 @@ public class AppShell extends JFrame {
 
 	private void drawView(View view, Graphics2D g) {
 		g = (Graphics2D) g.create();
+		centerHorizontally(g);
+		drawScaledView(view, g);
+		g.dispose();
+	}
+
+	private void drawScaledView(View view, Graphics2D g) {
 		if (app.settings().smoothRendering) {
 			g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
 			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 			g.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY);
 		}
 		float scaling = scaling();
-		centerHorizontally(g);
 		g.scale(scaling, scaling);
 		try {
-			view.draw(g);
+			view.draw(g, interpolation);
 		} catch (Exception x) {
 			loginfo("Exception occurred during view drawing");
 			x.printStackTrace();
-		} finally {
-			g.dispose();
 		}
 	}
 
+	/*
+	 * Redraws the dirty regions of the retained view into the offscreen image. The image has the scaled
+	 * view size, it is redrawn completely if the view, the scaling or the rendering quality has changed.
+	 */
+	private void updateRetainedImage(RetainedView view) {
+		Dimension size = scaledViewSize();
+		float scaling = scaling();
+		boolean smoothRendering = app.settings().smoothRendering;
+		dirtyRegions.clear();
+		view.collectDirtyRegions(dirtyRegions);
+		if (retainedImage == null || retainedImage.getWidth() != size.width || retainedImage.getHeight() != size.height
+				|| retainedView != view || retainedScaling != scaling || retainedSmoothRendering != smoothRendering) {
+			retainedImage = getGraphicsConfiguration().createCompatibleImage(size.width, size.height);
+			retainedView = view;
+			retainedScaling = scaling;
+			retainedSmoothRendering = smoothRendering;
+			dirtyRegions.addAll();
+		}
+		if (dirtyRegions.isEmpty()) {
+			return;
+		}
+		Graphics2D g = retainedImage.createGraphics();
+		if (dirtyRegions.isAll()) {
+			redrawRegion(view, g, 0, 0, size.width, size.height);
+		} else {
+			for (int i = 0; i < dirtyRegions.size(); ++i) {
+				// region in image coordinates, enlarged to whole pixels
+				int left = (int) Math.floor(dirtyRegions.x(i) * scaling);
+				int top = (int) Math.floor(dirtyRegions.y(i) * scaling);
+				int right = (int) Math.ceil((dirtyRegions.x(i) + dirtyRegions.width(i)) * scaling);
+				int bottom = (int) Math.ceil((dirtyRegions.y(i) + dirtyRegions.height(i)) * scaling);
+				redrawRegion(view, g, left, top, right - left, bottom - top);
+			}
+		}
+		g.dispose();
+	}
+
+	private void redrawRegion(View view, Graphics2D g, int x, int y, int width, int height) {
+		g = (Graphics2D) g.create();
+		g.clipRect(x, y, width, height);
+		g.setColor(Color.BLACK);
+		g.fillRect(x, y, width, height);
+		drawScaledView(view, g);
+		g.dispose();
+	}
+
+	private void drawRetainedImage(Graphics2D g) {
+		g = (Graphics2D) g.create();
+		centerHorizontally(g);
+		g.drawImage(retainedImage, 0, 0, null);
+		g.dispose();
+	}
+
 	private void centerHorizontally(Graphics2D g) {
 		if (inFullScreenMode()) {
 			Dimension scaledViewSize = scaledViewSize();
@@ -276,27 +419,38 @@ public class AppShell extends JFrame {
 	}
 
 	private void drawPausedText(Graphics2D g) {
-		g = (Graphics2D) g.create();
 		if (app.isPaused()) {
 			Dimension scaledViewSize = scaledViewSize();
-			String[] lines = PAUSED_TEXT.split("\n");
-			int maxLineLength = Arrays.stream(lines).map(String::length).max(Integer::compare).get();
-			int fontSize = round((scaledViewSize.width / maxLineLength) * 1.6f);
-			Font font = new Font(Font.MONOSPACED, Font.BOLD, fontSize);
-			g.setColor(new Color(120, 120, 120, 80));
-			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-			g.fillRect(0, 0, scaledViewSize.width, scaledViewSize.height);
-			g.setColor(Color.WHITE);
-			int lineY = scaledViewSize.height / 2;
-			for (int i = 0; i < lines.length; ++i) {
-				String line = lines[i];
-				g.setFont(i == 0 ? font.deriveFont(2f * font.getSize()) : font);
-				int lineWidth = g.getFontMetrics().stringWidth(line);
-				g.drawString(line, (scaledViewSize.width - lineWidth) / 2, lineY);
-				lineY += 2 * fontSize;
+			if (pausedOverlay == null || pausedOverlay.getWidth() != scaledViewSize.width
+					|| pausedOverlay.getHeight() != scaledViewSize.height) {
+				pausedOverlay = createPausedOverlay(scaledViewSize);
 			}
+			g.drawImage(pausedOverlay, 0, 0, null);
+		}
+	}
+
+	private BufferedImage createPausedOverlay(Dimension scaledViewSize) {
+		BufferedImage overlay = new BufferedImage(scaledViewSize.width, scaledViewSize.height,
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = overlay.createGraphics();
+		String[] lines = PAUSED_TEXT.split("\n");
+		int maxLineLength = Arrays.stream(lines).map(String::length).max(Integer::compare).get();
+		int fontSize = round((scaledViewSize.width / maxLineLength) * 1.6f);
+		Font font = new Font(Font.MONOSPACED, Font.BOLD, fontSize);
+		g.setColor(new Color(120, 120, 120, 80));
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g.fillRect(0, 0, scaledViewSize.width, scaledViewSize.height);
+		g.setColor(Color.WHITE);
+		int lineY = scaledViewSize.height / 2;
+		for (int i = 0; i < lines.length; ++i) {
+			String line = lines[i];
+			g.setFont(i == 0 ? font.deriveFont(2f * font.getSize()) : font);
+			int lineWidth = g.getFontMetrics().stringWidth(line);
+			g.drawString(line, (scaledViewSize.width - lineWidth) / 2, lineY);
+			lineY += 2 * fontSize;
 		}
 		g.dispose();
+		return overlay;
 	}
 
 	private void drawMutedIcon(Graphics2D g) {
@@ -0,0 +1,137 @@
+package de.amr.easy.game.ui;
+
+import static de.amr.easy.game.Application.loginfo;
+
+import de.amr.easy.game.timing.FrameMetrics;
+import de.amr.easy.game.view.View;
+
+/**
+ * Renders view snapshots on a separate thread such that drawing and presenting frame N overlaps
+ * with the update of frame N+1.
+ * <p>
+ * The clock thread {@link #submit(View, float) submits} a snapshot after each update and continues
+ * without waiting. The render thread draws the most recent snapshot into the application shell. If
+ * the render thread is still busy when the next snapshot arrives, the pending snapshot is replaced
+ * and counted as dropped, so the updates never wait for the renderer. Views which cannot provide a
+ * snapshot are {@link #renderNow(View, float) rendered} on the calling thread. All access to the
+ * shell is serialized, the shell itself serializes rendering with display mode switches.
+ *
+ * @author Armin Reichert
+ */
+public class RenderPipeline {
+
+	private final AppShell shell;
+	private final FrameMetrics metrics;
+	private final Thread thread;
+	private final Object renderLock = new Object();
+	private volatile boolean running;
+	private boolean stopped; // guarded by renderLock
+
+	// guarded by this
+	private View pending;
+	private float pendingInterpolation;
+	private long submittedFrames;
+	private long droppedFrames;
+
+	public RenderPipeline(AppShell shell, FrameMetrics metrics, String threadName) {
+		this.shell = shell;
+		this.metrics = metrics;
+		thread = new Thread(this::rendering, threadName);
+		thread.setDaemon(true);
+	}
+
+	public synchronized void start() {
+		if (!running) {
+			running = true;
+			thread.start();
+			loginfo("Render thread '%s' started", thread.getName());
+		}
+	}
+
+	/**
+	 * Stops the render thread and waits until it has finished the frame it is currently drawing. No
+	 * frames are rendered after this method returns, so the shell can be disposed safely.
+	 */
+	public void stop() {
+		running = false;
+		thread.interrupt();
+		if (Thread.currentThread() != thread) {
+			try {
+				thread.join(1000);
+			} catch (InterruptedException x) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (renderLock) {
+			stopped = true;
+		}
+	}
+
+	/**
+	 * Hands a snapshot over to the render thread. Does not block.
+	 *
+	 * @param snapshot      view snapshot
+	 * @param interpolation interpolation value for drawing the snapshot
+	 */
+	public synchronized void submit(View snapshot, float interpolation) {
+		if (pending != null) {
+			++droppedFrames;
+		}
+		pending = snapshot;
+		pendingInterpolation = interpolation;
+		++submittedFrames;
+		notifyAll();
+	}
+
+	/**
+	 * Renders the given view on the calling thread, after the render thread has finished the frame
+	 * it is currently drawing. Does nothing after the pipeline has been stopped.
+	 *
+	 * @param view          view
+	 * @param interpolation interpolation value
+	 */
+	public void renderNow(View view, float interpolation) {
+		synchronized (renderLock) {
+			if (stopped) {
+				return;
+			}
+			shell.render(view, interpolation);
+			metrics.endFrame();
+		}
+	}
+
+	/**
+	 * @return number of snapshots submitted so far
+	 */
+	public synchronized long getSubmittedFrames() {
+		return submittedFrames;
+	}
+
+	/**
+	 * @return number of snapshots replaced by a newer one before being rendered
+	 */
+	public synchronized long getDroppedFrames() {
+		return droppedFrames;
+	}
+
+	private void rendering() {
+		while (running) {
+			View snapshot;
+			float interpolation;
+			synchronized (this) {
+				try {
+					while (pending == null) {
+						wait();
+					}
+				} catch (InterruptedException x) {
+					break;
+				}
+				snapshot = pending;
+				interpolation = pendingInterpolation;
+				pending = null;
+			}
+			renderNow(snapshot, interpolation);
+		}
+		loginfo("Render thread '%s' stopped", thread.getName());
+	}
+}
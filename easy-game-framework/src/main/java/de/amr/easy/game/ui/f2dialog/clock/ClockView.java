@@ -13,6 +13,8 @@ import javax.swing.SwingConstants;
 import javax.swing.border.TitledBorder;
 
 import de.amr.easy.game.controller.Lifecycle;
+import de.amr.easy.game.timing.Clock;
+import de.amr.easy.game.timing.FramePacing;
 import net.miginfocom.swing.MigLayout;
 
 public class ClockView extends JPanel implements Lifecycle {
@@ -24,9 +26,26 @@ public class ClockView extends JPanel implements Lifecycle {
 			app().clock().logging = !app().clock().logging;
 		}
 	};
+	private Action actionToggleFixedTimestep = new AbstractAction("Fixed Timestep") {
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			app().clock().setFixedTimestep(!app().clock().isFixedTimestep());
+		}
+	};
+	private Action actionTogglePrecisePacing = new AbstractAction("Precise Pacing") {
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			Clock clock = app().clock();
+			clock.setPacing(clock.getPacing() == FramePacing.PRECISE ? FramePacing.SLEEP : FramePacing.PRECISE);
+		}
+	};
 	private JPanel fpsHistoryPanel;
 	private FramerateHistoryView fpsHistoryView;
 	private JCheckBox cbClockDebugging;
+	private JCheckBox cbFixedTimestep;
+	private JCheckBox cbPrecisePacing;
 
 	public ClockView() {
 		setLayout(new MigLayout("", "[150px:150px,left][grow,fill]", "[grow,fill][]"));
@@ -41,6 +60,14 @@ public class ClockView extends JPanel implements Lifecycle {
 		fpsHistoryView.setBackground(Color.BLACK);
 		fpsHistoryPanel.add(fpsHistoryView, "cell 0 0,grow");
 
+		cbFixedTimestep = new JCheckBox("Fixed Timestep");
+		add(cbFixedTimestep, "flowx,cell 0 1");
+		cbFixedTimestep.setAction(actionToggleFixedTimestep);
+
+		cbPrecisePacing = new JCheckBox("Precise Pacing");
+		add(cbPrecisePacing, "cell 0 1");
+		cbPrecisePacing.setAction(actionTogglePrecisePacing);
+
 		cbClockDebugging = new JCheckBox("Clock Debugging");
 		cbClockDebugging.setHorizontalAlignment(SwingConstants.RIGHT);
 		add(cbClockDebugging, "cell 1 1,alignx right");
@@ -56,5 +83,7 @@ public class ClockView extends JPanel implements Lifecycle {
 	@Override
 	public void update() {
 		cbClockDebugging.setSelected(app().clock().logging);
+		cbFixedTimestep.setSelected(app().clock().isFixedTimestep());
+		cbPrecisePacing.setSelected(app().clock().getPacing() == FramePacing.PRECISE);
 	}
 }
\ No newline at end of file
@@ -29,6 +29,7 @@ import de.amr.easy.game.ui.f2dialog.F2Dialog;
 import de.amr.easy.game.ui.f2dialog.applog.LogView;
 import de.amr.easy.game.ui.f2dialog.clock.ClockView;
 import de.amr.easy.game.ui.f2dialog.clock.FramerateSelector;
+import de.amr.easy.game.ui.f2dialog.frames.FrameTimeView;
 import de.amr.easy.game.ui.f2dialog.screen.ScreenView;
 import de.amr.easy.game.ui.f2dialog.settings.SettingsView;
 import de.amr.easy.game.ui.f2dialog.sound.SoundView;
@@ -56,6 +57,7 @@ public class F2DialogImpl extends JDialog implements Lifecycle, F2Dialog {
 	private int dy;
 
 	private ClockView clockView;
+	private FrameTimeView frameTimeView;
 	private ScreenView screenView;
 	private SoundView soundView;
 	private SettingsView settingsView;
@@ -93,6 +95,10 @@ public class F2DialogImpl extends JDialog implements Lifecycle, F2Dialog {
 		logView = new LogView();
 		tabbedPane.addTab("Logging", null, logView, null);
 
+		// added after the existing tabs to keep their indices (see selectTab)
+		frameTimeView = new FrameTimeView();
+		tabbedPane.addTab("Frames", null, frameTimeView, null);
+
 		btnPlayPause = new JButton("Play/Pause");
 		getContentPane().add(btnPlayPause, "flowx,cell 0 1");
 		btnPlayPause.setFont(new Font("SansSerif", Font.BOLD, 14));
@@ -126,6 +132,7 @@ public class F2DialogImpl extends JDialog implements Lifecycle, F2Dialog {
 	public void init() {
 		setTitle(String.format("Application '%s'", app().settings().title));
 		clockView.init();
+		frameTimeView.init();
 		soundView.init();
 		screenView.init();
 		settingsView.init();
@@ -0,0 +1,163 @@
+package de.amr.easy.game.ui.f2dialog.frames;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.function.LongConsumer;
+
+import javax.swing.JComponent;
+
+import de.amr.easy.game.timing.FrameMetrics;
+import de.amr.easy.game.timing.FramePhase;
+
+/**
+ * Displays the phase times of the most recent frames as stacked bars. Frames exceeding the frame
+ * budget are highlighted. Clicking a bar selects the frame.
+ * 
+ * @author Armin Reichert
+ */
+public class FrameTimeChart extends JComponent {
+
+	static final Color[] PHASE_COLORS = {
+		/*@formatter:off*/
+		new Color(80, 160, 255),  // INPUT
+		new Color(255, 160, 0),   // COLLISION
+		new Color(0, 200, 80),    // UPDATE
+		new Color(200, 80, 255),  // RENDER
+		new Color(160, 160, 160), // PRESENT
+		/*@formatter:on*/
+	};
+
+	private static final FramePhase[] PHASES = FramePhase.values();
+	private static final Color OVER_BUDGET_BACKGROUND = new Color(120, 0, 0);
+	private static final int BAR_WIDTH = 3;
+	private static final int LEGEND_HEIGHT = 16;
+
+	private FrameMetrics metrics;
+	private long budgetNanos = 1_000_000_000L / 60;
+	private long lastFrame = -1;
+	private long firstPaintedFrame = -1;
+	private long selectedFrame = -1;
+	private LongConsumer onFrameSelected = frame -> {
+	};
+
+	public FrameTimeChart() {
+		setPreferredSize(new Dimension(600, 200));
+		addMouseListener(new MouseAdapter() {
+
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				long frame = frameAt(e.getX());
+				if (frame != -1) {
+					selectedFrame = frame;
+					onFrameSelected.accept(frame);
+					repaint();
+				}
+			}
+		});
+	}
+
+	public void setMetrics(FrameMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public void setBudgetNanos(long budgetNanos) {
+		this.budgetNanos = Math.max(1, budgetNanos);
+	}
+
+	public void setOnFrameSelected(LongConsumer onFrameSelected) {
+		this.onFrameSelected = onFrameSelected;
+	}
+
+	public long getSelectedFrame() {
+		return selectedFrame;
+	}
+
+	/**
+	 * Takes the frames ended so far into the chart.
+	 */
+	public void update() {
+		if (metrics != null) {
+			lastFrame = metrics.getFrameCount() - 1;
+			repaint();
+		}
+	}
+
+	private int visibleFrames() {
+		return getWidth() / BAR_WIDTH;
+	}
+
+	private long firstFrame() {
+		long oldest = metrics.getFrameCount() - metrics.getFrameCapacity();
+		return Math.max(Math.max(0, oldest), lastFrame - visibleFrames() + 1);
+	}
+
+	/*
+	 * The clock thread keeps ending frames while the chart is painted, older frames are overwritten.
+	 */
+	private boolean isAvailable(long frame) {
+		return frame >= metrics.getFrameCount() - metrics.getFrameCapacity();
+	}
+
+	private long frameAt(int x) {
+		if (metrics == null || firstPaintedFrame == -1) {
+			return -1;
+		}
+		long frame = firstPaintedFrame + x / BAR_WIDTH;
+		return frame <= lastFrame && isAvailable(frame) ? frame : -1;
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		Graphics2D g2 = (Graphics2D) g.create();
+		int width = getWidth(), height = getHeight();
+		g2.setColor(Color.BLACK);
+		g2.fillRect(0, 0, width, height);
+		int chartHeight = height - LEGEND_HEIGHT;
+		// budget line at two thirds of the chart height
+		double yScale = 2.0 * chartHeight / (3.0 * budgetNanos);
+		if (metrics != null && lastFrame != -1) {
+			Graphics2D bars = (Graphics2D) g2.create();
+			bars.clipRect(0, LEGEND_HEIGHT, width, chartHeight);
+			long first = firstFrame();
+			firstPaintedFrame = first;
+			for (long frame = first; frame <= lastFrame; ++frame) {
+				if (!isAvailable(frame)) {
+					continue;
+				}
+				int x = (int) (frame - first) * BAR_WIDTH;
+				if (metrics.getFrameWorkNanos(frame) > budgetNanos) {
+					bars.setColor(OVER_BUDGET_BACKGROUND);
+					bars.fillRect(x, LEGEND_HEIGHT, BAR_WIDTH, chartHeight);
+				}
+				int y = height;
+				for (int i = 0; i < PHASES.length; ++i) {
+					int barHeight = (int) Math.round(metrics.getFramePhaseNanos(frame, PHASES[i]) * yScale);
+					bars.setColor(PHASE_COLORS[i]);
+					bars.fillRect(x, y - barHeight, BAR_WIDTH - 1, barHeight);
+					y -= barHeight;
+				}
+				if (frame == selectedFrame) {
+					bars.setColor(Color.WHITE);
+					bars.drawRect(x - 1, LEGEND_HEIGHT, BAR_WIDTH, chartHeight - 1);
+				}
+			}
+			bars.dispose();
+		}
+		int budgetY = height - (int) Math.round(budgetNanos * yScale);
+		g2.setColor(Color.YELLOW);
+		g2.drawLine(0, budgetY, width, budgetY);
+		g2.drawString(String.format("%.1f ms", budgetNanos / 1e6), 2, budgetY - 2);
+		int x = 2;
+		for (int i = 0; i < PHASES.length; ++i) {
+			g2.setColor(PHASE_COLORS[i]);
+			g2.fillRect(x, 4, 8, 8);
+			g2.drawString(PHASES[i].name(), x + 12, 12);
+			x += 12 + g2.getFontMetrics().stringWidth(PHASES[i].name()) + 10;
+		}
+		g2.dispose();
+	}
+}
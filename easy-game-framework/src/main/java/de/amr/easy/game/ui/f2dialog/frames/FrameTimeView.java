@@ -0,0 +1,101 @@
+package de.amr.easy.game.ui.f2dialog.frames;
+
+import static de.amr.easy.game.Application.app;
+
+import java.awt.Font;
+
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextArea;
+import javax.swing.border.TitledBorder;
+
+import de.amr.easy.game.controller.Lifecycle;
+import de.amr.easy.game.timing.Clock;
+import de.amr.easy.game.timing.FrameMetrics;
+import de.amr.easy.game.timing.FramePhase;
+import net.miginfocom.swing.MigLayout;
+
+/**
+ * Displays the phase times of recent frames and their percentiles. Clicking a frame in the chart
+ * shows its details.
+ * 
+ * @author Armin Reichert
+ */
+public class FrameTimeView extends JPanel implements Lifecycle {
+
+	private FrameTimeChart chart;
+	private JTextArea frameDetails;
+	private JTable statsTable;
+	private PhaseStatsTableModel statsTableModel;
+	private JCheckBox cbFreeze;
+	private JButton btnReset;
+
+	public FrameTimeView() {
+		setLayout(new MigLayout("", "[grow,fill][300px:300px,fill]", "[grow,fill][120px:120px,fill][]"));
+
+		JPanel chartPanel = new JPanel();
+		chartPanel.setBorder(new TitledBorder(null, "Frame Times", TitledBorder.LEADING, TitledBorder.TOP, null, null));
+		chartPanel.setLayout(new MigLayout("", "[grow,fill]", "[grow,fill]"));
+		add(chartPanel, "cell 0 0 2 1,grow");
+
+		chart = new FrameTimeChart();
+		chart.setOnFrameSelected(frame -> showFrameDetails());
+		chartPanel.add(chart, "cell 0 0,grow");
+
+		frameDetails = new JTextArea("Click a frame to show its details");
+		frameDetails.setEditable(false);
+		frameDetails.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+		add(new JScrollPane(frameDetails), "cell 0 1,grow");
+
+		statsTableModel = new PhaseStatsTableModel();
+		statsTable = new JTable(statsTableModel);
+		statsTable.setRowSelectionAllowed(false);
+		add(new JScrollPane(statsTable), "cell 1 1,grow");
+
+		cbFreeze = new JCheckBox("Freeze");
+		add(cbFreeze, "flowx,cell 0 2");
+
+		btnReset = new JButton("Reset Percentiles");
+		btnReset.addActionListener(e -> app().metrics().reset());
+		add(btnReset, "cell 1 2,alignx right,growx 0");
+	}
+
+	@Override
+	public void init() {
+		chart.setMetrics(app().metrics());
+	}
+
+	@Override
+	public void update() {
+		FrameMetrics metrics = app().metrics();
+		Clock clock = app().clock();
+		int frameRate = clock.isFixedTimestep() ? clock.getTargetRenderRate() : clock.getTargetFramerate();
+		chart.setBudgetNanos(1_000_000_000L / frameRate);
+		if (!cbFreeze.isSelected()) {
+			chart.update();
+			statsTableModel.readMetrics(metrics);
+		}
+	}
+
+	private void showFrameDetails() {
+		FrameMetrics metrics = app().metrics();
+		long frame = chart.getSelectedFrame();
+		if (frame < metrics.getFrameCount() - metrics.getFrameCapacity()) {
+			frameDetails.setText(String.format("Frame %d is no longer available", frame));
+			return;
+		}
+		StringBuilder text = new StringBuilder();
+		text.append(String.format("Frame %d: work %.3f ms, interval %.3f ms, %d tick(s)%n", frame,
+				metrics.getFrameWorkNanos(frame) / 1e6, metrics.getFrameInterval(frame) / 1e6, metrics.getFrameTicks(frame)));
+		for (FramePhase phase : FramePhase.values()) {
+			text.append(String.format("  %-10s %8.3f ms%n", phase, metrics.getFramePhaseNanos(frame, phase) / 1e6));
+		}
+		text.append(String.format("  GC runs: %d, GC time: %d ms", metrics.getFrameGcCount(frame),
+				metrics.getFrameGcMillis(frame)));
+		frameDetails.setText(text.toString());
+		frameDetails.setCaretPosition(0);
+	}
+}
@@ -0,0 +1,45 @@
+package de.amr.easy.game.ui.f2dialog.frames;
+
+import javax.swing.table.AbstractTableModel;
+
+import de.amr.easy.game.timing.FrameMetrics;
+import de.amr.easy.game.timing.FramePhase;
+
+public class PhaseStatsTableModel extends AbstractTableModel {
+
+	private static final String[] COLUMNS = { "Phase", "p50 (ms)", "p95 (ms)", "p99 (ms)", "max (ms)" };
+	private static final FramePhase[] PHASES = FramePhase.values();
+
+	private final float[][] values = new float[PHASES.length][4];
+
+	@Override
+	public int getRowCount() {
+		return PHASES.length;
+	}
+
+	@Override
+	public int getColumnCount() {
+		return COLUMNS.length;
+	}
+
+	@Override
+	public String getColumnName(int col) {
+		return COLUMNS[col];
+	}
+
+	@Override
+	public Object getValueAt(int row, int col) {
+		return col == 0 ? PHASES[row].name() : String.format("%.3f", values[row][col - 1]);
+	}
+
+	public void readMetrics(FrameMetrics metrics) {
+		for (int row = 0; row < PHASES.length; ++row) {
+			FramePhase phase = PHASES[row];
+			values[row][0] = metrics.p50(phase) / 1e6f;
+			values[row][1] = metrics.p95(phase) / 1e6f;
+			values[row][2] = metrics.p99(phase) / 1e6f;
+			values[row][3] = metrics.max(phase) / 1e6f;
+		}
+		fireTableRowsUpdated(0, PHASES.length - 1);
+	}
+}
@@ -6,7 +6,6 @@ import java.util.List;
 import javax.swing.table.AbstractTableModel;
 
 import de.amr.easy.game.assets.Assets;
-import de.amr.easy.game.assets.SoundClip;
 
 public class SoundTableModel extends AbstractTableModel {
 
@@ -90,8 +89,7 @@ public class SoundTableModel extends AbstractTableModel {
 	public void update() {
 		List<Record> newRecords = new ArrayList<>();
 		newRecords.clear();
-		Assets.soundNames().forEach(path -> {
-			SoundClip sound = Assets.sound(path);
+		Assets.soundCache().forEach((path, sound) -> {
 			Record r = new Record();
 			r.path = path;
 			r.audioFormat = sound.line().getFormat().toString();
@@ -17,7 +17,8 @@ import de.amr.easy.game.assets.Assets;
  * <p>
  * In my book, a "sprite" is a sequence of images ("frames") which, when played in sequence, create
  * the illusion of a movement or animation. In this implementation, the animation proceeds by
- * drawing the sprite.
+ * drawing the sprite. Frames are drawn through the {@link SpriteCache} unless the sprite
+ * {@link #setCached(boolean) opts out}.
  * 
  * @author Armin Reichert
  */
@@ -57,17 +58,39 @@ public class Sprite {
 		return sprite;
 	}
 
+	/*
+	 * Creates a sprite with the given number of frames which are set by the caller, see
+	 * TextureAtlas.
+	 */
+	static Sprite withFrames(int numFrames) {
+		if (numFrames == 0) {
+			throw new IllegalArgumentException("Sprite needs at least a single frame");
+		}
+		return new Sprite(numFrames);
+	}
+
 	private final Image[] frames;
+	private final SpriteCache.Entry[] cacheEntries;
 	private SpriteAnimation animation;
+	private boolean cached = true;
 
 	private Sprite(int numFrames) {
 		this.frames = new Image[numFrames];
+		this.cacheEntries = new SpriteCache.Entry[numFrames];
 		animation = SpriteAnimation.NO_ANIMATION;
 	}
 
 	private void setFrame(int i, Image image) {
 		rangeCheck(i);
 		frames[i] = image != null ? image : BLANK_FRAME;
+		cacheEntries[i] = new SpriteCache.Entry(frames[i]);
+		cacheEntries[i].setCached(cached);
+	}
+
+	void setFrame(int i, SpriteCache.Entry entry) {
+		rangeCheck(i);
+		frames[i] = entry.source;
+		cacheEntries[i] = entry;
 	}
 
 	private void rangeCheck(int i) {
@@ -88,6 +111,8 @@ public class Sprite {
 		rangeCheck(i);
 		if (frames[i] != BLANK_FRAME) {
 			frames[i] = scaledImage(frames[i], targetWidth, targetHeight);
+			cacheEntries[i] = new SpriteCache.Entry(frames[i]);
+			cacheEntries[i].setCached(cached);
 		}
 		return this;
 	}
@@ -120,6 +145,39 @@ public class Sprite {
 	}
 
 	/**
+	 * @return if the frames of this sprite are drawn through the {@link SpriteCache}
+	 */
+	public boolean isCached() {
+		return cached;
+	}
+
+	/**
+	 * Sets if the frames of this sprite are drawn through the {@link SpriteCache}. Sprites whose frame
+	 * images are changed after creation should not be cached. Frames taken from a {@link TextureAtlas}
+	 * are always drawn from the cached image of their atlas page.
+	 * 
+	 * @param cached if the frames are cached
+	 */
+	public void setCached(boolean cached) {
+		this.cached = cached;
+		for (SpriteCache.Entry entry : cacheEntries) {
+			if (entry != null && entry.root() == entry) {
+				entry.setCached(cached);
+			}
+		}
+	}
+
+	/**
+	 * @return number of frames of this sprite
+	 */
+	public int getFrameCount() {
+		return frames.length;
+	}
+
+	/**
+	 * Returns the source image of a frame. Changes to it are only shown if the sprite is not
+	 * {@link #isCached() cached}, the {@link SpriteCache} draws a snapshot of it otherwise.
+	 * 
 	 * @param i frame index
 	 * @return i'th frame of the sprite
 	 */
@@ -170,10 +228,23 @@ public class Sprite {
 	 * @param g graphics context
 	 */
 	public void draw(Graphics2D g) {
-		currentAnimationFrame().ifPresent(frame -> g.drawImage(frame, 0, 0, null));
+		nextFrameEntry().draw(g, 0, 0);
+	}
+
+	SpriteCache.Entry frameEntry(int i) {
+		rangeCheck(i);
+		return cacheEntries[i];
+	}
+
+	/*
+	 * Returns the cache entry of the current animation frame and moves to the next animation frame.
+	 */
+	SpriteCache.Entry nextFrameEntry() {
+		SpriteCache.Entry entry = cacheEntries[currentAnimationFrameIndex()];
 		if (animation.isEnabled()) {
 			animation.update();
 		}
+		return entry;
 	}
 
 	/**
@@ -0,0 +1,211 @@
+package de.amr.easy.game.ui.sprites;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.geom.AffineTransform;
+import java.util.Arrays;
+
+/**
+ * Collects sprite draw commands and draws them sorted by layer and source image.
+ * <p>
+ * Instead of drawing each sprite directly, views submit the current frame of their sprites
+ * together with position, rotation and layer into the batch. When the batch is flushed, the
+ * commands are sorted by layer, then by source image. Layers are drawn in ascending order. Inside a
+ * layer, all commands drawing from the same image (e.g. frames of the same {@link TextureAtlas}
+ * page) are drawn as one run: the image is validated once per run and unrotated frames are drawn
+ * without any transform change. Inside a layer, the drawing order is only kept for commands with
+ * the same source image, so overlapping sprites should be put into different layers.
+ * <p>
+ * The commands are stored in primitive arrays which grow as needed and are reused after flushing,
+ * so submitting commands does not create garbage. A batch must be used from a single thread.
+ *
+ * @author Armin Reichert
+ */
+public class SpriteBatch {
+
+	public static final int MIN_LAYER = Short.MIN_VALUE;
+	public static final int MAX_LAYER = Short.MAX_VALUE;
+
+	private static final int MAX_COMMANDS = 1 << 24;
+	private static final long INDEX_MASK = MAX_COMMANDS - 1;
+
+	private long[] keys;
+	private float[] xs, ys;
+	private double[] rotations;
+	private SpriteCache.Entry[] entries;
+	private int size;
+	private final AffineTransform rotation = new AffineTransform();
+	private int lastCommandCount;
+	private int lastRunCount;
+
+	/**
+	 * Creates a batch with the given initial capacity.
+	 *
+	 * @param capacity initial number of commands
+	 */
+	public SpriteBatch(int capacity) {
+		if (capacity < 1 || capacity > MAX_COMMANDS) {
+			throw new IllegalArgumentException("Illegal batch capacity: " + capacity);
+		}
+		keys = new long[capacity];
+		xs = new float[capacity];
+		ys = new float[capacity];
+		rotations = new double[capacity];
+		entries = new SpriteCache.Entry[capacity];
+	}
+
+	/**
+	 * Creates a batch with an initial capacity of 256 commands.
+	 */
+	public SpriteBatch() {
+		this(256);
+	}
+
+	/**
+	 * Submits the current frame of the given sprite at the given position into layer 0 and moves the
+	 * sprite to its next animation frame.
+	 *
+	 * @param sprite sprite
+	 * @param x      x-position
+	 * @param y      y-position
+	 */
+	public void draw(Sprite sprite, float x, float y) {
+		draw(sprite, x, y, 0, 0);
+	}
+
+	/**
+	 * Submits the current frame of the given sprite and moves the sprite to its next animation frame.
+	 *
+	 * @param sprite   sprite
+	 * @param x        x-position
+	 * @param y        y-position
+	 * @param rotation rotation angle in radians around the position
+	 * @param layer    layer, from {@link #MIN_LAYER} to {@link #MAX_LAYER}
+	 */
+	public void draw(Sprite sprite, float x, float y, double rotation, int layer) {
+		submit(sprite.nextFrameEntry(), x, y, rotation, layer);
+	}
+
+	/**
+	 * Submits the given frame of the sprite. The animation of the sprite is not changed.
+	 *
+	 * @param sprite   sprite
+	 * @param frame    frame index
+	 * @param x        x-position
+	 * @param y        y-position
+	 * @param rotation rotation angle in radians around the position
+	 * @param layer    layer, from {@link #MIN_LAYER} to {@link #MAX_LAYER}
+	 */
+	public void drawFrame(Sprite sprite, int frame, float x, float y, double rotation, int layer) {
+		submit(sprite.frameEntry(frame), x, y, rotation, layer);
+	}
+
+	private void submit(SpriteCache.Entry entry, float x, float y, double rotation, int layer) {
+		if (layer < MIN_LAYER || layer > MAX_LAYER) {
+			throw new IllegalArgumentException("Illegal layer: " + layer);
+		}
+		if (size == keys.length) {
+			grow();
+		}
+		keys[size] = (long) layer << 48 | (long) (entry.root().id & 0xFFFFFF) << 24 | size;
+		xs[size] = x;
+		ys[size] = y;
+		rotations[size] = rotation;
+		entries[size] = entry;
+		++size;
+	}
+
+	private void grow() {
+		if (keys.length == MAX_COMMANDS) {
+			throw new IllegalStateException("Sprite batch is full");
+		}
+		int capacity = Math.min(2 * keys.length, MAX_COMMANDS);
+		keys = Arrays.copyOf(keys, capacity);
+		xs = Arrays.copyOf(xs, capacity);
+		ys = Arrays.copyOf(ys, capacity);
+		rotations = Arrays.copyOf(rotations, capacity);
+		entries = Arrays.copyOf(entries, capacity);
+	}
+
+	/**
+	 * @return number of submitted commands not flushed yet
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Discards all submitted commands.
+	 */
+	public void clear() {
+		Arrays.fill(entries, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * @return number of commands drawn by the last flush
+	 */
+	public int getLastCommandCount() {
+		return lastCommandCount;
+	}
+
+	/**
+	 * @return number of runs (commands drawn from the same image) drawn by the last flush
+	 */
+	public int getLastRunCount() {
+		return lastRunCount;
+	}
+
+	/**
+	 * Draws all submitted commands and clears the batch.
+	 *
+	 * @param g graphics context
+	 */
+	public void flush(Graphics2D g) {
+		Arrays.sort(keys, 0, size);
+		AffineTransform saved = null;
+		int runs = 0;
+		for (int start = 0, end; start < size; start = end) {
+			SpriteCache.Entry root = entries[index(start)].root();
+			end = start + 1;
+			while (end < size && entries[index(end)].root() == root) {
+				++end;
+			}
+			if (saved == null) {
+				saved = g.getTransform();
+			}
+			Image image = root.acquire(g);
+			for (int k = start; k < end; ++k) {
+				int i = index(k);
+				if (rotations[i] == 0) {
+					entries[i].drawFrom(g, image, Math.round(xs[i]), Math.round(ys[i]));
+				} else {
+					rotation.setToTranslation(xs[i], ys[i]);
+					rotation.rotate(rotations[i]);
+					g.transform(rotation);
+					entries[i].drawFrom(g, image, 0, 0);
+					g.setTransform(saved);
+				}
+			}
+			if (root.lost(image)) {
+				// content lost while drawing, draw the run again frame by frame
+				for (int k = start; k < end; ++k) {
+					int i = index(k);
+					rotation.setToTranslation(xs[i], ys[i]);
+					rotation.rotate(rotations[i]);
+					g.transform(rotation);
+					entries[i].draw(g, 0, 0);
+					g.setTransform(saved);
+				}
+			}
+			++runs;
+		}
+		lastCommandCount = size;
+		lastRunCount = runs;
+		clear();
+	}
+
+	private int index(int k) {
+		return (int) (keys[k] & INDEX_MASK);
+	}
+}
@@ -0,0 +1,299 @@
+package de.amr.easy.game.ui.sprites;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.amr.easy.game.assets.Assets;
+
+/**
+ * Keeps sprite frames in a form the graphics pipeline can draw accelerated.
+ * <p>
+ * A frame drawn only once, e.g. a frame of a sprite that is rebuilt every tick, is drawn from its
+ * source image. When a frame is drawn to the screen again, it is copied into a {@link VolatileImage}
+ * of the screen's graphics configuration. The volatile image is validated before each drawing and
+ * restored from the source image when its content has been lost. If no accelerated volatile image
+ * can be created or the frame is drawn into an offscreen image, a managed image compatible with the
+ * default screen configuration is used instead.
+ * <p>
+ * The cached image is a snapshot of the source image taken when it is created. Later changes to the
+ * source image are not shown until the cache is {@link #invalidate() invalidated}. Sprites whose
+ * frames are changed while drawn should opt out of the cache by {@link Sprite#setCached(boolean)}.
+ * <p>
+ * Frames taken from a {@link TextureAtlas} share the cached image of their atlas page and are drawn
+ * as regions of it.
+ * <p>
+ * When the screen configuration changes, e.g. when switching between full-screen and window mode,
+ * the cache must be {@link #invalidate() invalidated}. The cached images are then recreated when
+ * the frames are drawn next time.
+ *
+ * @author Armin Reichert
+ */
+public final class SpriteCache {
+
+	private static final boolean HEADLESS = GraphicsEnvironment.isHeadless();
+	private static final int MAX_RESTORE_ATTEMPTS = 3;
+
+	private static volatile boolean enabled = true;
+	private static volatile int generation;
+
+	private SpriteCache() {
+	}
+
+	/**
+	 * Invalidates all cached images. They are recreated for the current screen configuration when
+	 * drawn next time.
+	 */
+	public static void invalidate() {
+		++generation;
+	}
+
+	/**
+	 * @return if the sprite cache is used when drawing sprites
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables the sprite cache. If disabled, sprite frames are drawn from their source
+	 * images.
+	 *
+	 * @param enabled if the cache is used
+	 */
+	public static void setEnabled(boolean enabled) {
+		SpriteCache.enabled = enabled;
+		invalidate();
+	}
+
+	/**
+	 * Cached accelerated copy of a single frame or of an atlas page. Must be drawn from a single
+	 * thread.
+	 */
+	static final class Entry {
+
+		/**
+		 * Creates an entry for a region of an atlas page, drawn from the cached image of the page.
+		 * 
+		 * @param page   entry of the atlas page
+		 * @param view   image view of the region
+		 * @param x      region left
+		 * @param y      region top
+		 * @param width  region width
+		 * @param height region height
+		 */
+		static Entry region(Entry page, Image view, int x, int y, int width, int height) {
+			return new Entry(view, page, x, y, width, height);
+		}
+
+		private static final AtomicInteger nextId = new AtomicInteger();
+
+		final int id = nextId.getAndIncrement();
+		final Image source;
+		private final Entry page;
+		private final int regionX, regionY, regionWidth, regionHeight;
+		private final int transparency;
+		private int entryGeneration = -1;
+		private boolean cached = true;
+		private boolean drawn;
+		private VolatileImage volatileImage;
+		private GraphicsConfiguration volatileConfig;
+		private boolean volatileFailed;
+		private BufferedImage managedImage;
+
+		Entry(Image source) {
+			this(source, null, 0, 0, -1, -1);
+		}
+
+		private Entry(Image source, Entry page, int x, int y, int width, int height) {
+			this.source = source;
+			this.page = page;
+			regionX = x;
+			regionY = y;
+			regionWidth = width;
+			regionHeight = height;
+			transparency = source instanceof Transparency t ? t.getTransparency() : Transparency.TRANSLUCENT;
+		}
+
+		void draw(Graphics2D g, int x, int y) {
+			if (page != null) {
+				page.drawRegion(g, x, y, regionX, regionY, regionWidth, regionHeight);
+			} else {
+				drawRegion(g, x, y, 0, 0, -1, -1);
+			}
+		}
+
+		/**
+		 * @return the entry holding the image this entry is drawn from: the atlas page entry for regions,
+		 *         this entry otherwise
+		 */
+		Entry root() {
+			return page != null ? page : this;
+		}
+
+		/**
+		 * @param cached if this entry creates a cached image, if not it is drawn from its source image
+		 */
+		void setCached(boolean cached) {
+			this.cached = cached;
+			if (!cached) {
+				release();
+			}
+		}
+
+		/**
+		 * Returns the image to draw this (root) entry from into the given graphics context. If it is a
+		 * volatile image, it is validated and must be checked with {@link #lost(Image)} after drawing.
+		 * 
+		 * @param g graphics context
+		 * @return image to draw from
+		 */
+		Image acquire(Graphics2D g) {
+			if (!enabled || HEADLESS || !cached) {
+				return source;
+			}
+			if (!drawn) {
+				// the cached image is created when this entry is drawn the second time
+				drawn = true;
+				return source;
+			}
+			if (entryGeneration != generation) {
+				release();
+				entryGeneration = generation;
+			}
+			GraphicsConfiguration gc = g.getDeviceConfiguration();
+			if (gc.getDevice().getType() == GraphicsDevice.TYPE_RASTER_SCREEN) {
+				VolatileImage image = validVolatileImage(gc);
+				if (image != null) {
+					return image;
+				}
+			}
+			return managedImage();
+		}
+
+		/**
+		 * @param image image returned by {@link #acquire(Graphics2D)}
+		 * @return if the content of the image was lost while drawing from it
+		 */
+		boolean lost(Image image) {
+			return image == volatileImage && volatileImage.contentsLost();
+		}
+
+		/**
+		 * Draws this entry from the given image of its root entry.
+		 * 
+		 * @param g     graphics context
+		 * @param image image returned by {@link #acquire(Graphics2D)} of the root entry
+		 * @param x     x-position
+		 * @param y     y-position
+		 */
+		void drawFrom(Graphics2D g, Image image, int x, int y) {
+			blit(g, image, x, y, regionX, regionY, regionWidth, regionHeight);
+		}
+
+		/*
+		 * Draws the given region (width -1: the whole image) of this entry's image at the given position.
+		 */
+		private void drawRegion(Graphics2D g, int x, int y, int sx, int sy, int width, int height) {
+			for (int attempt = 0; attempt < MAX_RESTORE_ATTEMPTS; ++attempt) {
+				Image image = acquire(g);
+				blit(g, image, x, y, sx, sy, width, height);
+				if (!lost(image)) {
+					return;
+				}
+			}
+			blit(g, managedImage(), x, y, sx, sy, width, height);
+		}
+
+		private static void blit(Graphics2D g, Image image, int x, int y, int sx, int sy, int width, int height) {
+			if (width == -1) {
+				g.drawImage(image, x, y, null);
+			} else {
+				g.drawImage(image, x, y, x + width, y + height, sx, sy, sx + width, sy + height, null);
+			}
+		}
+
+		private VolatileImage validVolatileImage(GraphicsConfiguration gc) {
+			if (volatileFailed) {
+				return null;
+			}
+			if (volatileImage == null || volatileConfig != gc) {
+				if (!createVolatileImage(gc)) {
+					return null;
+				}
+			}
+			int status = volatileImage.validate(gc);
+			if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+				if (!createVolatileImage(gc)) {
+					return null;
+				}
+			} else if (status == VolatileImage.IMAGE_RESTORED) {
+				renderSource();
+			}
+			return volatileImage;
+		}
+
+		private boolean createVolatileImage(GraphicsConfiguration gc) {
+			if (volatileImage != null) {
+				volatileImage.flush();
+				volatileImage = null;
+			}
+			int width = source.getWidth(null), height = source.getHeight(null);
+			VolatileImage image = width > 0 && height > 0
+					? gc.createCompatibleVolatileImage(width, height, transparency)
+					: null;
+			if (image == null || !image.getCapabilities().isAccelerated()) {
+				// an unaccelerated volatile image is slower than a managed image
+				if (image != null) {
+					image.flush();
+				}
+				volatileFailed = true;
+				return false;
+			}
+			volatileImage = image;
+			volatileConfig = gc;
+			volatileImage.validate(gc);
+			renderSource();
+			return true;
+		}
+
+		private void renderSource() {
+			Graphics2D vg = volatileImage.createGraphics();
+			vg.setComposite(AlphaComposite.Src);
+			vg.drawImage(source, 0, 0, null);
+			vg.dispose();
+		}
+
+		private Image managedImage() {
+			if (managedImage == null) {
+				int width = source.getWidth(null), height = source.getHeight(null);
+				if (width <= 0 || height <= 0) {
+					return source;
+				}
+				managedImage = Assets.createBufferedImage(width, height, transparency);
+				Graphics2D mg = managedImage.createGraphics();
+				mg.setComposite(AlphaComposite.Src);
+				mg.drawImage(source, 0, 0, null);
+				mg.dispose();
+			}
+			return managedImage;
+		}
+
+		private void release() {
+			if (volatileImage != null) {
+				volatileImage.flush();
+				volatileImage = null;
+			}
+			volatileConfig = null;
+			volatileFailed = false;
+			managedImage = null;
+		}
+	}
+}
@@ -20,6 +20,18 @@ public class Spritesheet {
 		this.tileSize = tileSize;
 	}
 
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	public int getColumns() {
+		return image.getWidth() / tileSize;
+	}
+
+	public int getRows() {
+		return image.getHeight() / tileSize;
+	}
+
 	public BufferedImage region(int x, int y, int w, int h) {
 		return image.getSubimage(x, y, w, h);
 	}
@@ -0,0 +1,476 @@
+package de.amr.easy.game.ui.sprites;
+
+import static de.amr.easy.game.Application.loginfo;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.imageio.ImageIO;
+
+import de.amr.easy.game.assets.AssetException;
+import de.amr.easy.game.assets.Assets;
+
+/**
+ * A texture atlas: sprite frames from many images and spritesheets packed into a few large pages.
+ * <p>
+ * Sprites created from an atlas (see {@link #sprite(String...)}) reference regions of the atlas
+ * pages such that all their frames are drawn from the same (cached, see {@link SpriteCache}) page
+ * image. An atlas is created using a {@link Builder}, which packs the frames using the MaxRects
+ * algorithm. If a cache directory is given, the packed pages and the region index are stored there
+ * under a fingerprint of the input and loaded on the next start instead of packing again.
+ *
+ * @author Armin Reichert
+ */
+public class TextureAtlas {
+
+	/** A region of an atlas page. */
+	public record Region(int page, int x, int y, int width, int height) {
+	}
+
+	/**
+	 * Collects the frames and packs them into an atlas.
+	 */
+	public static class Builder {
+
+		private final Map<String, Object> sources = new LinkedHashMap<>();
+		private int pageSize = 1024;
+		private int padding = 1;
+		private Path cacheDir;
+
+		/**
+		 * @param pageSize maximum width and height of an atlas page (default: 1024)
+		 * @return the builder
+		 */
+		public Builder pageSize(int pageSize) {
+			if (pageSize < 1) {
+				throw new IllegalArgumentException("Page size must be positive, is " + pageSize);
+			}
+			this.pageSize = pageSize;
+			return this;
+		}
+
+		/**
+		 * @param padding space in pixels between packed frames (default: 1)
+		 * @return the builder
+		 */
+		public Builder padding(int padding) {
+			if (padding < 0) {
+				throw new IllegalArgumentException("Padding must not be negative, is " + padding);
+			}
+			this.padding = padding;
+			return this;
+		}
+
+		/**
+		 * @param cacheDir directory where packed atlases are stored and loaded from
+		 * @return the builder
+		 */
+		public Builder cacheDir(Path cacheDir) {
+			this.cacheDir = cacheDir;
+			return this;
+		}
+
+		/**
+		 * Adds a frame.
+		 *
+		 * @param name  frame name
+		 * @param image frame image
+		 * @return the builder
+		 */
+		public Builder add(String name, BufferedImage image) {
+			put(name, Objects.requireNonNull(image));
+			return this;
+		}
+
+		/**
+		 * Adds the image asset with the given path. The image is read only if the atlas is not found in
+		 * the cache.
+		 *
+		 * @param path asset path, also used as frame name
+		 * @return the builder
+		 */
+		public Builder addAsset(String path) {
+			put(path, new AssetSource(path));
+			return this;
+		}
+
+		/**
+		 * Adds all tiles of a spritesheet. The tile at column {@code col} and row {@code row} gets the
+		 * name {@code prefix/col,row}.
+		 *
+		 * @param prefix name prefix
+		 * @param sheet  spritesheet
+		 * @return the builder
+		 */
+		public Builder addTiles(String prefix, Spritesheet sheet) {
+			for (int row = 0; row < sheet.getRows(); ++row) {
+				for (int col = 0; col < sheet.getColumns(); ++col) {
+					add(tileName(prefix, col, row), sheet.tile(col, row));
+				}
+			}
+			return this;
+		}
+
+		private void put(String name, Object source) {
+			Objects.requireNonNull(name);
+			if (name.indexOf('\t') != -1 || name.indexOf('\n') != -1 || name.indexOf('\r') != -1) {
+				throw new IllegalArgumentException("Frame name must not contain tabs or line breaks: " + name);
+			}
+			if (sources.put(name, source) != null) {
+				throw new IllegalArgumentException("Duplicate frame name: " + name);
+			}
+		}
+
+		/**
+		 * Packs the frames into an atlas or loads the atlas from the cache directory.
+		 *
+		 * @return the atlas
+		 */
+		public TextureAtlas build() {
+			String fingerprint = null;
+			if (cacheDir != null) {
+				fingerprint = fingerprint();
+				TextureAtlas cached = AtlasCache.load(cacheDir, fingerprint);
+				if (cached != null) {
+					loginfo("Texture atlas %s loaded from cache", fingerprint);
+					return cached;
+				}
+			}
+			TextureAtlas atlas = pack();
+			if (cacheDir != null) {
+				AtlasCache.store(cacheDir, fingerprint, atlas);
+			}
+			return atlas;
+		}
+
+		private TextureAtlas pack() {
+			Map<String, BufferedImage> images = new LinkedHashMap<>();
+			sources.forEach((name, source) -> images.put(name, image(source)));
+			List<String> names = new ArrayList<>(images.keySet());
+			// largest frames first, then by name for a deterministic layout
+			names.sort(Comparator
+					.comparingInt((String name) -> Math.max(images.get(name).getWidth(), images.get(name).getHeight()))
+					.reversed().thenComparing(Comparator.naturalOrder()));
+			List<MaxRectsBin> bins = new ArrayList<>();
+			Map<String, Region> regions = new HashMap<>();
+			for (String name : names) {
+				BufferedImage image = images.get(name);
+				int w = image.getWidth() + padding, h = image.getHeight() + padding;
+				Rectangle place = null;
+				int page = 0;
+				for (; page < bins.size() && place == null; ++page) {
+					place = bins.get(page).insert(w, h);
+				}
+				if (place == null) {
+					// new page, frames larger than a page get a page of their own
+					bins.add(new MaxRectsBin(Math.max(pageSize, w), Math.max(pageSize, h)));
+					page = bins.size();
+					place = bins.get(page - 1).insert(w, h);
+				}
+				regions.put(name, new Region(page - 1, place.x, place.y, image.getWidth(), image.getHeight()));
+			}
+			List<BufferedImage> pages = new ArrayList<>();
+			for (MaxRectsBin bin : bins) {
+				pages.add(createPage(Math.max(1, bin.usedWidth), Math.max(1, bin.usedHeight)));
+			}
+			for (String name : names) {
+				Region region = regions.get(name);
+				Graphics2D g = pages.get(region.page()).createGraphics();
+				g.setComposite(AlphaComposite.Src);
+				g.drawImage(images.get(name), region.x(), region.y(), null);
+				g.dispose();
+			}
+			loginfo("Texture atlas packed: %d frames into %d page(s)", names.size(), pages.size());
+			return new TextureAtlas(pages, regions);
+		}
+
+		private BufferedImage image(Object source) {
+			return source instanceof AssetSource asset ? Assets.image(asset.path) : (BufferedImage) source;
+		}
+
+		/*
+		 * Fingerprint of the atlas input: packing parameters, frame names and the content of all frames.
+		 * Assets are fingerprinted by their file content such that they need not be decoded.
+		 */
+		private String fingerprint() {
+			try {
+				MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				digest.update(ByteBuffer.allocate(12).putInt(AtlasCache.VERSION).putInt(pageSize).putInt(padding).array());
+				for (Map.Entry<String, Object> entry : sources.entrySet()) {
+					digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+					digest.update((byte) 0);
+					if (entry.getValue() instanceof AssetSource asset) {
+						try (InputStream in = Assets.stream(asset.path)) {
+							byte[] buffer = new byte[8192];
+							for (int n; (n = in.read(buffer)) != -1;) {
+								digest.update(buffer, 0, n);
+							}
+						}
+					} else {
+						BufferedImage image = (BufferedImage) entry.getValue();
+						int w = image.getWidth(), h = image.getHeight();
+						int[] pixels = image.getRGB(0, 0, w, h, null, 0, w);
+						ByteBuffer bytes = ByteBuffer.allocate(8 + 4 * pixels.length).putInt(w).putInt(h);
+						bytes.asIntBuffer().put(pixels);
+						digest.update(bytes.array());
+					}
+				}
+				return HexFormat.of().formatHex(digest.digest(), 0, 16);
+			} catch (NoSuchAlgorithmException | IOException x) {
+				throw new AssetException("Could not compute texture atlas fingerprint", x);
+			}
+		}
+	}
+
+	private record AssetSource(String path) {
+	}
+
+	/*
+	 * MaxRects bin packing with the "best short side fit" heuristic.
+	 */
+	private static class MaxRectsBin {
+
+		private final List<Rectangle> freeRects = new ArrayList<>();
+		private int usedWidth, usedHeight;
+
+		MaxRectsBin(int width, int height) {
+			freeRects.add(new Rectangle(0, 0, width, height));
+		}
+
+		Rectangle insert(int width, int height) {
+			Rectangle best = null;
+			int bestShortSide = Integer.MAX_VALUE, bestLongSide = Integer.MAX_VALUE;
+			for (Rectangle free : freeRects) {
+				if (free.width >= width && free.height >= height) {
+					int shortSide = Math.min(free.width - width, free.height - height);
+					int longSide = Math.max(free.width - width, free.height - height);
+					if (shortSide < bestShortSide || shortSide == bestShortSide && longSide < bestLongSide) {
+						best = new Rectangle(free.x, free.y, width, height);
+						bestShortSide = shortSide;
+						bestLongSide = longSide;
+					}
+				}
+			}
+			if (best != null) {
+				place(best);
+			}
+			return best;
+		}
+
+		private void place(Rectangle used) {
+			List<Rectangle> split = new ArrayList<>();
+			for (int i = freeRects.size() - 1; i >= 0; --i) {
+				Rectangle free = freeRects.get(i);
+				if (free.intersects(used)) {
+					freeRects.remove(i);
+					if (used.x > free.x) {
+						split.add(new Rectangle(free.x, free.y, used.x - free.x, free.height));
+					}
+					if (used.x + used.width < free.x + free.width) {
+						split.add(new Rectangle(used.x + used.width, free.y, free.x + free.width - used.x - used.width,
+								free.height));
+					}
+					if (used.y > free.y) {
+						split.add(new Rectangle(free.x, free.y, free.width, used.y - free.y));
+					}
+					if (used.y + used.height < free.y + free.height) {
+						split.add(new Rectangle(free.x, used.y + used.height, free.width,
+								free.y + free.height - used.y - used.height));
+					}
+				}
+			}
+			freeRects.addAll(split);
+			// remove free rectangles contained in others
+			for (int i = 0; i < freeRects.size(); ++i) {
+				for (int j = i + 1; j < freeRects.size(); ++j) {
+					if (freeRects.get(j).contains(freeRects.get(i))) {
+						freeRects.remove(i--);
+						break;
+					}
+					if (freeRects.get(i).contains(freeRects.get(j))) {
+						freeRects.remove(j--);
+					}
+				}
+			}
+			usedWidth = Math.max(usedWidth, used.x + used.width);
+			usedHeight = Math.max(usedHeight, used.y + used.height);
+		}
+	}
+
+	/*
+	 * Stores atlases as PNG pages plus a text index named by their fingerprint.
+	 */
+	private static class AtlasCache {
+
+		static final int VERSION = 1;
+		static final String HEADER = "easy-game-atlas " + VERSION;
+
+		static TextureAtlas load(Path dir, String fingerprint) {
+			Path index = dir.resolve("atlas-" + fingerprint + ".idx");
+			if (!Files.isReadable(index)) {
+				return null;
+			}
+			try (BufferedReader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+				if (!HEADER.equals(reader.readLine())) {
+					return null;
+				}
+				int pageCount = Integer.parseInt(reader.readLine().trim());
+				List<BufferedImage> pages = new ArrayList<>();
+				for (int i = 0; i < pageCount; ++i) {
+					BufferedImage png = ImageIO.read(dir.resolve(pageFileName(fingerprint, i)).toFile());
+					if (png == null) {
+						return null;
+					}
+					BufferedImage page = createPage(png.getWidth(), png.getHeight());
+					Graphics2D g = page.createGraphics();
+					g.setComposite(AlphaComposite.Src);
+					g.drawImage(png, 0, 0, null);
+					g.dispose();
+					pages.add(page);
+				}
+				Map<String, Region> regions = new HashMap<>();
+				for (String line; (line = reader.readLine()) != null;) {
+					if (line.isEmpty()) {
+						continue;
+					}
+					String[] fields = line.split("\t");
+					regions.put(fields[0], new Region(Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+							Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), Integer.parseInt(fields[5])));
+				}
+				return new TextureAtlas(pages, regions);
+			} catch (IOException | RuntimeException x) {
+				loginfo("Texture atlas %s could not be loaded from cache: %s", fingerprint, x);
+				return null;
+			}
+		}
+
+		static void store(Path dir, String fingerprint, TextureAtlas atlas) {
+			try {
+				Files.createDirectories(dir);
+				for (int i = 0; i < atlas.pages.size(); ++i) {
+					Path tmp = Files.createTempFile(dir, "atlas", ".tmp");
+					ImageIO.write(atlas.pages.get(i), "png", tmp.toFile());
+					Files.move(tmp, dir.resolve(pageFileName(fingerprint, i)), StandardCopyOption.REPLACE_EXISTING);
+				}
+				// the index is written last, its presence marks a complete cache entry
+				Path tmp = Files.createTempFile(dir, "atlas", ".tmp");
+				try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+					writer.write(HEADER + "\n");
+					writer.write(atlas.pages.size() + "\n");
+					for (Map.Entry<String, Region> entry : atlas.regions.entrySet()) {
+						Region r = entry.getValue();
+						writer.write(String.join("\t", entry.getKey(), String.valueOf(r.page()), String.valueOf(r.x()),
+								String.valueOf(r.y()), String.valueOf(r.width()), String.valueOf(r.height())) + "\n");
+					}
+				}
+				Files.move(tmp, dir.resolve("atlas-" + fingerprint + ".idx"), StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException x) {
+				loginfo("Texture atlas %s could not be stored in cache: %s", fingerprint, x);
+			}
+		}
+
+		static String pageFileName(String fingerprint, int page) {
+			return "atlas-" + fingerprint + "-" + page + ".png";
+		}
+	}
+
+	/**
+	 * @param prefix name prefix used in {@link Builder#addTiles(String, Spritesheet)}
+	 * @param col    tile column
+	 * @param row    tile row
+	 * @return name of the tile in the atlas
+	 */
+	public static String tileName(String prefix, int col, int row) {
+		return prefix + "/" + col + "," + row;
+	}
+
+	private static BufferedImage createPage(int width, int height) {
+		return Assets.createBufferedImage(width, height, Transparency.TRANSLUCENT);
+	}
+
+	private final List<BufferedImage> pages;
+	private final List<SpriteCache.Entry> pageEntries = new ArrayList<>();
+	private final Map<String, Region> regions;
+
+	private TextureAtlas(List<BufferedImage> pages, Map<String, Region> regions) {
+		this.pages = pages;
+		this.regions = regions;
+		for (BufferedImage page : pages) {
+			pageEntries.add(new SpriteCache.Entry(page));
+		}
+	}
+
+	/**
+	 * @return the atlas pages
+	 */
+	public List<BufferedImage> pages() {
+		return Collections.unmodifiableList(pages);
+	}
+
+	/**
+	 * @return the names of all frames in this atlas
+	 */
+	public Iterable<String> names() {
+		return Collections.unmodifiableSet(regions.keySet());
+	}
+
+	/**
+	 * @param name frame name
+	 * @return the region of the frame
+	 */
+	public Region region(String name) {
+		Region region = regions.get(name);
+		if (region == null) {
+			throw new AssetException("No frame found in texture atlas with name: " + name);
+		}
+		return region;
+	}
+
+	/**
+	 * @param name frame name
+	 * @return image view of the frame, sharing the pixels of the atlas page
+	 */
+	public BufferedImage image(String name) {
+		Region r = region(name);
+		return pages.get(r.page()).getSubimage(r.x(), r.y(), r.width(), r.height());
+	}
+
+	/**
+	 * Creates a sprite whose frames are regions of this atlas.
+	 *
+	 * @param names frame names
+	 * @return the sprite
+	 */
+	public Sprite sprite(String... names) {
+		Sprite sprite = Sprite.withFrames(names.length);
+		for (int i = 0; i < names.length; ++i) {
+			Region r = region(names[i]);
+			sprite.setFrame(i,
+					SpriteCache.Entry.region(pageEntries.get(r.page()), image(names[i]), r.x(), r.y(), r.width(), r.height()));
+		}
+		return sprite;
+	}
+}
@@ -5,13 +5,14 @@ import static java.lang.Math.round;
 
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.util.Objects;
 
 import de.amr.easy.game.controller.Lifecycle;
 import de.amr.easy.game.entity.Entity;
-import de.amr.easy.game.math.V2f;
 import de.amr.easy.game.ui.sprites.Sprite;
+import de.amr.easy.game.ui.sprites.SpriteBatch;
 import de.amr.easy.game.view.View;
 
 public class PumpingImageWidget extends Entity implements Lifecycle, View {
@@ -103,13 +104,25 @@ public class PumpingImageWidget extends Entity implements Lifecycle, View {
 	@Override
 	public void draw(Graphics2D g) {
 		if (visible) {
-			g = (Graphics2D) g.create();
-			V2f center = tf.getCenter();
+			AffineTransform saved = g.getTransform();
 			int dx = -sprite.getWidth() / 2, dy = -sprite.getHeight() / 2;
-			g.translate(center.x() + dx, center.y() + dy);
+			g.translate(tf.getCenterX() + dx, tf.getCenterY() + dy);
 			g.rotate(tf.rotation);
 			sprite.draw(g);
-			g.dispose();
+			g.setTransform(saved);
+		}
+	}
+
+	/**
+	 * Submits this widget into the given sprite batch.
+	 * 
+	 * @param batch sprite batch
+	 * @param layer batch layer
+	 */
+	public void draw(SpriteBatch batch, int layer) {
+		if (visible) {
+			int dx = -sprite.getWidth() / 2, dy = -sprite.getHeight() / 2;
+			batch.draw(sprite, tf.getCenterX() + dx, tf.getCenterY() + dy, tf.rotation, layer);
 		}
 	}
 }
\ No newline at end of file
@@ -5,6 +5,8 @@ import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.Objects;
@@ -13,6 +15,7 @@ import java.util.function.BooleanSupplier;
 import de.amr.easy.game.entity.GameObject;
 import de.amr.easy.game.ui.sprites.AnimationType;
 import de.amr.easy.game.ui.sprites.Sprite;
+import de.amr.easy.game.ui.sprites.SpriteBatch;
 
 /**
  * A multi-line text that can be moved over the screen.
@@ -80,6 +83,8 @@ public class TextWidget extends GameObject {
 		}
 	}
 
+	private static final FontRenderContext MEASURING_CONTEXT = new FontRenderContext(null, true, false);
+
 	public static Builder create() {
 		return new Builder();
 	}
@@ -105,23 +110,17 @@ public class TextWidget extends GameObject {
 		color = Color.BLUE;
 		lineSpacing = 1.5f;
 		blinkTimeMillis = Integer.MAX_VALUE;
-		updateSprite();
 	}
 
 	private void updateSprite() {
-		String spaces = " ";
-		for (int j = 1; j < spaceExpansion; ++j) {
-			spaces += " ";
-		}
+		String spaces = " ".repeat(Math.max(spaceExpansion, 1));
 
+		// measure with the same font render context as used for drawing
 		tf.width = (0);
 		tf.height = (0);
-		BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = image.createGraphics();
-		g.setFont(font);
 		for (int i = 0; i < lines.length; ++i) {
 			String line = lines[i].replace(" ", spaces);
-			Rectangle2D lineBounds = g.getFontMetrics().getStringBounds(line, g);
+			Rectangle2D lineBounds = font.getStringBounds(line, MEASURING_CONTEXT);
 			tf.height = (tf.height + (int) Math.ceil(lineBounds.getHeight()));
 			if (i < lines.length - 1) {
 				tf.height = (tf.height + (int) Math.ceil(lineSpacing));
@@ -132,8 +131,8 @@ public class TextWidget extends GameObject {
 		// create correctly sized image
 		tf.width = (Math.max(tf.width, 1));
 		tf.height = (Math.max(tf.height, 1));
-		image = new BufferedImage(tf.width, tf.height, BufferedImage.TYPE_INT_ARGB);
-		g = image.createGraphics();
+		BufferedImage image = new BufferedImage(tf.width, tf.height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
 		if (background != null) {
 			g.setColor(background);
 			g.fillRect(0, 0, tf.width, tf.height);
@@ -153,7 +152,7 @@ public class TextWidget extends GameObject {
 				y += lineSpacing;
 			}
 		}
-		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+		g.dispose();
 
 		// store sprite and set collision box
 		sprite = Sprite.of(image, null).animate(AnimationType.FORWARD_BACKWARDS, blinkTimeMillis / 2);
@@ -233,11 +232,23 @@ public class TextWidget extends GameObject {
 	@Override
 	public void draw(Graphics2D g) {
 		if (visible) {
-			g = (Graphics2D) g.create();
+			AffineTransform saved = g.getTransform();
 			g.translate(tf.x, tf.y);
 			g.rotate(tf.rotation);
 			sprite.draw(g);
-			g.dispose();
+			g.setTransform(saved);
+		}
+	}
+
+	/**
+	 * Submits this widget into the given sprite batch.
+	 * 
+	 * @param batch sprite batch
+	 * @param layer batch layer
+	 */
+	public void draw(SpriteBatch batch, int layer) {
+		if (visible) {
+			batch.draw(sprite, tf.x, tf.y, tf.rotation, layer);
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package de.amr.easy.game.view;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * Collects the regions of a view that have changed since the last frame (see {@link RetainedView}).
+ * Regions are given in view coordinates. If too many regions are added, the whole view is
+ * considered dirty.
+ * 
+ * @author Armin Reichert
+ */
+public class DirtyRegions {
+
+	/** Maximum number of regions kept before the whole view is considered dirty. */
+	public static final int MAX_REGIONS = 64;
+
+	private final int[] rects = new int[4 * MAX_REGIONS];
+	private int count;
+	private boolean all;
+
+	/**
+	 * Adds a changed region.
+	 * 
+	 * @param x      left
+	 * @param y      top
+	 * @param width  width
+	 * @param height height
+	 */
+	public void add(int x, int y, int width, int height) {
+		if (all || width <= 0 || height <= 0) {
+			return;
+		}
+		if (count == MAX_REGIONS) {
+			all = true;
+			return;
+		}
+		int i = 4 * count++;
+		rects[i] = x;
+		rects[i + 1] = y;
+		rects[i + 2] = width;
+		rects[i + 3] = height;
+	}
+
+	/**
+	 * Adds a changed region, enlarged to integer coordinates.
+	 * 
+	 * @param x      left
+	 * @param y      top
+	 * @param width  width
+	 * @param height height
+	 */
+	public void add(double x, double y, double width, double height) {
+		int left = (int) Math.floor(x), top = (int) Math.floor(y);
+		add(left, top, (int) Math.ceil(x + width) - left, (int) Math.ceil(y + height) - top);
+	}
+
+	/**
+	 * Adds a changed region, enlarged to integer coordinates.
+	 * 
+	 * @param rect region
+	 */
+	public void add(Rectangle2D rect) {
+		add(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight());
+	}
+
+	/**
+	 * Marks the whole view as changed.
+	 */
+	public void addAll() {
+		all = true;
+	}
+
+	/**
+	 * @return if the whole view has changed
+	 */
+	public boolean isAll() {
+		return all;
+	}
+
+	/**
+	 * @return if nothing has changed
+	 */
+	public boolean isEmpty() {
+		return !all && count == 0;
+	}
+
+	/**
+	 * @return number of changed regions (not meaningful if the whole view has changed)
+	 */
+	public int size() {
+		return count;
+	}
+
+	public int x(int i) {
+		return rects[4 * i];
+	}
+
+	public int y(int i) {
+		return rects[4 * i + 1];
+	}
+
+	public int width(int i) {
+		return rects[4 * i + 2];
+	}
+
+	public int height(int i) {
+		return rects[4 * i + 3];
+	}
+
+	/**
+	 * Removes all regions.
+	 */
+	public void clear() {
+		Arrays.fill(rects, 0, 4 * count, 0);
+		count = 0;
+		all = false;
+	}
+}
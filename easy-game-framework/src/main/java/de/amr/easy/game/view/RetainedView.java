@@ -0,0 +1,20 @@
+package de.amr.easy.game.view;
+
+/**
+ * A view rendered in retained mode. The application shell keeps the content of the last frame in an
+ * offscreen image and only redraws the regions reported by the view as changed. When a region is
+ * redrawn, it is cleared and the graphics context passed to {@link #draw} is clipped to the region.
+ * Use this for mostly static screens like menus.
+ * 
+ * @author Armin Reichert
+ */
+public interface RetainedView extends View {
+
+	/**
+	 * Adds the regions (in view coordinates) whose content has changed since the last frame. The first
+	 * frame and frames after the display has changed are always drawn completely.
+	 * 
+	 * @param regions collects the changed regions
+	 */
+	void collectDirtyRegions(DirtyRegions regions);
+}
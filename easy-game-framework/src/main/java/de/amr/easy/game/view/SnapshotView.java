@@ -0,0 +1,22 @@
+package de.amr.easy.game.view;
+
+/**
+ * A view that can be rendered by the render thread in pipelined rendering mode (see
+ * {@link de.amr.easy.game.config.AppSettings#pipelinedRendering}). After each update, the clock
+ * thread takes a snapshot of the view. The snapshot is drawn by the render thread while the clock
+ * thread already runs the next update, so it must not share any state that is changed by updates.
+ * Views not implementing this interface are rendered by the clock thread also in pipelined mode.
+ *
+ * @author Armin Reichert
+ */
+public interface SnapshotView extends View {
+
+	/**
+	 * Called by the clock thread after the update. Returns a view drawing the current state of this
+	 * view which is not modified by later updates, e.g. a list of draw commands or copies of the
+	 * positions and frames to be drawn.
+	 *
+	 * @return snapshot of this view
+	 */
+	View snapshot();
+}
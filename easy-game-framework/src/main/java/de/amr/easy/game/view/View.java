@@ -15,4 +15,16 @@ public interface View {
 	 * @param g the graphics context used for drawing
 	 */
 	void draw(Graphics2D g);
+
+	/**
+	 * Draws the content of the view. If the application clock runs in fixed-timestep mode, the
+	 * interpolation value tells how far the current frame lies between the last two clock ticks. By
+	 * default, the interpolation is ignored.
+	 * 
+	 * @param g             the graphics context used for drawing
+	 * @param interpolation fraction of the tick time passed since the last tick (0..1)
+	 */
+	default void draw(Graphics2D g, float interpolation) {
+		draw(g);
+	}
 }
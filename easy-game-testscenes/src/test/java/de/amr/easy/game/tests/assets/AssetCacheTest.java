@@ -0,0 +1,101 @@
+package de.amr.easy.game.tests.assets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import de.amr.easy.game.assets.AssetCache;
+
+public class AssetCacheTest {
+
+	private AssetCache<String> cache(long maxBytes, List<String> evicted) {
+		AssetCache<String> cache = new AssetCache<>("test", String::length, maxBytes);
+		cache.setEvictionListener(evicted::add);
+		return cache;
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction() {
+		List<String> evicted = new ArrayList<>();
+		AssetCache<String> cache = cache(10, evicted);
+		cache.put("a", "aaaa");
+		cache.put("b", "bbbb");
+		assertEquals("aaaa", cache.get("a")); // "b" is now least recently used
+		cache.put("c", "cccc");
+		assertEquals(List.of("bbbb"), evicted);
+		assertEquals(8, cache.getBytes());
+		assertNull(cache.get("b"));
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void testPinnedAndFilteredEntriesAreKept() {
+		List<String> evicted = new ArrayList<>();
+		AssetCache<String> cache = cache(10, evicted);
+		cache.pin("a");
+		cache.setEvictionFilter(value -> !value.startsWith("running"));
+		cache.put("a", "aaaa");
+		cache.put("r", "running");
+		cache.put("c", "cccc");
+		assertTrue(evicted.isEmpty());
+		assertEquals(15, cache.getBytes());
+		cache.unpin("a");
+		cache.setMaxBytes(12);
+		assertEquals(List.of("aaaa"), evicted);
+		assertFalse(cache.contains("a"));
+		assertEquals(List.of("r", "c"), cache.keys());
+	}
+
+	@Test
+	public void testLoadOnceUnderContention() throws Exception {
+		AssetCache<String> cache = new AssetCache<>("test", String::length, AssetCache.UNLIMITED);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		List<String> results = new ArrayList<>();
+		for (int i = 0; i < 8; ++i) {
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException x) {
+					return;
+				}
+				String value = cache.getOrLoad("key", key -> {
+					loads.incrementAndGet();
+					try {
+						Thread.sleep(20);
+					} catch (InterruptedException x) {
+						Thread.currentThread().interrupt();
+					}
+					return new String("value");
+				});
+				synchronized (results) {
+					results.add(value);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(1, loads.get());
+		assertEquals(8, results.size());
+		for (String result : results) {
+			assertSame(results.get(0), result);
+		}
+		assertEquals(1, cache.getLoadCount());
+	}
+}
@@ -0,0 +1,75 @@
+package de.amr.easy.game.tests.assets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import de.amr.easy.game.assets.AssetException;
+import de.amr.easy.game.assets.AssetLoadListener;
+import de.amr.easy.game.assets.AssetManifest;
+import de.amr.easy.game.assets.AssetPreloader;
+import de.amr.easy.game.assets.Assets;
+
+public class AssetPreloaderTest {
+
+	static final String[] ICONS = { "icons/soundwave.png", "icons/pause-play-and-stop-blank-icons.png",
+			"icons/muted.png" };
+
+	@Test
+	public void testPreload() throws Exception {
+		AssetManifest manifest = new AssetManifest().images(ICONS).image("icons/missing.png");
+		List<String> loaded = new CopyOnWriteArrayList<>();
+		List<String> failed = new CopyOnWriteArrayList<>();
+		try (AssetPreloader preloader = new AssetPreloader(2)) {
+			preloader.preload(manifest, new AssetLoadListener() {
+
+				@Override
+				public void assetCompleted(AssetManifest.Entry entry, int completed, int total) {
+					loaded.add(entry.path());
+					assertEquals(4, total);
+				}
+
+				@Override
+				public void assetFailed(AssetManifest.Entry entry, Throwable error) {
+					assertTrue(error instanceof AssetException);
+					failed.add(entry.path());
+				}
+			}).get(10, TimeUnit.SECONDS);
+			assertTrue(preloader.isDone());
+			assertEquals(1, preloader.getProgress(), 0);
+			assertEquals(4, loaded.size());
+			assertEquals(List.of("icons/missing.png"), failed);
+			assertEquals(1, preloader.getFailures().size());
+		}
+		for (String icon : ICONS) {
+			assertTrue(Assets.images().anyMatch(image -> image == Assets.image(icon)));
+		}
+	}
+
+	@Test
+	public void testConcurrentAccessLoadsOnce() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<BufferedImage>> results = new CopyOnWriteArrayList<>();
+			for (int i = 0; i < 16; ++i) {
+				results.add(executor.submit(() -> Assets.image("icons/muted.png")));
+			}
+			BufferedImage first = results.get(0).get();
+			for (Future<BufferedImage> result : results) {
+				assertSame(first, result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package de.amr.easy.game.tests.assets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.amr.easy.game.assets.Assets;
+import de.amr.easy.game.assets.ImageDiskCache;
+
+public class ImageDiskCacheTest {
+
+	static final String ICON = "icons/pause-play-and-stop-blank-icons.png";
+
+	private Path dir;
+
+	@Before
+	public void createDirectory() throws IOException {
+		dir = Files.createTempDirectory("image-cache-test");
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		new ImageDiskCache(dir).clear();
+		Files.deleteIfExists(dir);
+	}
+
+	private List<Path> files() throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.toList();
+		}
+	}
+
+	private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		for (int x = 0; x < expected.getWidth(); ++x) {
+			for (int y = 0; y < expected.getHeight(); ++y) {
+				int e = expected.getRGB(x, y), a = actual.getRGB(x, y);
+				// fully transparent pixels may differ in their color components
+				assertTrue(e == a || (e >>> 24) == 0 && (a >>> 24) == 0);
+			}
+		}
+	}
+
+	@Test
+	public void testStoreAndLoad() throws IOException {
+		BufferedImage decoded = Assets.readImage(ICON);
+		ImageDiskCache cache = new ImageDiskCache(dir);
+		BufferedImage first = cache.readImage(ICON);
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, files().size());
+		assertSamePixels(decoded, first);
+
+		ImageDiskCache nextStart = new ImageDiskCache(dir);
+		BufferedImage cached = nextStart.readImage(ICON);
+		assertEquals(1, nextStart.getHitCount());
+		assertEquals(first.getType(), cached.getType());
+		assertSamePixels(decoded, cached);
+
+		// loading does not keep the file open or mapped
+		nextStart.clear();
+		assertTrue(files().isEmpty());
+	}
+
+	@Test
+	public void testCorruptFileIsReplaced() throws IOException {
+		ImageDiskCache cache = new ImageDiskCache(dir);
+		BufferedImage image = cache.readImage(ICON);
+		Path file = files().get(0);
+		Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+		assertSamePixels(image, cache.readImage(ICON));
+		assertEquals(2, cache.getMissCount());
+		assertTrue(Files.size(file) > 8);
+		assertEquals(1, files().size());
+	}
+}
@@ -0,0 +1,106 @@
+package de.amr.easy.game.tests.assets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+
+import org.junit.Test;
+
+import de.amr.easy.game.assets.SoundMixer;
+import de.amr.easy.game.assets.SoundSample;
+
+public class SoundMixerTest {
+
+	private static final AudioFormat MONO = new AudioFormat(8000, 16, 1, true, false);
+	private static final AudioFormat STEREO = new AudioFormat(8000, 16, 2, true, false);
+
+	private static SoundSample constant(int value, int frames, float sampleRate) {
+		short[] data = new short[frames];
+		Arrays.fill(data, (short) value);
+		return new SoundSample(data, 1, sampleRate);
+	}
+
+	private static short[] render(SoundMixer mixer, int frames) {
+		int channels = mixer.getFormat().getChannels();
+		byte[] bytes = new byte[2 * channels * frames];
+		mixer.render(bytes, frames);
+		short[] samples = new short[channels * frames];
+		for (int i = 0; i < samples.length; ++i) {
+			samples[i] = (short) (bytes[2 * i] & 0xFF | bytes[2 * i + 1] << 8);
+		}
+		return samples;
+	}
+
+	@Test
+	public void testSameSampleOverlaps() {
+		SoundMixer mixer = new SoundMixer(MONO, 4);
+		SoundSample sample = constant(1000, 10, 8000);
+		long first = mixer.play(sample, 1, 0, 0, false);
+		long second = mixer.play(sample, 1, 0, 0, false);
+		assertTrue(first != second);
+		assertEquals(2, mixer.getActiveVoiceCount());
+		short[] out = render(mixer, 12);
+		assertEquals(2000, out[0]);
+		assertEquals(2000, out[9]);
+		assertEquals(0, out[10]);
+		assertEquals(0, mixer.getActiveVoiceCount());
+		assertFalse(mixer.isPlaying(first));
+	}
+
+	@Test
+	public void testGainAndPan() {
+		SoundMixer mixer = new SoundMixer(STEREO, 4);
+		long handle = mixer.play(constant(1000, 100, 8000), 0.5f, -1, 0, false);
+		short[] out = render(mixer, 4);
+		assertEquals(500, out[0]);
+		assertEquals(0, out[1]);
+		mixer.setGain(handle, 1, 1);
+		out = render(mixer, 4);
+		assertEquals(0, out[0]);
+		assertEquals(1000, out[1]);
+		mixer.setGain(handle, 100, 0);
+		out = render(mixer, 4);
+		assertEquals(Short.MAX_VALUE, out[0]);
+		mixer.setMuted(true);
+		out = render(mixer, 4);
+		assertEquals(0, out[0]);
+		assertTrue(mixer.isPlaying(handle));
+	}
+
+	@Test
+	public void testSampleRateConversionAndLoop() {
+		SoundMixer mixer = new SoundMixer(MONO, 1);
+		short[] ramp = { 0, 100, 200, 300 };
+		mixer.play(new SoundSample(ramp, 1, 4000), 1, 0, 0, true);
+		short[] out = render(mixer, 10);
+		// half-speed with linear interpolation, wrapping to the start when looping
+		assertEquals(50, out[1]);
+		assertEquals(250, out[5]);
+		assertEquals(150, out[7]);
+		assertEquals(0, out[8]);
+		assertEquals(1, mixer.getActiveVoiceCount());
+	}
+
+	@Test
+	public void testVoiceStealing() {
+		SoundMixer mixer = new SoundMixer(MONO, 2);
+		SoundSample sample = constant(1000, 100, 8000);
+		long important = mixer.play(sample, 1, 0, 1, false);
+		long old = mixer.play(sample, 1, 0, 0, false);
+		long newer = mixer.play(sample, 1, 0, 0, false);
+		assertTrue(mixer.isPlaying(important));
+		assertFalse(mixer.isPlaying(old));
+		assertTrue(mixer.isPlaying(newer));
+		assertEquals(1, mixer.getStolenCount());
+		assertEquals(0, mixer.play(sample, 1, 0, -1, false));
+		assertEquals(1, mixer.getRejectedCount());
+		mixer.stop(newer);
+		assertEquals(1, mixer.getActiveVoiceCount());
+		mixer.stopAll();
+		assertEquals(0, mixer.getActiveVoiceCount());
+	}
+}
@@ -0,0 +1,256 @@
+package de.amr.easy.game.tests.assets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Control;
+import javax.sound.sampled.Control.Type;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineListener;
+import javax.sound.sampled.SourceDataLine;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.amr.easy.game.assets.SoundManager;
+import de.amr.easy.game.assets.SoundStream;
+
+public class SoundStreamTest {
+
+	private static final AudioFormat FORMAT = new AudioFormat(8000, 16, 1, true, false);
+
+	/*
+	 * Line recording the written bytes. Each write needs a permit, a stopped line returns immediately.
+	 */
+	private static class RecordingLine implements SourceDataLine {
+
+		final ByteArrayOutputStream written = new ByteArrayOutputStream();
+		final Semaphore permits = new Semaphore(Integer.MAX_VALUE);
+		volatile boolean open, running;
+		int bufferSize;
+
+		synchronized byte[] bytes() {
+			return written.toByteArray();
+		}
+
+		@Override
+		public int write(byte[] b, int off, int len) {
+			try {
+				while (running) {
+					if (permits.tryAcquire(5, TimeUnit.MILLISECONDS)) {
+						synchronized (this) {
+							written.write(b, off, len);
+						}
+						return len;
+					}
+				}
+			} catch (InterruptedException x) {
+				Thread.currentThread().interrupt();
+			}
+			return 0;
+		}
+
+		@Override
+		public void open(AudioFormat format, int bufferSize) {
+			this.bufferSize = bufferSize;
+			open = true;
+		}
+
+		@Override
+		public void open(AudioFormat format) {
+			open(format, 4096);
+		}
+
+		@Override
+		public void open() {
+			open(FORMAT);
+		}
+
+		@Override
+		public void close() {
+			open = false;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public void start() {
+			running = true;
+		}
+
+		@Override
+		public void stop() {
+			running = false;
+		}
+
+		@Override
+		public boolean isRunning() {
+			return running;
+		}
+
+		@Override
+		public boolean isActive() {
+			return running;
+		}
+
+		@Override
+		public void drain() {
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public AudioFormat getFormat() {
+			return FORMAT;
+		}
+
+		@Override
+		public int getBufferSize() {
+			return bufferSize;
+		}
+
+		@Override
+		public int available() {
+			return bufferSize;
+		}
+
+		@Override
+		public int getFramePosition() {
+			return 0;
+		}
+
+		@Override
+		public long getLongFramePosition() {
+			return 0;
+		}
+
+		@Override
+		public long getMicrosecondPosition() {
+			return 0;
+		}
+
+		@Override
+		public float getLevel() {
+			return AudioSystem.NOT_SPECIFIED;
+		}
+
+		@Override
+		public javax.sound.sampled.Line.Info getLineInfo() {
+			return new DataLine.Info(SourceDataLine.class, FORMAT);
+		}
+
+		@Override
+		public Control[] getControls() {
+			return new Control[0];
+		}
+
+		@Override
+		public boolean isControlSupported(Type control) {
+			return false;
+		}
+
+		@Override
+		public Control getControl(Type control) {
+			return null;
+		}
+
+		@Override
+		public void addLineListener(LineListener listener) {
+		}
+
+		@Override
+		public void removeLineListener(LineListener listener) {
+		}
+	}
+
+	private final SoundManager soundManager = new SoundManager();
+	private byte[] pcm;
+	private byte[] wav;
+	private RecordingLine line;
+	private SoundStream stream;
+
+	@Before
+	public void setUp() throws Exception {
+		// one second of a sawtooth wave
+		pcm = new byte[16000];
+		for (int i = 0; i < pcm.length; ++i) {
+			pcm[i] = (byte) i;
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(pcm), FORMAT, pcm.length / 2),
+				AudioFileFormat.Type.WAVE, out);
+		wav = out.toByteArray();
+		line = new RecordingLine();
+		stream = new SoundStream("saw", () -> new ByteArrayInputStream(wav), line, 200);
+	}
+
+	@After
+	public void tearDown() {
+		stream.close();
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean()) {
+			assertTrue("Timeout", System.currentTimeMillis() < deadline);
+			Thread.sleep(2);
+		}
+	}
+
+	@Test
+	public void testPlayWritesWholeSoundInSmallChunks() throws InterruptedException {
+		assertEquals(3200, line.getBufferSize());
+		soundManager.startFromBeginning(stream);
+		await(() -> !stream.isRunning());
+		assertArrayEquals(pcm, line.bytes());
+		soundManager.startFromBeginning(stream);
+		await(() -> !stream.isRunning());
+		assertEquals(2 * pcm.length, line.bytes().length);
+	}
+
+	@Test
+	public void testStopAndStartContinuesAtPosition() throws InterruptedException {
+		line.permits.drainPermits();
+		soundManager.startFromBeginning(stream);
+		line.permits.release(5);
+		await(() -> line.bytes().length == 5 * 800);
+		soundManager.stop(stream);
+		assertFalse(stream.isRunning());
+		line.permits.release(Integer.MAX_VALUE / 2);
+		soundManager.start(stream);
+		await(() -> !stream.isRunning());
+		assertArrayEquals(pcm, line.bytes());
+	}
+
+	@Test
+	public void testLoop() throws InterruptedException {
+		soundManager.loop(stream);
+		assertTrue(stream.isLooping());
+		await(() -> line.bytes().length > 3 * pcm.length);
+		soundManager.stop(stream);
+		assertFalse(stream.isRunning());
+		byte[] bytes = line.bytes();
+		for (int start = 0; start + pcm.length <= bytes.length; start += pcm.length) {
+			assertArrayEquals(pcm, Arrays.copyOfRange(bytes, start, start + pcm.length));
+		}
+	}
+}
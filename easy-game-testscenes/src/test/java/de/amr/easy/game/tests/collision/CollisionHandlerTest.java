@@ -0,0 +1,207 @@
+package de.amr.easy.game.tests.collision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.amr.easy.game.entity.Entity;
+import de.amr.easy.game.entity.collision.Collision;
+import de.amr.easy.game.entity.collision.CollisionHandler;
+
+public class CollisionHandlerTest {
+
+	private CollisionHandler handler;
+	private Entity a, b;
+
+	private static Entity entity(float x, float y, int width, int height) {
+		Entity e = new Entity();
+		e.tf.setPosition(x, y);
+		e.tf.width = width;
+		e.tf.height = height;
+		return e;
+	}
+
+	private static List<String> events(CollisionHandler handler) {
+		List<String> list = new ArrayList<>();
+		for (Collision c : handler.collisions()) {
+			list.add(c.getAppEvent() + ":" + c.isCollisionStart());
+		}
+		list.sort(String::compareTo);
+		return list;
+	}
+
+	@Before
+	public void setUp() {
+		handler = new CollisionHandler();
+		a = entity(0, 0, 10, 10);
+		b = entity(100, 0, 10, 10);
+		handler.registerStart(a, b, "start");
+		handler.registerEnd(a, b, "end");
+	}
+
+	@Test
+	public void testStartAndEnd() {
+		handler.update();
+		assertTrue(events(handler).isEmpty());
+
+		b.tf.x = 5;
+		handler.update();
+		assertEquals(List.of("start:true"), events(handler));
+
+		handler.update();
+		assertTrue(events(handler).isEmpty());
+
+		b.tf.x = 10; // touching is not colliding
+		handler.update();
+		assertEquals(List.of("end:false"), events(handler));
+	}
+
+	@Test
+	public void testInvisibleEntityDoesNotCollide() {
+		b.tf.x = 5;
+		b.visible = false;
+		handler.update();
+		assertTrue(events(handler).isEmpty());
+	}
+
+	@Test
+	public void testLargeColliderSpanningManyCells() {
+		Entity wall = entity(-10_000, 50, 20_000, 10);
+		handler.registerStart(a, wall, "wall");
+		a.tf.y = 45;
+		handler.update();
+		assertEquals(List.of("wall:true"), events(handler));
+	}
+
+	@Test
+	public void testUnregister() {
+		b.tf.x = 5;
+		handler.unregisterStart(a, b);
+		handler.update();
+		assertFalse(handler.collisions().iterator().hasNext());
+	}
+
+	@Test
+	public void testLayerRules() {
+		int bullets = 1, enemies = 2;
+		CollisionHandler layered = new CollisionHandler();
+		layered.registerLayerStart(bullets, enemies, "hit");
+		layered.registerLayerEnd(enemies, bullets, "leave");
+		Entity bullet = entity(0, 0, 4, 4), enemy = entity(50, 0, 10, 10), friend = entity(0, 0, 10, 10);
+		bullet.collisionLayer = bullets;
+		enemy.collisionLayer = enemies;
+		layered.add(bullet);
+		layered.add(enemy);
+		layered.add(friend);
+
+		layered.update();
+		assertTrue(events(layered).isEmpty());
+
+		bullet.tf.x = 52;
+		layered.update();
+		assertEquals(List.of("hit:true"), events(layered));
+		Collision hit = layered.collisions().iterator().next();
+		assertTrue(hit.getFirst() == bullet && hit.getSecond() == enemy);
+
+		bullet.tf.x = 100;
+		layered.update();
+		assertEquals(List.of("leave:false"), events(layered));
+		Collision leave = layered.collisions().iterator().next();
+		assertTrue(leave.getFirst() == enemy && leave.getSecond() == bullet);
+
+		enemy.collisionMask = ~(1 << bullets);
+		bullet.tf.x = 52;
+		layered.update();
+		assertTrue(events(layered).isEmpty());
+
+		enemy.collisionMask = ~0;
+		layered.update();
+		assertEquals(List.of("hit:true"), events(layered));
+
+		layered.remove(bullet);
+		assertFalse(layered.contains(bullet));
+		layered.update();
+		assertTrue(events(layered).isEmpty());
+	}
+
+	@Test
+	public void testSweptCollisionDoesNotTunnel() {
+		Entity bullet = entity(0, 0, 2, 2), wall = entity(50, -10, 4, 20);
+		bullet.tf.setVelocity(40, 0);
+		handler.registerStart(bullet, wall, "hit");
+		handler.registerEnd(bullet, wall, "passed");
+
+		bullet.tf.move();
+		handler.update();
+		bullet.tf.move();
+		handler.update();
+		assertTrue(events(handler).isEmpty());
+
+		bullet.sweptCollision = true;
+		bullet.tf.setPosition(0, 0);
+		handler.update();
+		bullet.tf.move();
+		handler.update();
+		assertTrue(events(handler).isEmpty());
+		bullet.tf.move();
+		handler.update();
+		assertEquals(List.of("hit:true"), events(handler));
+		Collision hit = handler.collisions().iterator().next();
+		assertEquals(0.2, hit.getTimeOfImpact(), 1e-6);
+		assertEquals(50, hit.getIntersection().getX(), 1e-6);
+
+		bullet.tf.move();
+		handler.update();
+		assertEquals(List.of("passed:false"), events(handler));
+	}
+
+	@Test
+	public void testBroadPhaseGeneratesSameEventsAsFullTest() {
+		Random rnd = new Random(42);
+		CollisionHandler gridHandler = new CollisionHandler(16);
+		CollisionHandler fullHandler = new CollisionHandler(0);
+		Entity[] entities = new Entity[60];
+		for (int i = 0; i < entities.length; ++i) {
+			entities[i] = entity(rnd.nextInt(200), rnd.nextInt(200), 1 + rnd.nextInt(40), 1 + rnd.nextInt(40));
+			entities[i].tf.setVelocity(rnd.nextFloat() * 30 - 15, rnd.nextFloat() * 30 - 15);
+			entities[i].sweptCollision = rnd.nextBoolean();
+		}
+		for (int i = 0; i < entities.length; ++i) {
+			for (int j = 0; j < entities.length; ++j) {
+				if (rnd.nextInt(3) == 0) {
+					gridHandler.registerStart(entities[i], entities[j], i + "-" + j);
+					fullHandler.registerStart(entities[i], entities[j], i + "-" + j);
+				}
+				if (rnd.nextInt(3) == 0) {
+					gridHandler.registerEnd(entities[i], entities[j], j + "-" + i);
+					fullHandler.registerEnd(entities[i], entities[j], j + "-" + i);
+				}
+			}
+			entities[i].collisionLayer = rnd.nextInt(4);
+			if (rnd.nextBoolean()) {
+				gridHandler.add(entities[i]);
+				fullHandler.add(entities[i]);
+			}
+		}
+		gridHandler.registerLayerStart(0, 1, "layer-start");
+		fullHandler.registerLayerStart(0, 1, "layer-start");
+		gridHandler.registerLayerEnd(2, 2, "layer-end");
+		fullHandler.registerLayerEnd(2, 2, "layer-end");
+		for (int tick = 0; tick < 200; ++tick) {
+			for (Entity e : entities) {
+				e.tf.move();
+				e.visible = rnd.nextInt(20) != 0;
+			}
+			gridHandler.update();
+			fullHandler.update();
+			assertEquals(events(fullHandler), events(gridHandler));
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package de.amr.easy.game.tests.controller;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.amr.easy.game.controller.ParallelUpdateScheduler;
+import de.amr.easy.game.controller.UpdateGroup;
+import de.amr.easy.game.entity.EntityMap;
+import de.amr.easy.game.entity.GameObject;
+
+public class ParallelUpdateSchedulerTest {
+
+	/** Members of a group share an unsynchronized counter. */
+	static class Shared {
+		int updates;
+	}
+
+	static class Member extends GameObject implements UpdateGroup {
+
+		final Shared shared;
+		final Object group;
+
+		Member(Shared shared, Object group) {
+			this.shared = shared;
+			this.group = group;
+		}
+
+		@Override
+		public Object updateGroup() {
+			return group;
+		}
+
+		@Override
+		public void update() {
+			int n = shared.updates;
+			Thread.yield();
+			shared.updates = n + 1;
+		}
+	}
+
+	static class Agent extends GameObject {
+
+		int updates;
+
+		@Override
+		public void update() {
+			++updates;
+		}
+	}
+
+	private ForkJoinPool pool;
+	private EntityMap entities;
+	private ParallelUpdateScheduler scheduler;
+
+	@Before
+	public void setUp() {
+		pool = new ForkJoinPool(4);
+		entities = new EntityMap();
+		scheduler = new ParallelUpdateScheduler(entities, pool);
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void testGroupsAreUpdatedSequentially() {
+		Shared[] groups = new Shared[8];
+		for (int g = 0; g < groups.length; ++g) {
+			groups[g] = new Shared();
+			for (int i = 0; i < 50; ++i) {
+				entities.store("member-" + g + "-" + i, new Member(groups[g], "group-" + g));
+			}
+		}
+		for (int tick = 0; tick < 20; ++tick) {
+			scheduler.update();
+		}
+		assertEquals(8, scheduler.getTaskCount());
+		for (Shared group : groups) {
+			assertEquals(50 * 20, group.updates);
+		}
+	}
+
+	@Test
+	public void testIndependentEntitiesAreChunked() {
+		Shared shared = new Shared();
+		Member[] members = new Member[1000];
+		for (int i = 0; i < members.length; ++i) {
+			members[i] = entities.store("independent-" + i, new Member(new Shared(), UpdateGroup.INDEPENDENT));
+		}
+		entities.store("shared", new Member(shared, "shared"));
+		scheduler.setChunkSize(100);
+		scheduler.update();
+		assertEquals(11, scheduler.getTaskCount());
+		for (Member member : members) {
+			assertEquals(1, member.shared.updates);
+		}
+		assertEquals(1, shared.updates);
+	}
+
+	@Test
+	public void testPartitionFollowsEntityMap() {
+		Agent a = entities.store("a", new Agent());
+		scheduler.update();
+		Agent b = entities.store("b", new Agent());
+		scheduler.update();
+		entities.remove("a");
+		scheduler.update();
+		assertEquals(2, a.updates);
+		assertEquals(2, b.updates);
+		assertEquals(1, scheduler.getTaskCount());
+	}
+}
@@ -0,0 +1,152 @@
+package de.amr.easy.game.tests.entity;
+
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.amr.easy.game.controller.Lifecycle;
+import de.amr.easy.game.entity.Entity;
+import de.amr.easy.game.entity.EntityMap;
+import de.amr.easy.game.entity.GameObject;
+
+public class EntityMapTest {
+
+	static class Ghost extends GameObject {
+	}
+
+	static class FastGhost extends Ghost {
+	}
+
+	private EntityMap map;
+
+	@Before
+	public void setUp() {
+		map = new EntityMap();
+	}
+
+	@Test
+	public void testQueriesByType() {
+		Entity wall = map.store("wall", new Entity());
+		Ghost ghost = map.store("ghost", new Ghost());
+		FastGhost fast = map.store(new FastGhost());
+
+		assertEquals(Set.of(ghost), map.ofClass(Ghost.class).collect(toSet()));
+		assertEquals(Set.of(ghost, fast), map.implementing(Ghost.class).collect(toSet()));
+		assertEquals(Set.of(ghost, fast), map.implementing(Lifecycle.class).collect(toSet()));
+		assertEquals(Set.of(wall, ghost, fast), map.all().collect(toSet()));
+
+		// indices exist now and must be kept up to date
+		FastGhost faster = map.store(new FastGhost());
+		map.remove("ghost");
+		List<Lifecycle> lifecycles = new ArrayList<>();
+		map.forEachImplementing(Lifecycle.class, lifecycles::add);
+		assertEquals(Set.of(fast, faster), new HashSet<>(lifecycles));
+		assertEquals(0, map.ofClass(Ghost.class).count());
+		assertEquals(3, map.size());
+	}
+
+	@Test
+	public void testAnonymousStore() {
+		Ghost ghost = new Ghost();
+		map.store(ghost);
+		map.store(ghost);
+		assertEquals(1, map.size());
+		map.removeEntity(ghost);
+		assertEquals(0, map.size());
+		assertEquals(0, map.implementing(Ghost.class).count());
+	}
+
+	@Test
+	public void testEntityUnderSeveralKeys() {
+		Ghost ghost = new Ghost();
+		map.store("a", ghost);
+		map.store("b", ghost);
+		assertEquals(1, map.ofClass(Ghost.class).count());
+		map.remove("a");
+		assertTrue(map.contains("b"));
+		assertEquals(1, map.ofClass(Ghost.class).count());
+		map.store("b", new Ghost());
+		assertEquals(1, map.ofClass(Ghost.class).count());
+		assertFalse(map.ofClass(Ghost.class).anyMatch(g -> g == ghost));
+	}
+
+	@Test
+	public void testRemoveAll() {
+		map.store("blinky", new Ghost());
+		map.store("inky", new FastGhost());
+		Entity wall = map.store("wall", new Entity());
+		map.removeAll(Ghost.class);
+		assertFalse(map.contains("blinky"));
+		assertFalse(map.contains("inky"));
+		assertSame(wall, map.named("wall"));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void testIterationSeesStateAtStart() {
+		List<Ghost> ghosts = new ArrayList<>();
+		for (int i = 0; i < 100; ++i) {
+			ghosts.add(map.store(new Ghost()));
+		}
+		List<Ghost> visited = new ArrayList<>();
+		map.forEachOfClass(Ghost.class, ghost -> {
+			visited.add(ghost);
+			map.removeEntity(ghost);
+		});
+		assertEquals(ghosts, visited);
+		assertEquals(0, map.size());
+		// entities removed and stored again keep their position
+		map.store(ghosts.get(0));
+		map.store(ghosts.get(1));
+		map.removeEntity(ghosts.get(0));
+		map.store(ghosts.get(0));
+		assertEquals(List.of(ghosts.get(0), ghosts.get(1)), map.ofClass(Ghost.class).toList());
+	}
+
+	@Test
+	public void testRandomOperationsMatchReference() {
+		Random rnd = new Random(11);
+		Map<String, Entity> reference = new HashMap<>();
+		map.implementing(Ghost.class).count();
+		map.ofClass(FastGhost.class).count();
+		for (int step = 0; step < 2000; ++step) {
+			String key = "e" + rnd.nextInt(50);
+			switch (rnd.nextInt(4)) {
+			case 0 -> reference.put(key, map.store(key, rnd.nextBoolean() ? new Ghost() : new FastGhost()));
+			case 1 -> reference.put(key, map.store(key, reference.getOrDefault("e" + rnd.nextInt(50), new Entity())));
+			case 2 -> {
+				map.remove(key);
+				reference.remove(key);
+			}
+			default -> {
+				Entity e = map.named(key);
+				if (e != null) {
+					map.removeEntity(e);
+					reference.values().removeIf(value -> value == e);
+				}
+			}
+			}
+			Set<Entity> all = new HashSet<>(reference.values());
+			assertEquals(all, map.all().collect(toSet()));
+			assertEquals(all.stream().filter(Ghost.class::isInstance).collect(toSet()),
+					map.implementing(Ghost.class).collect(toSet()));
+			assertEquals(all.stream().filter(e -> e.getClass() == FastGhost.class).collect(toSet()),
+					map.ofClass(FastGhost.class).collect(toSet()));
+			assertEquals(all.size(), map.size());
+			reference.forEach((k, v) -> assertSame(v, map.named(k)));
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package de.amr.easy.game.tests.entity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import de.amr.easy.game.entity.EntityMap;
+import de.amr.easy.game.entity.GameObject;
+import de.amr.easy.game.entity.ObjectPool;
+import de.amr.easy.game.entity.ObjectPools;
+import de.amr.easy.game.entity.Poolable;
+
+public class ObjectPoolTest {
+
+	static class Bullet extends GameObject implements Poolable {
+
+		int inits, exits;
+		boolean dirty;
+
+		@Override
+		public void init() {
+			++inits;
+			dirty = true;
+		}
+
+		@Override
+		public void exit() {
+			++exits;
+		}
+
+		@Override
+		public void reset() {
+			dirty = false;
+			tf.setPosition(0, 0);
+		}
+	}
+
+	@Test
+	public void testAcquireAndRelease() {
+		ObjectPool<Bullet> pool = new ObjectPool<>("bullets", Bullet::new, 2);
+		Bullet a = pool.acquire(), b = pool.acquire(), c = pool.acquire();
+		assertEquals(3, pool.getOutstanding());
+		assertEquals(0, pool.getHitCount());
+		a.tf.setPosition(10, 10);
+		pool.release(a);
+		pool.release(b);
+		pool.release(c); // pool full
+		assertEquals(1, pool.getDiscardedCount());
+		assertEquals(0, a.tf.x, 0);
+		assertEquals(1, a.exits);
+
+		Bullet d = pool.acquire();
+		assertSame(b, d);
+		assertEquals(2, d.inits);
+		assertTrue(d.dirty);
+		assertEquals(1, pool.getHitCount());
+		assertEquals(0.25, pool.getHitRate(), 1e-9);
+		assertEquals(3, pool.getPeakOutstanding());
+	}
+
+	@Test
+	public void testReleaseMoreThanAcquired() {
+		ObjectPool<Bullet> pool = new ObjectPool<>("bullets", Bullet::new, 2);
+		Bullet a = pool.acquire();
+		pool.release(a);
+		a.init(); // still used by mistake
+		try {
+			pool.release(a);
+			fail();
+		} catch (IllegalStateException x) {
+			// the rejected release must not run the hooks
+			assertEquals(1, a.exits);
+			assertTrue(a.dirty);
+		}
+	}
+
+	@Test
+	public void testSpawnIntoEntityMap() {
+		ObjectPools pools = new ObjectPools();
+		ObjectPool<Bullet> pool = pools.register(Bullet.class, Bullet::new, 10);
+		pool.prefill(5);
+		EntityMap entities = new EntityMap();
+		Bullet a = entities.spawn(pool), b = entities.spawn(pool);
+		assertNotSame(a, b);
+		assertEquals(2, entities.ofClass(Bullet.class).count());
+		entities.despawn(a, pool);
+		assertEquals(1, entities.ofClass(Bullet.class).count());
+		entities.removeEntity(b);
+		pools.release(b);
+		assertEquals(0, pool.getOutstanding());
+		assertEquals(5, pool.getFreeCount());
+		assertEquals(1.0, pool.getHitRate(), 1e-9);
+	}
+
+	@Test
+	public void testDespawnTwiceReleasesOnce() {
+		ObjectPool<Bullet> pool = new ObjectPool<>("bullets", Bullet::new, 10);
+		EntityMap entities = new EntityMap();
+		Bullet bullet = entities.spawn(pool);
+		entities.spawn(pool);
+		assertTrue(entities.despawn(bullet, pool));
+		assertFalse(entities.despawn(bullet, pool));
+		assertEquals(1, pool.getFreeCount());
+		assertEquals(1, pool.getOutstanding());
+		assertNotSame(entities.spawn(pool), entities.spawn(pool));
+	}
+}
@@ -0,0 +1,105 @@
+package de.amr.easy.game.tests.entity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.amr.easy.game.entity.Entity;
+import de.amr.easy.game.entity.TransformStore;
+
+public class TransformStoreTest {
+
+	@Test
+	public void testHandlesStayValidWhileStoreIsPacked() {
+		Random rnd = new Random(3);
+		TransformStore store = new TransformStore(1);
+		Map<Integer, Float> expectedX = new HashMap<>();
+		List<Integer> released = new ArrayList<>();
+		for (int step = 0; step < 5000; ++step) {
+			if (expectedX.isEmpty() || rnd.nextInt(3) != 0) {
+				int handle = store.create();
+				float x = rnd.nextFloat();
+				store.setPosition(handle, x, 0);
+				expectedX.put(handle, x);
+			} else {
+				int handle = expectedX.keySet().iterator().next();
+				store.release(handle);
+				expectedX.remove(handle);
+				released.add(handle);
+			}
+			assertEquals(expectedX.size(), store.size());
+		}
+		expectedX.forEach((handle, x) -> assertEquals(x, store.getX(handle), 0));
+		for (int handle : released) {
+			assertTrue(expectedX.containsKey(handle) || !store.isValid(handle));
+		}
+		for (int i = 0; i < store.size(); ++i) {
+			assertEquals(i, store.indexOf(store.handleAt(i)));
+		}
+	}
+
+	@Test
+	public void testReleasedHandleStaysInvalidWhenSlotIsReused() {
+		TransformStore store = new TransformStore(1);
+		int stale = store.create();
+		store.release(stale);
+		for (int i = 0; i < 2047; ++i) {
+			int handle = store.create();
+			assertFalse(store.isValid(stale));
+			store.release(handle);
+		}
+	}
+
+	@Test
+	public void testMoveAndSyncWithEntities() {
+		TransformStore store = new TransformStore();
+		Entity a = new Entity(), b = new Entity();
+		a.tf.setVelocity(1, 2);
+		b.tf.setPosition(100, 100);
+		b.tf.setVelocity(-1, 0);
+		b.tf.width = b.tf.height = 10;
+		int ha = store.attach(a);
+		int hb = store.attach(b);
+		store.release(ha);
+		ha = store.attach(a);
+
+		for (int i = 0; i < 10; ++i) {
+			store.move();
+		}
+		assertEquals(0, a.tf.x, 0); // not stored yet
+		store.storeTransforms();
+		assertEquals(10, a.tf.x, 0);
+		assertEquals(20, a.tf.y, 0);
+		assertEquals(90, b.tf.x, 0);
+
+		b.tf.x = 0;
+		store.loadTransforms();
+		assertEquals(0, store.getX(hb), 0);
+		assertSame(b, store.attachedAt(store.indexOf(hb)));
+
+		List<Integer> outside = new ArrayList<>();
+		store.forEachOutside(5, 5, 200, 200, outside::add);
+		assertEquals(List.of(hb), outside);
+		List<Integer> overlapping = new ArrayList<>();
+		store.forEachOverlapping(0, 95, 5, 10, overlapping::add);
+		assertEquals(List.of(hb), overlapping);
+
+		float[] bounds = new float[4];
+		store.bounds(bounds);
+		assertEquals(0, bounds[0], 0);
+		assertEquals(110, bounds[3], 0);
+
+		store.clear();
+		assertFalse(store.isValid(ha));
+		assertEquals(0, store.size());
+	}
+}
@@ -0,0 +1,59 @@
+package de.amr.easy.game.tests.math;
+
+import static de.amr.easy.game.math.V2f.v;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import de.amr.easy.game.entity.Transform;
+import de.amr.easy.game.math.MutableV2f;
+import de.amr.easy.game.math.V2f;
+
+public class MutableV2fTest {
+
+	@Test
+	public void testChainedOperations() {
+		MutableV2f m = new MutableV2f(5, -10);
+		assertSame(m, m.add(-3, 4).times(2).subtract(v(1, 1)));
+		assertEquals(v(3, -13), m.toV2f());
+		m.set(0, 0).normalize();
+		assertSame(V2f.NULL, m.toV2f());
+		m.set(3, 4).normalize();
+		assertEquals(1, m.length(), V2f.EPSILON);
+		assertEquals(v(0.6f, 0.8f), m.toV2f());
+	}
+
+	@Test
+	public void testPrimitiveOperations() {
+		V2f v = v(5, -10), w = v(-3, 4);
+		assertEquals(v.length() * v.length(), v.lengthSq(), 1e-4);
+		assertEquals(V2f.euclideanDist(v, w), V2f.dist(v.x(), v.y(), w.x(), w.y()), V2f.EPSILON);
+		assertEquals(260, V2f.distSq(v.x(), v.y(), w.x(), w.y()), 0);
+		assertEquals(V2f.sum(v, w), V2f.addInto(v.x(), v.y(), w.x(), w.y(), new MutableV2f()).toV2f());
+		assertEquals(V2f.diff(v, w), V2f.subtractInto(v.x(), v.y(), w.x(), w.y(), new MutableV2f()).toV2f());
+		assertEquals(v.normalized(), V2f.normalizeInto(v.x(), v.y(), new MutableV2f()).toV2f());
+		assertEquals(2e20f, V2f.length(2e20f, 0), 0);
+	}
+
+	@Test
+	public void testTransformAccessors() {
+		Transform tf = new Transform();
+		tf.setPosition(10, 20);
+		tf.width = 8;
+		tf.height = 6;
+		tf.setVelocity(3, 4);
+		MutableV2f out = new MutableV2f();
+		assertEquals(tf.getPosition(), tf.positionInto(out).toV2f());
+		assertEquals(tf.getCenter(), tf.centerInto(out).toV2f());
+		assertEquals(tf.getVelocity(), tf.velocityInto(out).toV2f());
+		assertEquals(14, tf.getCenterX(), 0);
+		assertEquals(23, tf.getCenterY(), 0);
+		assertEquals(25, tf.getSpeedSq(), 0);
+		Transform other = new Transform();
+		other.setPosition(13, 24);
+		other.width = 8;
+		other.height = 6;
+		assertEquals(25, tf.centerDistSq(other), 0);
+	}
+}
@@ -0,0 +1,101 @@
+package de.amr.easy.game.tests.particles;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import de.amr.easy.game.particles.ParticleEmitter;
+import de.amr.easy.game.particles.ParticleSystem;
+import de.amr.easy.game.ui.sprites.Sprite;
+
+public class ParticleSystemTest {
+
+	@Test
+	public void testLifetimeAndMovement() {
+		ParticleSystem system = new ParticleSystem(10);
+		system.setGravity(0, 1);
+		system.spawn(0, 0, 2, 0, 3, 1, -1);
+		system.spawn(0, 0, 0, 0, 1, 1, -1);
+		system.spawn(0, 0, 0, 0, 5, 1, -1);
+		system.update();
+		assertEquals(2, system.getCount());
+		system.update();
+		system.update();
+		assertEquals(1, system.getCount());
+		system.update();
+		system.update();
+		assertEquals(0, system.getCount());
+	}
+
+	@Test
+	public void testFullRingReplacesOldest() {
+		ParticleSystem system = new ParticleSystem(4);
+		for (int i = 0; i < 6; ++i) {
+			system.spawn(i, 0, 0, 0, 10 + i, 1, -1);
+		}
+		assertEquals(4, system.getCount());
+		assertEquals(2, system.getReplacedCount());
+		// remaining particles have lifetimes 12..15
+		for (int tick = 0; tick < 12; ++tick) {
+			system.update();
+		}
+		assertEquals(3, system.getCount());
+		for (int tick = 0; tick < 3; ++tick) {
+			system.update();
+		}
+		assertEquals(0, system.getCount());
+	}
+
+	@Test
+	public void testBudgetPerTick() {
+		ParticleSystem system = new ParticleSystem(1000);
+		system.setBudget(10);
+		ParticleEmitter emitter = new ParticleEmitter(1);
+		emitter.setRate(25);
+		system.addEmitter(emitter);
+		system.update();
+		assertEquals(10, system.getCount());
+		assertEquals(1, system.getRejectedCount());
+		system.update();
+		assertEquals(10, system.getSpawnedLastTick());
+		assertEquals(0, emitter.burst(system, 5));
+		assertEquals(20, system.getCount());
+	}
+
+	@Test
+	public void testDrawing() {
+		ParticleSystem system = new ParticleSystem(100);
+		ParticleEmitter emitter = new ParticleEmitter(2);
+		emitter.setPosition(50, 50);
+		emitter.setColor(Color.RED);
+		emitter.size = 4;
+		emitter.burst(system, 50);
+
+		BufferedImage filled = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = filled.createGraphics();
+		system.draw(g);
+		g.dispose();
+		assertNotEquals(0, filled.getRGB(50, 50));
+
+		BufferedImage frame = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D fg = frame.createGraphics();
+		fg.setColor(Color.GREEN);
+		fg.fillRect(0, 0, 4, 4);
+		fg.dispose();
+		system.setSprite(Sprite.of(frame));
+		BufferedImage sprites = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+		g = sprites.createGraphics();
+		system.draw(g);
+		g.dispose();
+		assertEquals(Color.GREEN.getRGB(), sprites.getRGB(50, 50));
+		assertTrue(system.getCount() > 0);
+		assertFalse(system.getCount() > system.getCapacity());
+	}
+}
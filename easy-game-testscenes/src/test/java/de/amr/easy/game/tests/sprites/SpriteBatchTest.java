@@ -0,0 +1,118 @@
+package de.amr.easy.game.tests.sprites;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import de.amr.easy.game.ui.sprites.Sprite;
+import de.amr.easy.game.ui.sprites.SpriteBatch;
+import de.amr.easy.game.ui.sprites.TextureAtlas;
+
+public class SpriteBatchTest {
+
+	private static BufferedImage filled(int size, Color color) {
+		BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(color);
+		g.fillRect(0, 0, size, size);
+		g.dispose();
+		return image;
+	}
+
+	private static BufferedImage canvas() {
+		return new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+	}
+
+	private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+		for (int x = 0; x < expected.getWidth(); ++x) {
+			for (int y = 0; y < expected.getHeight(); ++y) {
+				assertEquals("Pixel " + x + "," + y, expected.getRGB(x, y), actual.getRGB(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void testLayersAreDrawnInOrder() {
+		Sprite red = Sprite.of(filled(20, Color.RED)), blue = Sprite.of(filled(20, Color.BLUE));
+
+		BufferedImage expected = canvas();
+		Graphics2D g = expected.createGraphics();
+		red.draw(g, 10, 10);
+		blue.draw(g, 20, 20);
+		red.draw(g, 30, 30);
+		g.dispose();
+
+		SpriteBatch batch = new SpriteBatch(1);
+		BufferedImage actual = canvas();
+		g = actual.createGraphics();
+		batch.draw(red, 30, 30, 0, 2);
+		batch.draw(blue, 20, 20, 0, 1);
+		batch.draw(red, 10, 10, 0, 0);
+		batch.flush(g);
+		g.dispose();
+
+		assertSamePixels(expected, actual);
+		assertEquals(3, batch.getLastCommandCount());
+		assertEquals(3, batch.getLastRunCount());
+		assertEquals(0, batch.size());
+	}
+
+	@Test
+	public void testNegativeLayersAreDrawnBelowPositiveLayers() {
+		Sprite red = Sprite.of(filled(20, Color.RED)), blue = Sprite.of(filled(20, Color.BLUE)),
+				green = Sprite.of(filled(20, Color.GREEN));
+
+		BufferedImage expected = canvas();
+		Graphics2D g = expected.createGraphics();
+		red.draw(g, 10, 10);
+		blue.draw(g, 15, 15);
+		green.draw(g, 20, 20);
+		red.draw(g, 25, 25);
+		g.dispose();
+
+		SpriteBatch batch = new SpriteBatch();
+		BufferedImage actual = canvas();
+		g = actual.createGraphics();
+		batch.draw(red, 25, 25, 0, SpriteBatch.MAX_LAYER);
+		batch.draw(green, 20, 20, 0, 1);
+		batch.draw(blue, 15, 15, 0, -1);
+		batch.draw(red, 10, 10, 0, SpriteBatch.MIN_LAYER);
+		batch.flush(g);
+		g.dispose();
+
+		assertSamePixels(expected, actual);
+		assertEquals(4, batch.getLastRunCount());
+	}
+
+	@Test
+	public void testAtlasFramesAreDrawnInOneRun() {
+		TextureAtlas atlas = new TextureAtlas.Builder().add("red", filled(10, Color.RED))
+				.add("green", filled(12, Color.GREEN)).add("blue", filled(14, Color.BLUE)).build();
+		Sprite red = atlas.sprite("red"), green = atlas.sprite("green"), blue = atlas.sprite("blue");
+
+		BufferedImage expected = canvas();
+		Graphics2D g = expected.createGraphics();
+		red.draw(g, 0, 0);
+		green.draw(g, 40, 0);
+		blue.draw(g, 0, 40);
+		green.draw(g, 50, 50);
+		g.dispose();
+
+		SpriteBatch batch = new SpriteBatch();
+		BufferedImage actual = canvas();
+		g = actual.createGraphics();
+		batch.draw(red, 0, 0);
+		batch.draw(green, 40, 0);
+		batch.draw(blue, 0, 40);
+		batch.draw(green, 50, 50);
+		batch.flush(g);
+		g.dispose();
+
+		assertSamePixels(expected, actual);
+		assertEquals(1, batch.getLastRunCount());
+	}
+}
@@ -0,0 +1,99 @@
+package de.amr.easy.game.tests.sprites;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import de.amr.easy.game.ui.sprites.TextureAtlas;
+import de.amr.easy.game.ui.sprites.TextureAtlas.Region;
+
+public class TextureAtlasTest {
+
+	private static TextureAtlas.Builder randomFrames(TextureAtlas.Builder builder, int count) {
+		Random rnd = new Random(7);
+		for (int i = 0; i < count; ++i) {
+			BufferedImage image = new BufferedImage(1 + rnd.nextInt(60), 1 + rnd.nextInt(60), BufferedImage.TYPE_INT_ARGB);
+			for (int x = 0; x < image.getWidth(); ++x) {
+				for (int y = 0; y < image.getHeight(); ++y) {
+					image.setRGB(x, y, rnd.nextInt());
+				}
+			}
+			builder.add("frame" + i, image);
+		}
+		return builder;
+	}
+
+	private static void assertSameFrames(TextureAtlas expected, TextureAtlas actual) {
+		for (String name : expected.names()) {
+			BufferedImage a = expected.image(name), b = actual.image(name);
+			assertEquals(a.getWidth(), b.getWidth());
+			assertEquals(a.getHeight(), b.getHeight());
+			for (int x = 0; x < a.getWidth(); ++x) {
+				for (int y = 0; y < a.getHeight(); ++y) {
+					assertEquals(a.getRGB(x, y), b.getRGB(x, y));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testFramesDoNotOverlap() {
+		TextureAtlas atlas = randomFrames(new TextureAtlas.Builder().pageSize(256).padding(1), 200).build();
+		assertTrue(atlas.pages().size() > 1);
+		List<Region> regions = new ArrayList<>();
+		for (String name : atlas.names()) {
+			regions.add(atlas.region(name));
+		}
+		assertEquals(200, regions.size());
+		for (int i = 0; i < regions.size(); ++i) {
+			Region r = regions.get(i);
+			BufferedImage page = atlas.pages().get(r.page());
+			assertTrue(r.x() + r.width() <= page.getWidth() && r.y() + r.height() <= page.getHeight());
+			for (int j = i + 1; j < regions.size(); ++j) {
+				Region s = regions.get(j);
+				assertFalse(r.page() == s.page() && new Rectangle(r.x(), r.y(), r.width(), r.height())
+						.intersects(new Rectangle(s.x(), s.y(), s.width(), s.height())));
+			}
+		}
+	}
+
+	@Test
+	public void testOversizedFrameGetsOwnPage() {
+		TextureAtlas atlas = new TextureAtlas.Builder().pageSize(64)
+				.add("small", new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB))
+				.add("huge", new BufferedImage(100, 60, BufferedImage.TYPE_INT_ARGB)).build();
+		assertEquals(2, atlas.pages().size());
+		assertEquals(100, atlas.image("huge").getWidth());
+	}
+
+	@Test
+	public void testCacheRoundTrip() throws IOException {
+		Path dir = Files.createTempDirectory("atlas-test");
+		try {
+			TextureAtlas packed = randomFrames(new TextureAtlas.Builder().pageSize(128).cacheDir(dir), 50).build();
+			try (Stream<Path> files = Files.list(dir)) {
+				assertEquals(packed.pages().size() + 1, files.count());
+			}
+			TextureAtlas cached = randomFrames(new TextureAtlas.Builder().pageSize(128).cacheDir(dir), 50).build();
+			assertEquals(packed.pages().size(), cached.pages().size());
+			assertSameFrames(packed, cached);
+		} finally {
+			try (Stream<Path> files = Files.list(dir)) {
+				files.forEach(file -> file.toFile().delete());
+			}
+			Files.delete(dir);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package de.amr.easy.game.tests.timing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.amr.easy.game.timing.FrameMetrics;
+import de.amr.easy.game.timing.FramePhase;
+import de.amr.easy.game.timing.TimingHistogram;
+
+public class TimingHistogramTest {
+
+	@Test
+	public void testEmpty() {
+		TimingHistogram h = new TimingHistogram();
+		assertEquals(0, h.getCount());
+		assertEquals(0, h.getPercentile(99));
+	}
+
+	@Test
+	public void testPercentilesHaveSmallRelativeError() {
+		TimingHistogram h = new TimingHistogram();
+		for (long value = 1; value <= 100_000; ++value) {
+			h.record(value * 1000);
+		}
+		assertEquals(100_000, h.getCount());
+		assertEquals(100_000_000, h.getMax());
+		assertEquals(50_000_000, h.getPercentile(50), 50_000_000 * 0.035);
+		assertEquals(99_000_000, h.getPercentile(99), 99_000_000 * 0.035);
+		assertEquals(100_000_000, h.getPercentile(100));
+		assertTrue(h.getPercentile(0) >= 1000);
+	}
+
+	@Test
+	public void testSmallValuesAreExact() {
+		TimingHistogram h = new TimingHistogram();
+		for (int value = 0; value < 32; ++value) {
+			h.record(value);
+		}
+		assertEquals(15, h.getPercentile(50));
+		assertEquals(31, h.getMax());
+	}
+
+	@Test
+	public void testFrameMetrics() {
+		FrameMetrics metrics = new FrameMetrics(4);
+		for (int frame = 0; frame < 6; ++frame) {
+			metrics.record(FramePhase.UPDATE, 1000 * frame);
+			metrics.record(FramePhase.UPDATE, 1000);
+			metrics.countTick();
+			metrics.endFrame();
+		}
+		assertEquals(6, metrics.getFrameCount());
+		assertEquals(6000, metrics.getFramePhaseNanos(5, FramePhase.UPDATE));
+		assertEquals(0, metrics.getFramePhaseNanos(5, FramePhase.RENDER));
+		assertEquals(1, metrics.getFrameTicks(2));
+		assertEquals(6, metrics.histogram(FramePhase.UPDATE).getCount());
+		assertEquals(0, metrics.histogram(FramePhase.RENDER).getCount());
+		assertEquals(6000, metrics.max(FramePhase.UPDATE));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOverwrittenFrameIsNotAvailable() {
+		FrameMetrics metrics = new FrameMetrics(4);
+		for (int frame = 0; frame < 6; ++frame) {
+			metrics.endFrame();
+		}
+		metrics.getFrameTicks(1);
+	}
+}